@@ -1,11 +1,13 @@
 package omc.sensorimitator;
 
 
+import omc.sensorimitator.codec.SensorDataBinaryCodec;
 import omc.sensorimitator.dto.SensorDataDto;
 import omc.sensorimitator.service.SensorImitatorService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.SpringApplication;
+import org.springframework.http.*;
 import org.springframework.scheduling.annotation.*;
 import org.springframework.web.client.RestTemplate;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +38,11 @@ public class SensorImitatorApplication {
 	@Value("${sensors.endpoint.path}")
 	private String endpointPath;
 
+	@Value("${sensors.endpoint.format}")
+	private String endpointFormat;
+
+	private static final String BINARY_FORMAT = "binary";
+
 	/**
 	 * The main method that starts the Sensor Imitator application.
 	 *
@@ -56,7 +63,11 @@ public class SensorImitatorApplication {
 		long startTime = System.currentTimeMillis();
 		List<SensorDataDto> sensorDataList = sensorImitatorService.getRandomSensorData();
 		long generationTime = System.currentTimeMillis() - startTime;
-		sendSensorData(sensorDataList);
+		if (BINARY_FORMAT.equalsIgnoreCase(endpointFormat)) {
+			sendSensorDataBinary(sensorDataList);
+		} else {
+			sendSensorData(sensorDataList);
+		}
 		long sendingTime = System.currentTimeMillis() - startTime - generationTime;
 		log.info("Data generation took {} ms, sending took {} ms", generationTime, sendingTime);
 	}
@@ -85,4 +96,24 @@ public class SensorImitatorApplication {
 	}
 
 
+	/**
+	 * Sends the generated sensor data to the specified endpoint as a single request
+	 * in the compact binary wire format.
+	 *
+	 * @param sensorDataList a list of {@link SensorDataDto} objects representing the sensor data to be sent.
+	 *                       Must not be null and can be empty.
+	 */
+	private void sendSensorDataBinary(List<SensorDataDto> sensorDataList) {
+		String endpointUrl = String.format("%s:%s/%s", endpointHost, endpointPort, endpointPath);
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(SensorDataBinaryCodec.MEDIA_TYPE_VALUE));
+		HttpEntity<byte[]> request = new HttpEntity<>(SensorDataBinaryCodec.encode(sensorDataList), headers);
+		try {
+			restTemplate.postForEntity(endpointUrl, request, Void.class);
+		} catch (Exception e) {
+			log.error("Failed to send binary batch of {} sensor data entries: {}", sensorDataList.size(), e.getMessage());
+		}
+	}
+
+
 }
@@ -0,0 +1,43 @@
+package omc.sensorimitator.codec;
+
+import omc.sensorimitator.dto.*;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Encoder for the compact binary wire format of sensor readings accepted by sensor-monitoring.
+ * <p>
+ * A payload is a sequence of fixed-width big-endian records of {@value #RECORD_SIZE} bytes:
+ * sensor id ({@code long}), timestamp ({@code long}), face direction ordinal ({@code byte})
+ * and temperature ({@code double}). The ordinals of {@link FaceDirection} must match
+ * the ones used by sensor-monitoring.
+ * </p>
+ */
+public final class SensorDataBinaryCodec {
+
+    /** The content type of the binary wire format. */
+    public static final String MEDIA_TYPE_VALUE = "application/x-sensor-data";
+
+    /** The size of a single encoded record in bytes. */
+    public static final int RECORD_SIZE = 25;
+
+    private SensorDataBinaryCodec() {}
+
+
+    /**
+     * Encodes a list of sensor readings into a single binary payload.
+     *
+     * @param sensorDataList the sensor readings to encode
+     * @return the encoded payload
+     */
+    public static byte[] encode(List<SensorDataDto> sensorDataList) {
+        ByteBuffer buffer = ByteBuffer.allocate(sensorDataList.size() * RECORD_SIZE);
+        for (SensorDataDto sensorData : sensorDataList) {
+            buffer.putLong(sensorData.id())
+                    .putLong(sensorData.timestamp())
+                    .put((byte) sensorData.face().ordinal())
+                    .putDouble(sensorData.temperature());
+        }
+        return buffer.array();
+    }
+}
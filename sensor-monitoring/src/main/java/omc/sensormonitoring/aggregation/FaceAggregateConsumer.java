@@ -0,0 +1,24 @@
+package omc.sensormonitoring.aggregation;
+
+import omc.sensormonitoring.model.FaceDirection;
+
+/**
+ * Functional interface for consuming the aggregated temperatures of a face direction within a bucket
+ * as primitive values, without allocating an intermediate object per bucket.
+ */
+@FunctionalInterface
+public interface FaceAggregateConsumer {
+
+    /**
+     * Consumes the aggregated temperatures of a face direction within a bucket.
+     *
+     * @param timestamp          the start of the bucket (in milliseconds since epoch)
+     * @param face               the face direction
+     * @param averageTemperature the average of the hourly face averages within the bucket
+     * @param minTemperature     the lowest hourly face average within the bucket
+     * @param maxTemperature     the highest hourly face average within the bucket
+     * @param hours              the number of hours with a face average within the bucket
+     */
+    void accept(long timestamp, FaceDirection face, double averageTemperature, double minTemperature,
+                double maxTemperature, long hours);
+}
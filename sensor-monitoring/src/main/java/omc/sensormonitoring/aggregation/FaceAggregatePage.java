@@ -0,0 +1,99 @@
+package omc.sensormonitoring.aggregation;
+
+import omc.sensormonitoring.model.FaceDirection;
+
+/**
+ * Fixed-capacity buffer of face aggregates read by one query, kept in parallel primitive arrays so that a page
+ * is filled and replayed without allocating an object per bucket.
+ * <p>
+ * A page is filled by the database read and replayed to the consumer writing the response only after the query
+ * has completed, so the connection is not held while the response is written. This class is not thread-safe.
+ * </p>
+ */
+public final class FaceAggregatePage implements FaceAggregateConsumer {
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    private final long[] timestamps;
+    private final byte[] faces;
+    private final double[] averages;
+    private final double[] mins;
+    private final double[] maxs;
+    private final long[] hours;
+    private int size;
+
+    /**
+     * Creates an empty page.
+     *
+     * @param capacity the maximum number of aggregates of the page
+     */
+    public FaceAggregatePage(int capacity) {
+        timestamps = new long[capacity];
+        faces = new byte[capacity];
+        averages = new double[capacity];
+        mins = new double[capacity];
+        maxs = new double[capacity];
+        hours = new long[capacity];
+    }
+
+    @Override
+    public void accept(long timestamp, FaceDirection face, double averageTemperature, double minTemperature,
+                       double maxTemperature, long hourCount) {
+        timestamps[size] = timestamp;
+        faces[size] = (byte) face.ordinal();
+        averages[size] = averageTemperature;
+        mins[size] = minTemperature;
+        maxs[size] = maxTemperature;
+        hours[size] = hourCount;
+        size++;
+    }
+
+    /**
+     * Returns the maximum number of aggregates of the page.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return timestamps.length;
+    }
+
+    /**
+     * Checks whether the page holds as many aggregates as it can.
+     *
+     * @return {@code true} if the page is full
+     */
+    public boolean isFull() {
+        return size == timestamps.length;
+    }
+
+    /**
+     * Removes the aggregates of the last bucket of the page, whose face directions may continue beyond the page.
+     * The aggregates must be ordered by bucket.
+     *
+     * @return the start of the removed bucket (in milliseconds since epoch)
+     */
+    public long removeLastBucket() {
+        long lastBucket = timestamps[size - 1];
+        while (size > 0 && timestamps[size - 1] == lastBucket) {
+            size--;
+        }
+        return lastBucket;
+    }
+
+    /**
+     * Hands the aggregates of the page to a consumer in the order they were added.
+     *
+     * @param consumer the consumer receiving the aggregated temperatures of every bucket and face direction
+     */
+    public void forEach(FaceAggregateConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(timestamps[i], FACES[faces[i]], averages[i], mins[i], maxs[i], hours[i]);
+        }
+    }
+
+    /**
+     * Removes every aggregate of the page.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,180 @@
+package omc.sensormonitoring.aggregation;
+
+import jakarta.annotation.PostConstruct;
+import omc.sensormonitoring.ingest.SensorDataColumns;
+import omc.sensormonitoring.model.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory buckets of the finest rollup tier.
+ * <p>
+ * The flusher passes every batch of drained readings to {@link #add(SensorDataColumns)}, which updates the
+ * {@link RunningAggregate} of the reading's face direction in the bucket of the first resolution of
+ * {@code sensors.rollup.resolutions} given by the reading's own timestamp. Like the hourly windows, a bucket
+ * is closed once the wall clock minus {@code sensors.window.allowed-lateness} passes its end;
+ * {@link #closeBuckets()} returns every closed bucket exactly once. Readings of closed buckets and readings
+ * stamped in the future are skipped. Closed buckets that could not be stored are handed back with
+ * {@link #reopenBuckets(List)} and returned again by the next {@link #closeBuckets()}.
+ * </p>
+ */
+@Component
+public class FaceRollupAggregator {
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final NavigableMap<Long, RunningAggregate[]> buckets = new TreeMap<>();
+    private final LongSupplier clock;
+    private long resolution;
+    private long allowedLatenessMillis;
+    private long closedBefore;
+    private long skipped;
+
+    @Value("${sensors.rollup.resolutions}")
+    private long[] RESOLUTIONS;
+    @Value("${sensors.window.allowed-lateness}")
+    private long ALLOWED_LATENESS;
+
+    public FaceRollupAggregator() {
+        this(System::currentTimeMillis);
+    }
+
+    FaceRollupAggregator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+
+    /**
+     * Reads the finest resolution and sets the initial watermark.
+     */
+    @PostConstruct
+    public void initializeBuckets() {
+        resolution = TimeUnit.SECONDS.toMillis(RESOLUTIONS[0]);
+        allowedLatenessMillis = TimeUnit.SECONDS.toMillis(ALLOWED_LATENESS);
+        closedBefore = bucketOf(clock.getAsLong() - allowedLatenessMillis);
+    }
+
+
+    /**
+     * Adds all readings held by the storage to the buckets of their face directions.
+     *
+     * @param columns the readings drained from the ingest buffer
+     */
+    public void add(SensorDataColumns columns) {
+        long currentBucket = bucketOf(clock.getAsLong());
+        lock.lock();
+        try {
+            long bucketStart = Long.MIN_VALUE;
+            RunningAggregate[] bucket = null;
+            for (int i = 0; i < columns.size(); i++) {
+                long timestamp = columns.timestamp(i);
+                long start = bucketOf(timestamp);
+                if (start < closedBefore || start > currentBucket) {
+                    skipped++;
+                    continue;
+                }
+                if (bucket == null || start != bucketStart) {
+                    bucketStart = start;
+                    bucket = buckets.computeIfAbsent(start, key -> new RunningAggregate[FACES.length]);
+                }
+                FaceDirection face = columns.face(i);
+                RunningAggregate aggregate = bucket[face.ordinal()];
+                if (aggregate == null) {
+                    aggregate = bucket[face.ordinal()] = new RunningAggregate();
+                }
+                aggregate.add(timestamp, face, columns.temperature(i));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Closes every bucket that ended before the watermark.
+     *
+     * @return the rollups of the closed buckets, one per face direction with readings
+     */
+    public List<SensorFaceRollup> closeBuckets() {
+        long watermark = bucketOf(clock.getAsLong() - allowedLatenessMillis);
+        lock.lock();
+        try {
+            List<SensorFaceRollup> rollups = new ArrayList<>();
+            Map<Long, RunningAggregate[]> closed = buckets.headMap(watermark);
+            closed.forEach((start, bucket) -> {
+                for (RunningAggregate aggregate : bucket) {
+                    if (aggregate != null) {
+                        rollups.add(new SensorFaceRollup(resolution, start, aggregate.getFace(), aggregate.getCount(),
+                                aggregate.getSum(), aggregate.getMin(), aggregate.getMax()));
+                    }
+                }
+            });
+            closed.clear();
+            closedBefore = Math.max(closedBefore, watermark);
+            return rollups;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Reopens buckets returned by {@link #closeBuckets()} that could not be stored, merging them with the readings
+     * added meanwhile. The watermark is moved back to the earliest reopened bucket.
+     *
+     * @param rollups the rollups of the buckets to reopen
+     */
+    public void reopenBuckets(List<SensorFaceRollup> rollups) {
+        lock.lock();
+        try {
+            for (SensorFaceRollup rollup : rollups) {
+                RunningAggregate[] bucket = buckets.computeIfAbsent(rollup.getTimestamp(),
+                        key -> new RunningAggregate[FACES.length]);
+                int face = rollup.getFace().ordinal();
+                if (bucket[face] == null) {
+                    bucket[face] = new RunningAggregate();
+                }
+                bucket[face].merge(rollup.getFace(), rollup.getReadings(), rollup.getTemperatureSum(),
+                        rollup.getMinTemperature(), rollup.getMaxTemperature());
+                closedBefore = Math.min(closedBefore, rollup.getTimestamp());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @return the end of the last closed bucket in milliseconds since epoch; all earlier buckets are final
+     */
+    public long getClosedBefore() {
+        lock.lock();
+        try {
+            return closedBefore;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @return the number of readings skipped because their bucket was closed or in the future
+     */
+    public long getSkipped() {
+        lock.lock();
+        try {
+            return skipped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    private long bucketOf(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, resolution);
+    }
+}
@@ -0,0 +1,34 @@
+package omc.sensormonitoring.aggregation;
+
+import omc.sensormonitoring.model.FaceDirection;
+import java.util.Map;
+
+/**
+ * The statistics collected by the {@link HourlySensorAggregator} for one hour.
+ *
+ * @param hour     the start of the hour in milliseconds since epoch
+ * @param sensors  the statistics of every sensor that reported within the hour
+ * @param faces    the statistics of all readings of every face direction within the hour
+ * @param sketches the quantile sketch of all readings of every face direction within the hour
+ */
+public record HourlyAggregate(long hour,
+                              SensorStatsTable sensors,
+                              Map<FaceDirection, RunningAggregate> faces,
+                              Map<FaceDirection, QuantileSketch> sketches) {
+
+    /**
+     * @param hour the start of the hour in milliseconds since epoch
+     * @return statistics of an hour without readings
+     */
+    public static HourlyAggregate empty(long hour) {
+        return new HourlyAggregate(hour, new SensorStatsTable(0), Map.of(), Map.of());
+    }
+
+
+    /**
+     * @return {@code true} if no reading was collected for the hour
+     */
+    public boolean isEmpty() {
+        return sensors.size() == 0;
+    }
+}
@@ -0,0 +1,319 @@
+package omc.sensormonitoring.aggregation;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.dto.WindowStatsDto;
+import omc.sensormonitoring.ingest.SensorDataColumns;
+import omc.sensormonitoring.model.FaceDirection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.*;
+
+/**
+ * Incremental hourly aggregation of sensor readings in event-time tumbling windows.
+ * <p>
+ * The flusher passes every batch of readings drained from the ingest buffer to {@link #add(SensorDataColumns)}.
+ * In the window of the hour given by the reading's own timestamp, it updates the statistics of the reading's
+ * sensor in a {@link SensorStatsTable}, and the {@link RunningAggregate} and the {@link QuantileSketch} of its face
+ * direction. The hourly job
+ * takes the finished windows with {@link #closeWindows()} instead of rescanning the raw sensor data, so its cost
+ * depends on the number of sensors rather than on the number of readings.
+ * </p>
+ * <p>
+ * Only the window of the current hour and the one of the previous hour are open; they are kept in two slots
+ * used alternately. A window closes once the watermark, the wall clock minus {@code sensors.window.allowed-lateness}
+ * seconds, passes its end. It is then emitted exactly once, and readings arriving for it or for any earlier hour
+ * are skipped and counted as late. Readings stamped with a future hour are skipped and counted as early.
+ * A reading with the same timestamp as the latest one of its sensor is skipped and counted as a duplicate
+ * (see {@link SensorStatsTable}).
+ * </p>
+ * <p>
+ * A closed window whose aggregates could not be stored is handed back with {@link #reopenWindows(List)} and
+ * emitted again by the next {@link #closeWindows()}, ahead of the windows closed since.
+ * </p>
+ * <p>
+ * The aggregates live in memory only: a window whose hour started before the application did is not fully
+ * covered (see {@link #covers(long)}), and the hourly job falls back to the raw sensor data for it when raw
+ * persistence is enabled.
+ * </p>
+ * <p>
+ * A single lock guards the windows. It is taken once per batch by the flusher thread and once per check
+ * by the hourly job, so it is not contended by the ingesting threads.
+ * </p>
+ */
+@Component
+@Slf4j
+public class HourlySensorAggregator {
+    private static final long HOUR_IN_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Window[] windows = new Window[2];
+    private final List<Window> evicted = new ArrayList<>();
+    private final List<HourlyAggregate> reopened = new ArrayList<>();
+    private final LongSupplier clock;
+    private final long startedAt;
+    private long allowedLatenessMillis;
+    private long firstHour;
+    private long closedBefore;
+    private int expectedSensors;
+    private long late;
+    private long early;
+    private long duplicates;
+
+    @Value("${sensors.window.allowed-lateness}")
+    private long ALLOWED_LATENESS;
+    @Value("${sensors.sketch.relative-accuracy}")
+    private double SKETCH_RELATIVE_ACCURACY;
+    @Value("${sensors.sketch.max-bins}")
+    private int SKETCH_MAX_BINS;
+
+    public HourlySensorAggregator() {
+        this(System::currentTimeMillis);
+    }
+
+    HourlySensorAggregator(LongSupplier clock) {
+        this.clock = clock;
+        this.startedAt = clock.getAsLong();
+    }
+
+
+    /**
+     * Validates the allowed lateness and the sketch parameters and sets the initial watermark.
+     *
+     * @throws IllegalStateException if the allowed lateness is negative or not shorter than an hour,
+     *                               or the sketch parameters are out of range
+     */
+    @PostConstruct
+    public void initializeWindows() {
+        allowedLatenessMillis = TimeUnit.SECONDS.toMillis(ALLOWED_LATENESS);
+        if (allowedLatenessMillis < 0 || allowedLatenessMillis >= HOUR_IN_MILLIS) {
+            throw new IllegalStateException("sensors.window.allowed-lateness must be between 0 and 3599 seconds");
+        }
+        if (!(SKETCH_RELATIVE_ACCURACY > 0 && SKETCH_RELATIVE_ACCURACY < 1) || SKETCH_MAX_BINS < 1) {
+            throw new IllegalStateException("sensors.sketch.relative-accuracy must be between 0 and 1 " +
+                    "and sensors.sketch.max-bins positive");
+        }
+        firstHour = hourOf(startedAt - allowedLatenessMillis);
+        closedBefore = firstHour;
+    }
+
+
+    /**
+     * Adds all readings held by the storage to the windows of their hours.
+     *
+     * @param columns the readings drained from the ingest buffer
+     */
+    public void add(SensorDataColumns columns) {
+        long currentHour = hourOf(clock.getAsLong());
+        lock.lock();
+        try {
+            Window window = null;
+            for (int i = 0; i < columns.size(); i++) {
+                long timestamp = columns.timestamp(i);
+                long hour = hourOf(timestamp);
+                if (window == null || window.hour != hour) {
+                    window = openWindow(hour, currentHour);
+                }
+                if (window != null && !window.add(columns.id(i), timestamp, columns.face(i), columns.temperature(i))) {
+                    duplicates++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Closes every window that ended before the watermark. Each hour is returned exactly once, in order,
+     * and hours without readings are returned as empty aggregates. Reopened windows are returned first.
+     *
+     * @return the aggregates of the closed windows
+     */
+    public List<HourlyAggregate> closeWindows() {
+        long watermark = clock.getAsLong() - allowedLatenessMillis;
+        lock.lock();
+        try {
+            List<HourlyAggregate> closed = new ArrayList<>(reopened);
+            reopened.clear();
+            Map<Long, Window> closing = new HashMap<>();
+            for (Window window : evicted) {
+                closing.put(window.hour, window);
+            }
+            evicted.clear();
+            for (; closedBefore + HOUR_IN_MILLIS <= watermark; closedBefore += HOUR_IN_MILLIS) {
+                int slot = slotOf(closedBefore);
+                Window window = windows[slot];
+                if (window != null && window.hour == closedBefore) {
+                    windows[slot] = null;
+                    closing.put(window.hour, window);
+                }
+                Window emitted = closing.remove(closedBefore);
+                if (emitted == null) {
+                    closed.add(HourlyAggregate.empty(closedBefore));
+                } else {
+                    expectedSensors = Math.max(expectedSensors, emitted.sensors.size());
+                    closed.add(emitted.toAggregate());
+                }
+            }
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Hands back windows returned by {@link #closeWindows()} whose aggregates were not stored, so that the next
+     * call returns them again. Readings arriving for their hours are still counted as late.
+     *
+     * @param windows the aggregates of the closed windows, in the order they were returned
+     */
+    public void reopenWindows(List<HourlyAggregate> windows) {
+        lock.lock();
+        try {
+            reopened.addAll(0, windows);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @param hour the start of the hour in milliseconds since epoch
+     * @return {@code true} if the aggregator was running for the whole hour
+     */
+    public boolean covers(long hour) {
+        return startedAt <= hour;
+    }
+
+
+    /**
+     * @return the start of the first hour emitted by {@link #closeWindows()}; earlier hours are never emitted
+     */
+    public long getFirstHour() {
+        return firstHour;
+    }
+
+
+    /**
+     * Returns the allowed lateness, the watermark and the number of skipped readings.
+     *
+     * @return the window statistics
+     */
+    public WindowStatsDto getStats() {
+        lock.lock();
+        try {
+            int open = (windows[0] == null ? 0 : 1) + (windows[1] == null ? 0 : 1);
+            return new WindowStatsDto(allowedLatenessMillis, closedBefore, open, late, early, duplicates);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Creates an empty quantile sketch with the configured relative accuracy and number of bins,
+     * compatible with the sketches of the windows.
+     *
+     * @return the sketch
+     */
+    public QuantileSketch newSketch() {
+        return new QuantileSketch(SKETCH_RELATIVE_ACCURACY, SKETCH_MAX_BINS);
+    }
+
+
+    /**
+     * Returns the open window of an hour, opening it if needed. A new window is sized for the largest number
+     * of sensors seen in a closed window, so that it does not resize in steady state. The window it replaces
+     * in the slot has ended before the previous hour and is kept until the next {@link #closeWindows()}.
+     *
+     * @return the window, or {@code null} if the reading is late or early
+     */
+    private Window openWindow(long hour, long currentHour) {
+        if (hour < closedBefore) {
+            late++;
+            return null;
+        }
+        if (hour > currentHour) {
+            early++;
+            return null;
+        }
+        int slot = slotOf(hour);
+        Window window = windows[slot];
+        if (window != null && window.hour == hour) {
+            return window;
+        }
+        if (window != null && window.hour > hour) {
+            late++;
+            return null;
+        }
+        if (window != null) {
+            evicted.add(window);
+        }
+        return windows[slot] = new Window(hour, expectedSensors, this::newSketch);
+    }
+
+
+    private static int slotOf(long hour) {
+        return (int) Math.floorMod(hour / HOUR_IN_MILLIS, 2);
+    }
+
+
+    private static long hourOf(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, HOUR_IN_MILLIS);
+    }
+
+
+    /**
+     * The aggregates of a single hour.
+     */
+    private static final class Window {
+        private final long hour;
+        private final SensorStatsTable sensors;
+        private final RunningAggregate[] faces = new RunningAggregate[FACES.length];
+        private final QuantileSketch[] sketches = new QuantileSketch[FACES.length];
+        private final Supplier<QuantileSketch> sketchFactory;
+
+        private Window(long hour, int expectedSensors, Supplier<QuantileSketch> sketchFactory) {
+            this.hour = hour;
+            this.sensors = new SensorStatsTable(expectedSensors);
+            this.sketchFactory = sketchFactory;
+        }
+
+
+        private boolean add(long id, long timestamp, FaceDirection face, double temperature) {
+            if (!sensors.add(id, timestamp, face, temperature)) {
+                return false;
+            }
+            RunningAggregate faceAggregate = faces[face.ordinal()];
+            if (faceAggregate == null) {
+                faceAggregate = faces[face.ordinal()] = new RunningAggregate();
+            }
+            faceAggregate.add(timestamp, face, temperature);
+            QuantileSketch sketch = sketches[face.ordinal()];
+            if (sketch == null) {
+                sketch = sketches[face.ordinal()] = sketchFactory.get();
+            }
+            sketch.add(temperature);
+            return true;
+        }
+
+
+        private HourlyAggregate toAggregate() {
+            Map<FaceDirection, RunningAggregate> faceAggregates = new EnumMap<>(FaceDirection.class);
+            Map<FaceDirection, QuantileSketch> faceSketches = new EnumMap<>(FaceDirection.class);
+            for (int i = 0; i < faces.length; i++) {
+                if (faces[i] != null) {
+                    faceAggregates.put(FACES[i], faces[i]);
+                    faceSketches.put(FACES[i], sketches[i]);
+                }
+            }
+            return new HourlyAggregate(hour, sensors, faceAggregates, faceSketches);
+        }
+    }
+}
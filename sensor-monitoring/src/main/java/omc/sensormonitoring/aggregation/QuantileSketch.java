@@ -0,0 +1,384 @@
+package omc.sensormonitoring.aggregation;
+
+import java.io.*;
+
+/**
+ * Mergeable quantile sketch of temperatures with a relative-error guarantee (DDSketch).
+ * <p>
+ * A value {@code x} is counted in the bin {@code ceil(log(|x|) / log(gamma))} with
+ * {@code gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy)}, in one store for positive and one for negative
+ * values; values closer to zero than {@value #MIN_INDEXABLE} are counted as zero. Every value of a bin is within
+ * {@code relativeAccuracy} of the bin's representative value, so a quantile is accurate to that relative error
+ * no matter how the values are distributed. Minimum and maximum are kept exactly.
+ * </p>
+ * <p>
+ * Each store holds at most {@code maxBins} consecutive bins; when a value would widen a store beyond that, the bins
+ * closest to zero are collapsed, so the memory used is constant. Merging two sketches adds their bin counts and gives
+ * the same result as sketching all values of both, which allows quantiles over any number of stored hours without
+ * the raw readings. The serialized form written by {@link #toBytes()} is a few hundred bytes for an hour of a face.
+ * </p>
+ * <p>
+ * This class is not thread-safe; access is guarded by its owner.
+ * </p>
+ */
+public final class QuantileSketch {
+    static final double MIN_INDEXABLE = 1e-9;
+    private static final byte VERSION = 1;
+
+    private final double relativeAccuracy;
+    private final int maxBins;
+    private final double gamma;
+    private final double logGamma;
+    private final Store positive;
+    private final Store negative;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param relativeAccuracy the relative error of the quantiles, greater than 0 and less than 1
+     * @param maxBins          the maximum number of bins of each of the positive and negative stores
+     * @throws IllegalArgumentException if the relative accuracy or the number of bins is out of range
+     */
+    public QuantileSketch(double relativeAccuracy, int maxBins) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1) || maxBins < 1) {
+            throw new IllegalArgumentException("The relative accuracy must be within (0, 1) and maxBins positive");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBins = maxBins;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.positive = new Store(maxBins);
+        this.negative = new Store(maxBins);
+    }
+
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value to add
+     */
+    public void add(double value) {
+        if (value >= MIN_INDEXABLE) {
+            positive.add(index(value), 1);
+        } else if (value <= -MIN_INDEXABLE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+
+    /**
+     * Adds all values of another sketch.
+     *
+     * @param other the sketch to merge into this one
+     * @throws IllegalArgumentException if the other sketch has a different relative accuracy
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of different relative accuracy");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        positive.addAll(other.positive);
+        negative.addAll(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+
+    /**
+     * Estimates a quantile of the added values.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the estimated value, or {@code NaN} if the sketch is empty
+     * @throws IllegalArgumentException if the quantile is not between 0 and 1
+     */
+    public double quantile(double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        if (rank == 0) {
+            return min;
+        }
+        if (rank == count - 1) {
+            return max;
+        }
+        long seen = 0;
+        if (negative.total > 0) {
+            for (int index = negative.maxIndex; index >= negative.minIndex; index--) {
+                seen += negative.count(index);
+                if (seen > rank) {
+                    return clamp(-value(index));
+                }
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int index = positive.minIndex; index < positive.maxIndex; index++) {
+            seen += positive.count(index);
+            if (seen > rank) {
+                return clamp(value(index));
+            }
+        }
+        return clamp(value(positive.maxIndex));
+    }
+
+
+    /**
+     * @return the relative error of the quantiles
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+
+    /**
+     * @return the number of added values
+     */
+    public long getCount() {
+        return count;
+    }
+
+
+    /**
+     * @return the smallest added value, or {@code NaN} if the sketch is empty
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+
+    /**
+     * @return the largest added value, or {@code NaN} if the sketch is empty
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+
+    /**
+     * Serializes the sketch. Bin indexes and counts are written as variable-length integers,
+     * so a bin costs one or two bytes.
+     *
+     * @return the serialized sketch
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + positive.span() + negative.span());
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(VERSION);
+            out.writeDouble(relativeAccuracy);
+            writeVarLong(out, maxBins);
+            out.writeDouble(min);
+            out.writeDouble(max);
+            writeVarLong(out, zeroCount);
+            positive.write(out);
+            negative.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+
+    /**
+     * Deserializes a sketch written by {@link #toBytes()}.
+     *
+     * @param bytes the serialized sketch
+     * @return the sketch
+     * @throws IllegalArgumentException if the bytes are not a serialized sketch
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unsupported quantile sketch version");
+            }
+            QuantileSketch sketch = new QuantileSketch(in.readDouble(), (int) readVarLong(in));
+            sketch.min = in.readDouble();
+            sketch.max = in.readDouble();
+            sketch.zeroCount = readVarLong(in);
+            sketch.positive.read(in);
+            sketch.negative.read(in);
+            sketch.count = sketch.zeroCount + sketch.positive.total + sketch.negative.total;
+            return sketch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed quantile sketch", e);
+        }
+    }
+
+
+    private int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+
+    /**
+     * @return the value of a bin, within the relative accuracy of every value counted in it
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Variable-length integer too long");
+    }
+
+
+    /**
+     * The counts of consecutive bins from {@code minIndex} to {@code maxIndex}, held in an array
+     * starting at bin {@code offset}.
+     */
+    private static final class Store {
+        private static final int INITIAL_LENGTH = 32;
+
+        private final int maxBins;
+        private long[] counts = new long[0];
+        private int offset;
+        private int minIndex;
+        private int maxIndex;
+        private long total;
+
+        private Store(int maxBins) {
+            this.maxBins = maxBins;
+        }
+
+
+        private long count(int index) {
+            return counts[index - offset];
+        }
+
+
+        private int span() {
+            return total == 0 ? 0 : maxIndex - minIndex + 1;
+        }
+
+
+        private void add(int index, long n) {
+            if (total == 0) {
+                int length = Math.min(maxBins, INITIAL_LENGTH);
+                counts = new long[length];
+                offset = index - length / 2;
+                minIndex = maxIndex = index;
+            } else if (index < minIndex || index > maxIndex) {
+                extend(index);
+            }
+            counts[Math.max(index, minIndex) - offset] += n;
+            total += n;
+        }
+
+
+        /**
+         * Widens the store to include a bin. If the store would exceed {@code maxBins} bins, the lowest bins are
+         * collapsed into the lowest remaining one, and a lower bin to include is mapped to that one as well.
+         */
+        private void extend(int index) {
+            int high = Math.max(maxIndex, index);
+            int low = Math.max(Math.min(minIndex, index), high - maxBins + 1);
+            long collapsed = 0;
+            for (int i = minIndex; i < low && i <= maxIndex; i++) {
+                collapsed += counts[i - offset];
+                counts[i - offset] = 0;
+            }
+            if (low < offset || high >= offset + counts.length) {
+                int length = Math.min(maxBins, Math.max(high - low + 1, counts.length * 2));
+                int resizedOffset = low - (length - (high - low + 1)) / 2;
+                long[] resized = new long[length];
+                for (int i = Math.max(minIndex, low); i <= maxIndex; i++) {
+                    resized[i - resizedOffset] = counts[i - offset];
+                }
+                counts = resized;
+                offset = resizedOffset;
+            }
+            minIndex = low;
+            maxIndex = high;
+            counts[low - offset] += collapsed;
+        }
+
+
+        private void addAll(Store other) {
+            if (other.total == 0) {
+                return;
+            }
+            for (int index = other.maxIndex; index >= other.minIndex; index--) {
+                long n = other.count(index);
+                if (n > 0) {
+                    add(index, n);
+                }
+            }
+        }
+
+
+        private void write(DataOutputStream out) throws IOException {
+            int span = span();
+            writeVarLong(out, span);
+            if (span == 0) {
+                return;
+            }
+            writeVarLong(out, (minIndex << 1) ^ (minIndex >> 31));
+            for (int index = minIndex; index <= maxIndex; index++) {
+                writeVarLong(out, count(index));
+            }
+        }
+
+
+        private void read(DataInputStream in) throws IOException {
+            int span = (int) readVarLong(in);
+            if (span == 0) {
+                return;
+            }
+            if (span < 0 || span > maxBins) {
+                throw new IOException("Invalid number of bins " + span);
+            }
+            int encodedIndex = (int) readVarLong(in);
+            minIndex = offset = (encodedIndex >>> 1) ^ -(encodedIndex & 1);
+            maxIndex = minIndex + span - 1;
+            counts = new long[span];
+            for (int i = 0; i < span; i++) {
+                counts[i] = readVarLong(in);
+                total += counts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package omc.sensormonitoring.aggregation;
+
+import lombok.Getter;
+import omc.sensormonitoring.model.FaceDirection;
+
+/**
+ * Running statistics of the temperatures of a sensor or of a face direction within an hour:
+ * sum, count, minimum, maximum and the latest reading.
+ * <p>
+ * Updating the statistics does not allocate. This class is not thread-safe;
+ * access is guarded by the {@link HourlySensorAggregator}.
+ * </p>
+ */
+@Getter
+public final class RunningAggregate {
+    private FaceDirection face;
+    private double sum;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+
+    /**
+     * Adds a reading. The face direction of the latest reading wins.
+     *
+     * @param timestamp   the timestamp of the reading (in milliseconds since epoch)
+     * @param face        the face direction of the sensor
+     * @param temperature the temperature recorded by the sensor
+     */
+    void add(long timestamp, FaceDirection face, double temperature) {
+        sum += temperature;
+        count++;
+        min = Math.min(min, temperature);
+        max = Math.max(max, temperature);
+        if (timestamp >= lastTimestamp) {
+            lastTimestamp = timestamp;
+            this.face = face;
+        }
+    }
+
+
+    /**
+     * Adds the statistics of readings aggregated elsewhere. The latest reading is not changed.
+     *
+     * @param face  the face direction of the readings
+     * @param count the number of readings
+     * @param sum   the sum of the temperatures
+     * @param min   the lowest temperature
+     * @param max   the highest temperature
+     */
+    void merge(FaceDirection face, long count, double sum, double min, double max) {
+        this.sum += sum;
+        this.count += count;
+        this.min = Math.min(this.min, min);
+        this.max = Math.max(this.max, max);
+        if (this.face == null) {
+            this.face = face;
+        }
+    }
+
+
+    /**
+     * @return the average temperature, or {@code NaN} if no reading was added
+     */
+    public double average() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+}
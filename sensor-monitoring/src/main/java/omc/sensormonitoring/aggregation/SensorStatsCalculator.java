@@ -0,0 +1,233 @@
+package omc.sensormonitoring.aggregation;
+
+import omc.sensormonitoring.model.FaceDirection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Arrays;
+import java.util.concurrent.*;
+
+/**
+ * Face average and deviation passes over the per-sensor statistics of an hour.
+ * <p>
+ * Each pass is a fork-join reduction over the slots of the {@link SensorStatsTable}: the slot range is split
+ * in halves until it is at most {@code sensors.aggregation.parallel-threshold} slots long, the chunks are
+ * processed on the common {@link ForkJoinPool}, and their partial results (per-face sums and counts, or the
+ * slots of deviated sensors) are merged on the way back. Tables not larger than the threshold are processed
+ * sequentially on the calling thread. The deviation pass needs the face averages, so the two passes run
+ * one after the other.
+ * </p>
+ */
+@Component
+public class SensorStatsCalculator {
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    @Value("${sensors.aggregation.parallel-threshold}")
+    private int PARALLEL_THRESHOLD;
+
+
+    /**
+     * Calculates the average temperature of each face direction as the average of the sensor averages.
+     *
+     * @param sensors the statistics by sensor
+     * @return the average temperatures rounded to two decimals and indexed by face direction ordinal,
+     * {@code NaN} for faces without sensors
+     */
+    public double[] faceAverages(SensorStatsTable sensors) {
+        double[] partial = invoke(new FaceSumTask(sensors, 0, sensors.capacity()));
+        double[] averages = new double[FACES.length];
+        for (int face = 0; face < FACES.length; face++) {
+            double count = partial[FACES.length + face];
+            averages[face] = count == 0 ? Double.NaN : round(partial[face] / count);
+        }
+        return averages;
+    }
+
+
+    /**
+     * Finds the sensors whose average temperature deviates from the average of their face direction
+     * by more than the given fraction of it.
+     *
+     * @param sensors      the statistics by sensor
+     * @param faceAverages the average temperatures indexed by face direction ordinal
+     * @param deviation    the acceptable deviation as a fraction of the face average
+     * @return the slots of the deviated sensors in ascending order
+     */
+    public int[] deviatedSlots(SensorStatsTable sensors, double[] faceAverages, double deviation) {
+        return invoke(new DeviationTask(sensors, faceAverages, deviation, 0, sensors.capacity()));
+    }
+
+
+    /**
+     * @param sensors the statistics by sensor
+     * @param slot    a used slot
+     * @return the average temperature of the sensor, rounded to two decimals
+     */
+    public static double averageTemperature(SensorStatsTable sensors, int slot) {
+        return round(sensors.average(slot));
+    }
+
+
+    /**
+     * @param sum   the sum of the temperatures of a sensor
+     * @param count the number of readings of the sensor
+     * @return the average temperature of the sensor, rounded to two decimals
+     */
+    public static double averageTemperature(double sum, int count) {
+        return round(sum / count);
+    }
+
+
+    /**
+     * @param average     the average temperature of a sensor
+     * @param faceAverage the average temperature of the face direction of the sensor
+     * @param deviation   the acceptable deviation as a fraction of the face average
+     * @return {@code true} if the sensor average deviates from the face average by more than the acceptable deviation
+     */
+    public static boolean isDeviated(double average, double faceAverage, double deviation) {
+        return Math.abs(average - faceAverage) > faceAverage * deviation;
+    }
+
+
+    private <T> T invoke(SlotRangeTask<T> task) {
+        return isSequential(task.to - task.from) ? task.computeDirectly() : ForkJoinPool.commonPool().invoke(task);
+    }
+
+
+    private boolean isSequential(int slots) {
+        return slots <= Math.max(1, PARALLEL_THRESHOLD);
+    }
+
+
+    private static double round(double temperature) {
+        return Math.round(temperature * 100.0) / 100.0;
+    }
+
+
+    /**
+     * A pass over a range of slots, split in halves while the range is longer than the threshold.
+     */
+    private abstract class SlotRangeTask<T> extends RecursiveTask<T> {
+        final SensorStatsTable sensors;
+        final int from;
+        final int to;
+
+        SlotRangeTask(SensorStatsTable sensors, int from, int to) {
+            this.sensors = sensors;
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected T compute() {
+            if (isSequential(to - from)) {
+                return computeDirectly();
+            }
+            int middle = (from + to) >>> 1;
+            SlotRangeTask<T> left = split(from, middle);
+            left.fork();
+            T right = split(middle, to).compute();
+            return merge(left.join(), right);
+        }
+
+
+        abstract T computeDirectly();
+
+        abstract SlotRangeTask<T> split(int from, int to);
+
+        abstract T merge(T left, T right);
+    }
+
+
+    /**
+     * Sums the sensor averages and counts the sensors of each face direction. The result holds
+     * the sums followed by the counts, both indexed by face direction ordinal.
+     */
+    private final class FaceSumTask extends SlotRangeTask<double[]> {
+
+        FaceSumTask(SensorStatsTable sensors, int from, int to) {
+            super(sensors, from, to);
+        }
+
+
+        @Override
+        double[] computeDirectly() {
+            double[] partial = new double[FACES.length * 2];
+            for (int slot = from; slot < to; slot++) {
+                if (sensors.isUsed(slot)) {
+                    int face = sensors.face(slot).ordinal();
+                    partial[face] += averageTemperature(sensors, slot);
+                    partial[FACES.length + face]++;
+                }
+            }
+            return partial;
+        }
+
+
+        @Override
+        SlotRangeTask<double[]> split(int from, int to) {
+            return new FaceSumTask(sensors, from, to);
+        }
+
+
+        @Override
+        double[] merge(double[] left, double[] right) {
+            for (int i = 0; i < left.length; i++) {
+                left[i] += right[i];
+            }
+            return left;
+        }
+    }
+
+
+    /**
+     * Collects the slots of the deviated sensors.
+     */
+    private final class DeviationTask extends SlotRangeTask<int[]> {
+        private final double[] faceAverages;
+        private final double deviation;
+
+        DeviationTask(SensorStatsTable sensors, double[] faceAverages, double deviation, int from, int to) {
+            super(sensors, from, to);
+            this.faceAverages = faceAverages;
+            this.deviation = deviation;
+        }
+
+
+        @Override
+        int[] computeDirectly() {
+            int[] slots = new int[8];
+            int size = 0;
+            for (int slot = from; slot < to; slot++) {
+                if (!sensors.isUsed(slot)) {
+                    continue;
+                }
+                double faceAverage = faceAverages[sensors.face(slot).ordinal()];
+                if (isDeviated(averageTemperature(sensors, slot), faceAverage, deviation)) {
+                    if (size == slots.length) {
+                        slots = Arrays.copyOf(slots, size * 2);
+                    }
+                    slots[size++] = slot;
+                }
+            }
+            return Arrays.copyOf(slots, size);
+        }
+
+
+        @Override
+        SlotRangeTask<int[]> split(int from, int to) {
+            return new DeviationTask(sensors, faceAverages, deviation, from, to);
+        }
+
+
+        @Override
+        int[] merge(int[] left, int[] right) {
+            if (right.length == 0) {
+                return left;
+            }
+            int[] merged = Arrays.copyOf(left, left.length + right.length);
+            System.arraycopy(right, 0, merged, left.length, right.length);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package omc.sensormonitoring.aggregation;
+
+import omc.sensormonitoring.model.FaceDirection;
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table of running temperature statistics keyed by the primitive sensor id and the face
+ * direction.
+ * <p>
+ * Keys and statistics are kept in parallel flat arrays (ids, sums, counts, minimums, maximums, latest
+ * timestamps and face ordinals) instead of a map of boxed keys and one object per sensor, so a sensor takes
+ * about 45 bytes per slot and adding a reading does not allocate. Collisions are resolved by linear probing;
+ * the arrays are doubled once three quarters of the slots are used. A face ordinal of {@code -1} marks an
+ * empty slot, so every {@code long} is a valid sensor id.
+ * </p>
+ * <p>
+ * The statistics match those computed from the raw sensor data: a sensor that changes its face direction within
+ * the hour has separate statistics for each face, like the {@code GROUP BY id, face} of the raw queries, and a
+ * reading with the same timestamp as the latest one of its sensor is a duplicate (e.g. a resent request) and is
+ * ignored, like the primary key on {@code (id, timestamp)} ignores it on insert. A duplicate of an older reading
+ * is not detected and is counted again.
+ * </p>
+ * <p>
+ * The statistics are read by slot: iterate {@code slot} from {@code 0} to {@link #capacity()} and skip slots
+ * for which {@link #isUsed(int)} is {@code false}.
+ * </p>
+ * <p>
+ * This class is not thread-safe; access is guarded by the {@link HourlySensorAggregator}.
+ * </p>
+ */
+public final class SensorStatsTable {
+    private static final FaceDirection[] FACES = FaceDirection.values();
+    private static final byte EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] ids;
+    private double[] sums;
+    private int[] counts;
+    private double[] mins;
+    private double[] maxs;
+    private long[] lastTimestamps;
+    private byte[] faces;
+    private int size;
+    private int resizeThreshold;
+
+    /**
+     * Constructs a new table preallocated for the given number of sensors.
+     *
+     * @param expectedSensors the number of sensors the table holds without resizing
+     */
+    public SensorStatsTable(int expectedSensors) {
+        allocate(capacityFor(expectedSensors));
+    }
+
+
+    /**
+     * Adds a reading to the statistics of its sensor and face direction.
+     *
+     * @param id          the unique identifier of the sensor
+     * @param timestamp   the timestamp of the reading (in milliseconds since epoch)
+     * @param face        the face direction of the sensor
+     * @param temperature the temperature recorded by the sensor
+     * @return {@code true} if the reading was added, {@code false} if it duplicates the latest reading
+     */
+    public boolean add(long id, long timestamp, FaceDirection face, double temperature) {
+        byte ordinal = (byte) face.ordinal();
+        int slot = findSlot(id, ordinal);
+        if (faces[slot] == EMPTY) {
+            if (size >= resizeThreshold) {
+                resize();
+                slot = findSlot(id, ordinal);
+            }
+            ids[slot] = id;
+            mins[slot] = Double.POSITIVE_INFINITY;
+            maxs[slot] = Double.NEGATIVE_INFINITY;
+            lastTimestamps[slot] = Long.MIN_VALUE;
+            faces[slot] = ordinal;
+            size++;
+        } else if (timestamp == lastTimestamps[slot]) {
+            return false;
+        }
+        sums[slot] += temperature;
+        counts[slot]++;
+        mins[slot] = Math.min(mins[slot], temperature);
+        maxs[slot] = Math.max(maxs[slot], temperature);
+        lastTimestamps[slot] = Math.max(lastTimestamps[slot], timestamp);
+        return true;
+    }
+
+
+    /**
+     * @param id   the unique identifier of the sensor
+     * @param face the face direction of the sensor
+     * @return the slot holding the sensor with the face direction, or {@code -1} if it has no statistics
+     */
+    public int indexOf(long id, FaceDirection face) {
+        int slot = findSlot(id, (byte) face.ordinal());
+        return faces[slot] == EMPTY ? -1 : slot;
+    }
+
+
+    /**
+     * @return the number of sensors and face directions held
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * @return the number of slots
+     */
+    public int capacity() {
+        return ids.length;
+    }
+
+
+    /**
+     * @param slot the slot
+     * @return {@code true} if the slot holds the statistics of a sensor
+     */
+    public boolean isUsed(int slot) {
+        return faces[slot] != EMPTY;
+    }
+
+
+    /**
+     * @param slot a used slot
+     * @return the unique identifier of the sensor
+     */
+    public long id(int slot) {
+        return ids[slot];
+    }
+
+
+    /**
+     * @param slot a used slot
+     * @return the number of readings
+     */
+    public int count(int slot) {
+        return counts[slot];
+    }
+
+
+    /**
+     * @param slot a used slot
+     * @return the sum of the temperatures
+     */
+    public double sum(int slot) {
+        return sums[slot];
+    }
+
+
+    /**
+     * @param slot a used slot
+     * @return the average temperature
+     */
+    public double average(int slot) {
+        return sums[slot] / counts[slot];
+    }
+
+
+    /**
+     * @param slot a used slot
+     * @return the lowest temperature
+     */
+    public double min(int slot) {
+        return mins[slot];
+    }
+
+
+    /**
+     * @param slot a used slot
+     * @return the highest temperature
+     */
+    public double max(int slot) {
+        return maxs[slot];
+    }
+
+
+    /**
+     * @param slot a used slot
+     * @return the timestamp of the latest reading (in milliseconds since epoch)
+     */
+    public long lastTimestamp(int slot) {
+        return lastTimestamps[slot];
+    }
+
+
+    /**
+     * @param slot a used slot
+     * @return the face direction of the sensor
+     */
+    public FaceDirection face(int slot) {
+        return FACES[faces[slot]];
+    }
+
+
+    /**
+     * Checks whether a slot holds the face direction of the latest reading of its sensor, among the face directions
+     * the sensor reported within the hour. Of face directions with the same latest timestamp, the one with the
+     * lowest ordinal is the latest.
+     *
+     * @param slot a used slot
+     * @return {@code true} if no other face direction of the sensor has a later reading
+     */
+    public boolean isLatestFace(int slot) {
+        for (byte face = 0; face < FACES.length; face++) {
+            if (face == faces[slot]) {
+                continue;
+            }
+            int other = findSlot(ids[slot], face);
+            if (faces[other] != EMPTY && (lastTimestamps[other] > lastTimestamps[slot] ||
+                    lastTimestamps[other] == lastTimestamps[slot] && face < faces[slot])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Finds the slot holding the sensor with the face direction, or the empty slot ending its probe sequence.
+     */
+    private int findSlot(long id, byte face) {
+        int mask = ids.length - 1;
+        int slot = (hash(id) + face) & mask;
+        while (faces[slot] != EMPTY && (ids[slot] != id || faces[slot] != face)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+
+    private void resize() {
+        long[] oldIds = ids;
+        double[] oldSums = sums;
+        int[] oldCounts = counts;
+        double[] oldMins = mins;
+        double[] oldMaxs = maxs;
+        long[] oldLastTimestamps = lastTimestamps;
+        byte[] oldFaces = faces;
+        allocate(oldIds.length * 2);
+        for (int oldSlot = 0; oldSlot < oldIds.length; oldSlot++) {
+            if (oldFaces[oldSlot] == EMPTY) {
+                continue;
+            }
+            int slot = findSlot(oldIds[oldSlot], oldFaces[oldSlot]);
+            ids[slot] = oldIds[oldSlot];
+            sums[slot] = oldSums[oldSlot];
+            counts[slot] = oldCounts[oldSlot];
+            mins[slot] = oldMins[oldSlot];
+            maxs[slot] = oldMaxs[oldSlot];
+            lastTimestamps[slot] = oldLastTimestamps[oldSlot];
+            faces[slot] = oldFaces[oldSlot];
+        }
+    }
+
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        sums = new double[capacity];
+        counts = new int[capacity];
+        mins = new double[capacity];
+        maxs = new double[capacity];
+        lastTimestamps = new long[capacity];
+        faces = new byte[capacity];
+        Arrays.fill(faces, EMPTY);
+        resizeThreshold = capacity / 4 * 3;
+    }
+
+
+    /**
+     * @return the smallest power of two keeping the given number of sensors below the resize threshold
+     */
+    private static int capacityFor(int expectedSensors) {
+        long needed = Math.max(MIN_CAPACITY, (long) expectedSensors * 4 / 3 + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(needed - 1) << 1);
+    }
+
+
+    /**
+     * Spreads the bits of the id (the finalizer of MurmurHash3), so that sequential ids
+     * do not form long probe sequences.
+     *
+     * @param id the unique identifier of the sensor
+     * @return the hash of the id
+     */
+    public static int hash(long id) {
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        id *= 0xc4ceb9fe1a85ec53L;
+        id ^= id >>> 33;
+        return (int) id;
+    }
+}
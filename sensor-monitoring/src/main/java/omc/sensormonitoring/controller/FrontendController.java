@@ -1,40 +1,60 @@
 package omc.sensormonitoring.controller;
 
 import lombok.RequiredArgsConstructor;
-import omc.sensormonitoring.model.*;
-import omc.sensormonitoring.service.SensorService;
+import omc.sensormonitoring.dto.DashboardDto;
+import omc.sensormonitoring.service.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * REST controller for handling frontend-related operations related to sensor data.
  * <p>
  * This controller provides endpoints to retrieve and display sensor data,
- * specifically average temperatures and malfunctioning sensors, to the frontend.
+ * specifically average temperatures and malfunctioning sensors, to the frontend,
+ * and the live feed the rendered page patches its tables from.
  * </p>
  */
 @Controller
 @RequiredArgsConstructor
 public class FrontendController {
-    private final long WEEK_IN_MILLIS = 60 * 60 * 1000 * 24 * 7;
-    private final SensorService sensorService;
+    private final DashboardService dashboardService;
+    private final DashboardFeed dashboardFeed;
+
+    @Value("${sensors.path.feed}")
+    private String FEED_PATH;
+    @Value("${sensors.deviated.page-size}")
+    private int DEVIATED_PAGE_SIZE;
 
     /**
-     * Retrieves average face temperatures and malfunctioning sensors,
-     * adds them to the model, and returns the name of the view to render.
+     * Retrieves the face temperature rollups of the last week and malfunctioning sensors from the dashboard
+     * cache, adds them to the model, and returns the name of the view to render.
      *
      * @param model the model to which attributes are added for rendering the view
      * @return the name of the view to be rendered (in this case, "sensorData")
      */
     @GetMapping("${sensors.path.output}")
     public String getSensorData(Model model) {
-        long timestampBeforeWeek = System.currentTimeMillis() - WEEK_IN_MILLIS;
-        List<SensorFaceData> avgFaceTemperatures = sensorService.getAvgFaceDirectionTemperatures(timestampBeforeWeek);
-        List<SensorDeviatedData> deviatedSensors = sensorService.getMalfunctioningSensors();
-        model.addAttribute("avgFaceTemperatures", avgFaceTemperatures);
-        model.addAttribute("deviatedSensors", deviatedSensors);
+        DashboardDto dashboard = dashboardService.getDashboard();
+        model.addAttribute("faceRollups", dashboard.faceRollups());
+        model.addAttribute("deviatedSensors", dashboard.deviatedSensors());
+        model.addAttribute("deviatedPageSize", DEVIATED_PAGE_SIZE);
+        model.addAttribute("feedPath", FEED_PATH);
         return "sensorData";
     }
+
+
+    /**
+     * Subscribes the dashboard to the live feed of new face rollups and deviated sensors.
+     *
+     * @return the Server-Sent Events stream of the subscription
+     */
+    @GetMapping(path = "${sensors.path.feed}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter subscribeFeed() {
+        return dashboardFeed.subscribe();
+    }
 }
@@ -1,12 +1,25 @@
 package omc.sensormonitoring.controller;
 
-import jakarta.validation.Valid;
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import omc.sensormonitoring.dto.SensorDataDto;
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.ingest.*;
+import omc.sensormonitoring.model.*;
 import omc.sensormonitoring.service.SensorService;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import static omc.sensormonitoring.controller.handler.ErrorMessages.*;
 
 /**
  * REST controller for handling sensor-related operations.
@@ -21,6 +34,22 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class SensorController {
     private final SensorService sensorService;
+    private final Validator validator;
+    private final NdjsonSensorDataParser ndjsonParser;
+    private final ObjectMapper objectMapper;
+
+    @Value("${sensors.batch.max-size}")
+    private int MAX_BATCH_SIZE;
+    @Value("${sensors.buffer.reject-status}")
+    private int BUFFER_REJECT_STATUS;
+    @Value("${sensors.buffer.retry-after}")
+    private int BUFFER_RETRY_AFTER_SECONDS;
+    @Value("${sensors.deviated.default-window}")
+    private long DEVIATED_WINDOW;
+    @Value("${sensors.deviated.max-page-size}")
+    private int DEVIATED_MAX_PAGE_SIZE;
+    @Value("${sensors.history.default-window}")
+    private long HISTORY_WINDOW;
 
     /**
      * Receives sensor data from the client and saves it using the SensorService.
@@ -33,4 +62,316 @@ public class SensorController {
         sensorService.saveSensorData(sensorData);
         return ResponseEntity.ok("Sensor data received.");
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Receives a batch of sensor data from the client, validates every reading in a single pass
+     * and saves the valid ones using the SensorService in a single call.
+     * <p>
+     * The JSON array is read element by element and reading stops at the first element beyond the maximum batch
+     * size, so an oversized batch is rejected without decoding the rest of it.
+     * Invalid readings do not fail the whole batch: they are skipped and reported
+     * in the response together with their position in the batch.
+     * </p>
+     *
+     * @param body the sensor data to be saved, provided as a JSON array in the request body
+     * @return a response entity with the number of accepted readings and the details of rejected ones
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(path = "${sensors.path.batch}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchResultDto> receiveSensorDataBatch(InputStream body) throws IOException {
+        List<SensorDataDto> sensorDataList = readBatch(body);
+        List<SensorDataDto> accepted = new ArrayList<>(sensorDataList.size());
+        List<RejectedSensorDataDto> rejects = new ArrayList<>();
+        for (int i = 0; i < sensorDataList.size(); i++) {
+            SensorDataDto sensorData = sensorDataList.get(i);
+            String violations = validate(sensorData);
+            if (violations == null) {
+                accepted.add(sensorData);
+            } else {
+                rejects.add(new RejectedSensorDataDto(i, violations));
+            }
+        }
+        if (!accepted.isEmpty()) {
+            sensorService.saveSensorDataBatch(accepted);
+        }
+        if (!rejects.isEmpty()) {
+            log.debug("Rejected {} of {} readings in batch", rejects.size(), sensorDataList.size());
+        }
+        return ResponseEntity.ok(new BatchResultDto(accepted.size(), rejects.size(), rejects));
+    }
+
+
+    /**
+     * Reads a JSON array of sensor data, failing as soon as it holds more than the maximum batch size.
+     *
+     * @param body the JSON request body
+     * @return the decoded sensor data
+     * @throws IllegalArgumentException if the body is not a JSON array of sensor data or the batch is too large
+     * @throws IOException              if the request body cannot be read
+     */
+    private List<SensorDataDto> readBatch(InputStream body) throws IOException {
+        List<SensorDataDto> sensorDataList = new ArrayList<>();
+        try (JsonParser json = objectMapper.getFactory().createParser(body)) {
+            if (json.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException(JSON_TYPE_MISMATCH_MESSAGE);
+            }
+            JsonToken token;
+            while ((token = json.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException(JSON_TYPE_MISMATCH_MESSAGE);
+                }
+                if (sensorDataList.size() == MAX_BATCH_SIZE) {
+                    throw new IllegalArgumentException(String.format(BATCH_SIZE_EXCEEDED_MESSAGE, MAX_BATCH_SIZE));
+                }
+                sensorDataList.add(objectMapper.readValue(json, SensorDataDto.class));
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(JSON_TYPE_MISMATCH_MESSAGE, e);
+        }
+        return sensorDataList;
+    }
+
+
+    /**
+     * Receives a newline-delimited JSON (NDJSON) stream of sensor data from the client.
+     * <p>
+     * The body is parsed incrementally and every record is saved using the SensorService
+     * as soon as it is decoded, so the size of the upload is not limited by the heap.
+     * Malformed lines are counted and skipped.
+     * </p>
+     * <p>
+     * If the buffer fills up, reading stops and the counters are returned with the configured reject status,
+     * a Retry-After header and the {@code resumeLine} the client has to resend from; the lines before it were
+     * handled and must not be sent again.
+     * </p>
+     *
+     * @param body the NDJSON request body
+     * @return a response entity with the number of accepted and rejected records
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(path = "${sensors.path.stream}", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamResultDto> receiveSensorDataStream(InputStream body) throws IOException {
+        StreamResultDto result = ndjsonParser.parse(body, sensorService::saveSensorData);
+        if (result.resumeLine() != null) {
+            return ResponseEntity.status(BUFFER_REJECT_STATUS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(BUFFER_RETRY_AFTER_SECONDS))
+                    .body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+
+    /**
+     * Receives sensor data encoded in the compact binary wire format described by
+     * {@link SensorDataBinaryCodec} and saves every reading using the SensorService.
+     * <p>
+     * Readings are decoded straight from the request body into primitive columns, without an object per reading.
+     * Records with an unknown face direction are skipped and reported in the response.
+     * </p>
+     * <p>
+     * The body is bounded by the maximum batch size, so the decoded readings are saved as a single batch:
+     * if the buffer is full, none of them is accepted and the whole body can be resent.
+     * </p>
+     *
+     * @param body the binary request body holding one or more fixed-width records
+     * @return a response entity with the number of accepted readings and the details of rejected ones
+     */
+    @PostMapping(path = "${sensors.path.input}", consumes = SensorDataBinaryCodec.MEDIA_TYPE_VALUE)
+    public ResponseEntity<BatchResultDto> receiveSensorDataBinary(@RequestBody byte[] body) {
+        int count = SensorDataBinaryCodec.recordCount(body.length);
+        if (count > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(String.format(BATCH_SIZE_EXCEEDED_MESSAGE, MAX_BATCH_SIZE));
+        }
+        SensorDataColumns readings = new SensorDataColumns(count);
+        BatchResultDto result = SensorDataBinaryCodec.decode(ByteBuffer.wrap(body), readings::add);
+        if (readings.size() > 0) {
+            sensorService.saveSensorDataBatch(readings);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+
+    /**
+     * Retrieves the current state of the ingestion pipeline, such as the fill level
+     * and drop counters of the ingest buffer, for monitoring and alerting.
+     *
+     * @return the ingestion statistics
+     */
+    @GetMapping("${sensors.path.stats}")
+    public IngestStatsDto getIngestStats() {
+        return sensorService.getIngestStats();
+    }
+
+
+    /**
+     * Retrieves the face temperature rollups within a time range. The rollup tier is selected
+     * from the length of the range, so that long ranges read few coarse buckets.
+     *
+     * @param from the start of the range (in milliseconds since epoch)
+     * @param to   the end of the range (in milliseconds since epoch), the current time by default
+     * @return the resolution of the selected tier and its rollups within the range
+     */
+    @GetMapping("${sensors.path.rollup}")
+    public FaceRollupResultDto getFaceRollups(@RequestParam long from, @RequestParam(required = false) Long to) {
+        return sensorService.getFaceRollups(from, to != null ? to : System.currentTimeMillis());
+    }
+
+
+    /**
+     * Aggregates the hourly face averages within a time range into buckets of an hour, a day or a week.
+     * The aggregation runs in the database and the buckets are written to the response page by page as they
+     * are read, so a range of months is neither loaded into memory nor rendered as a whole. The response status
+     * is sent with the first page, so a read failing later ends the response with an {@code error} field instead
+     * of a truncated bucket list; any other failure leaves the JSON unterminated rather than closing it.
+     *
+     * @param from        the start of the range, exclusive (in milliseconds since epoch)
+     * @param to          the end of the range, inclusive (in milliseconds since epoch), the current time by default
+     * @param granularity the length of the buckets, an hour by default
+     * @param face        the face direction to filter by, all face directions by default
+     * @return the average, minimum and maximum temperature and the number of hours of every bucket and face direction
+     */
+    @GetMapping(path = "${sensors.path.aggregates}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getFaceAggregates(@RequestParam long from,
+                                                                   @RequestParam(required = false) Long to,
+                                                                   @RequestParam(defaultValue = "HOUR")
+                                                                   Granularity granularity,
+                                                                   @RequestParam(required = false) FaceDirection face) {
+        long endOfPeriod = to != null ? to : System.currentTimeMillis();
+        if (from >= endOfPeriod) {
+            throw new IllegalArgumentException(INVALID_RANGE_MESSAGE);
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+                json.writeStartObject();
+                json.writeStringField("granularity", granularity.name());
+                json.writeArrayFieldStart("aggregates");
+                try {
+                    sensorService.streamFaceAggregates(from, endOfPeriod, granularity, face,
+                            (timestamp, aggregateFace, average, min, max, hours) -> {
+                                try {
+                                    json.writeStartObject();
+                                    json.writeNumberField("timestamp", timestamp);
+                                    json.writeStringField("face", aggregateFace.name());
+                                    json.writeNumberField("averageTemperature", average);
+                                    json.writeNumberField("minTemperature", min);
+                                    json.writeNumberField("maxTemperature", max);
+                                    json.writeNumberField("hours", hours);
+                                    json.writeEndObject();
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            });
+                } catch (DataAccessException e) {
+                    log.warn("Face aggregates failed after the response started", e);
+                    json.writeEndArray();
+                    json.writeStringField("error", AGGREGATES_INCOMPLETE_MESSAGE);
+                    json.writeEndObject();
+                    return;
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+
+    /**
+     * Estimates percentiles of the temperatures of every face direction within a time range from the hourly
+     * quantile sketches, without reading raw sensor data.
+     *
+     * @param from      the start of the range (in milliseconds since epoch)
+     * @param to        the end of the range (in milliseconds since epoch), the current time by default
+     * @param quantiles the quantiles to estimate, between 0 and 1, the median, p95 and p99 by default
+     * @return the estimated temperatures of every face direction with readings within the range
+     */
+    @GetMapping("${sensors.path.quantiles}")
+    public FaceQuantileResultDto getFaceQuantiles(@RequestParam long from, @RequestParam(required = false) Long to,
+                                                  @RequestParam(name = "q", defaultValue = "0.5,0.95,0.99")
+                                                  double[] quantiles) {
+        for (double quantile : quantiles) {
+            if (!(quantile >= 0 && quantile <= 1)) {
+                throw new IllegalArgumentException(INVALID_QUANTILE_MESSAGE);
+            }
+        }
+        return sensorService.getFaceQuantiles(from, to != null ? to : System.currentTimeMillis(), quantiles);
+    }
+
+
+    /**
+     * Retrieves a page of the malfunctioning sensors within a time range, newest first. The next page is requested
+     * with the {@code nextTimestamp} and {@code nextId} of the response as {@code beforeTimestamp} and
+     * {@code beforeId}, so every page is read by an index seek regardless of its depth.
+     *
+     * @param from            the start of the range (in milliseconds since epoch), the last
+     *                        {@code sensors.deviated.default-window} seconds by default
+     * @param to              the end of the range, exclusive (in milliseconds since epoch), the current time by default
+     * @param face            the face direction to filter by, all face directions by default
+     * @param id              the sensor id to filter by, all sensors by default
+     * @param beforeTimestamp the {@code nextTimestamp} of the previous page
+     * @param beforeId        the {@code nextId} of the previous page
+     * @param limit           the maximum number of sensors of the page
+     * @return the page of malfunctioning sensors and the keyset of the next page
+     */
+    @GetMapping("${sensors.path.deviated}")
+    public DeviatedSensorPageDto getMalfunctioningSensors(@RequestParam(required = false) Long from,
+                                                          @RequestParam(required = false) Long to,
+                                                          @RequestParam(required = false) FaceDirection face,
+                                                          @RequestParam(required = false) Long id,
+                                                          @RequestParam(required = false) Long beforeTimestamp,
+                                                          @RequestParam(required = false) Long beforeId,
+                                                          @RequestParam(defaultValue = "${sensors.deviated.page-size}")
+                                                          int limit) {
+        if (limit < 1 || limit > DEVIATED_MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(String.format(INVALID_PAGE_SIZE_MESSAGE, DEVIATED_MAX_PAGE_SIZE));
+        }
+        long endOfPeriod = to != null ? to : System.currentTimeMillis();
+        long startOfPeriod = from != null ? from : endOfPeriod - TimeUnit.SECONDS.toMillis(DEVIATED_WINDOW);
+        return sensorService.getMalfunctioningSensors(startOfPeriod, endOfPeriod, face, id, beforeTimestamp,
+                beforeId, limit);
+    }
+
+
+    /**
+     * Retrieves the hourly history of a single sensor: the average, minimum and maximum temperature and the
+     * number of readings of every hour ending within a time range, oldest first.
+     *
+     * @param id   the unique identifier of the sensor
+     * @param from the start of the range, exclusive (in milliseconds since epoch), the last
+     *             {@code sensors.history.default-window} seconds by default
+     * @param to   the end of the range, inclusive (in milliseconds since epoch), the current time by default
+     * @return the hourly statistics of the sensor
+     */
+    @GetMapping("${sensors.path.history}")
+    public List<SensorAvgData> getSensorHistory(@PathVariable long id, @RequestParam(required = false) Long from,
+                                                @RequestParam(required = false) Long to) {
+        long endOfPeriod = to != null ? to : System.currentTimeMillis();
+        long startOfPeriod = from != null ? from : endOfPeriod - TimeUnit.SECONDS.toMillis(HISTORY_WINDOW);
+        if (startOfPeriod >= endOfPeriod) {
+            throw new IllegalArgumentException(INVALID_RANGE_MESSAGE);
+        }
+        return sensorService.getSensorHistory(id, startOfPeriod, endOfPeriod);
+    }
+
+
+    /**
+     * Validates a single reading of a batch.
+     *
+     * @param sensorData the reading to validate
+     * @return the validation messages separated by semicolons, or {@code null} if the reading is valid
+     */
+    private String validate(SensorDataDto sensorData) {
+        if (sensorData == null) {
+            return MISSING_SENSOR_DATA_MESSAGE;
+        }
+        Set<ConstraintViolation<SensorDataDto>> violations = validator.validate(sensorData);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted()
+                .collect(Collectors.joining(";"));
+    }
+}
@@ -27,4 +27,34 @@ public interface ErrorMessages {
 
     /** Error message indicating that the timestamp for the sensor data is missing. */
     String MISSING_SENSOR_TIMESTAMP_MESSAGE = "Timestamp is missing";
+
+    /** Error message indicating that a batch contains an empty (null) reading. */
+    String MISSING_SENSOR_DATA_MESSAGE = "Sensor data is missing";
+
+    /** Error message indicating that a batch exceeds the configured maximum size. */
+    String BATCH_SIZE_EXCEEDED_MESSAGE = "Batch contains more than %d readings";
+
+    /** Error message indicating that the face direction ordinal of a binary record is unknown. */
+    String INVALID_SENSOR_FACE_DIRECTION_MESSAGE = "Face direction is invalid";
+
+    /** Error message indicating that a binary payload is not made of whole records. */
+    String INVALID_BINARY_LENGTH_MESSAGE = "Binary payload length is not a multiple of %d bytes";
+
+    /** Error message indicating that a requested quantile is out of range. */
+    String INVALID_QUANTILE_MESSAGE = "Quantiles must be between 0 and 1";
+
+    /** Error message indicating that a requested page size is out of range. */
+    String INVALID_PAGE_SIZE_MESSAGE = "Page size must be between 1 and %d";
+
+    /** Error message indicating that the start of a requested range is not before its end. */
+    String INVALID_RANGE_MESSAGE = "Range start must be before its end";
+
+    /** Error message indicating that sensor data was rejected because the ingest buffer is full. */
+    String BUFFER_FULL_MESSAGE = "Sensor data buffer is full, retry later";
+
+    /** Error message indicating that streaming face aggregates failed after the response had started. */
+    String AGGREGATES_INCOMPLETE_MESSAGE = "Reading aggregates failed, the bucket list is incomplete";
+
+    /** Error message indicating that the dashboard live feed has reached its subscriber limit. */
+    String FEED_FULL_MESSAGE = "Dashboard live feed is full, retry later";
 }
@@ -1,6 +1,9 @@
 package omc.sensormonitoring.controller.handler;
 
 import java.util.stream.Collectors;
+import omc.sensormonitoring.ingest.SensorBufferFullException;
+import omc.sensormonitoring.service.DashboardFeedFullException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSourceResolvable;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.*;
@@ -22,6 +25,13 @@ import static omc.sensormonitoring.controller.handler.ErrorMessages.*;
 @Slf4j
 public class SensorsExceptionsController {
 
+    @Value("${sensors.buffer.reject-status}")
+    private int BUFFER_REJECT_STATUS;
+    @Value("${sensors.buffer.retry-after}")
+    private int BUFFER_RETRY_AFTER_SECONDS;
+    @Value("${sensors.feed.heartbeat}")
+    private int FEED_RETRY_AFTER_SECONDS;
+
     /**
      * Constructs a standardized response entity with a given message.
      *
@@ -121,4 +131,40 @@ public class SensorsExceptionsController {
 
         return returnResponse(JSON_TYPE_MISMATCH_MESSAGE);
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Handles SensorBufferFullException thrown when the ingest buffer cannot accept more data.
+     * Returns a response entity with the configured status (429 or 503) and a Retry-After header,
+     * so that clients back off instead of retrying immediately.
+     *
+     * @param e The exception that was thrown.
+     * @return A ResponseEntity with the buffer full message, the configured status and a Retry-After header.
+     */
+    @ExceptionHandler(SensorBufferFullException.class)
+    ResponseEntity<String> bufferFullHandler(SensorBufferFullException e) {
+        log.warn(e.getMessage());
+
+        return ResponseEntity.status(BUFFER_REJECT_STATUS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(BUFFER_RETRY_AFTER_SECONDS))
+                .body(e.getMessage());
+    }
+
+
+    /**
+     * Handles DashboardFeedFullException thrown when the live feed has reached its subscriber limit.
+     * Returns a response entity with status 503 and a Retry-After header of one heartbeat interval.
+     *
+     * @param e The exception that was thrown.
+     * @return A ResponseEntity with the feed full message, status 503 and a Retry-After header.
+     */
+    @ExceptionHandler(DashboardFeedFullException.class)
+    ResponseEntity<String> feedFullHandler(DashboardFeedFullException e) {
+        log.warn(e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(FEED_RETRY_AFTER_SECONDS))
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(e.getMessage());
+    }
+}
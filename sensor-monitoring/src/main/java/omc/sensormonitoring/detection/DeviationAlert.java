@@ -0,0 +1,18 @@
+package omc.sensormonitoring.detection;
+
+import omc.sensormonitoring.model.FaceDirection;
+
+/**
+ * Alert raised by the {@link OnlineDeviationDetector} when the recent readings of a sensor start to deviate
+ * from the other sensors of its face direction.
+ *
+ * @param id            the unique identifier of the sensor
+ * @param timestamp     the timestamp of the reading that raised the alert (in milliseconds since epoch)
+ * @param face          the face direction of the sensor
+ * @param temperature   the temperature of the reading that raised the alert
+ * @param sensorAverage the moving average of the recent readings of the sensor
+ * @param faceAverage   the average of the moving averages of all sensors of the face direction
+ */
+public record DeviationAlert(long id, long timestamp, FaceDirection face, double temperature,
+                             double sensorAverage, double faceAverage) {
+}
@@ -0,0 +1,20 @@
+package omc.sensormonitoring.detection;
+
+/**
+ * Destination of the alerts raised by the {@link OnlineDeviationDetector}.
+ * <p>
+ * Every bean implementing this interface receives every alert. Sinks are called on the ingesting thread
+ * right after the reading was accepted, so they must not block; a sink forwarding alerts to a remote system
+ * should hand them over to its own thread.
+ * </p>
+ */
+@FunctionalInterface
+public interface DeviationAlertSink {
+
+    /**
+     * Receives an alert.
+     *
+     * @param alert the alert
+     */
+    void accept(DeviationAlert alert);
+}
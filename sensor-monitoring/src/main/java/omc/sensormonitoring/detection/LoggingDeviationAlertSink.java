@@ -0,0 +1,18 @@
+package omc.sensormonitoring.detection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default {@link DeviationAlertSink} writing every alert to the log.
+ */
+@Component
+@Slf4j
+public class LoggingDeviationAlertSink implements DeviationAlertSink {
+
+    @Override
+    public void accept(DeviationAlert alert) {
+        log.warn("Online deviation detected for sensor ID {} ({}): reading {}, moving average {}, face average {}",
+                alert.id(), alert.face(), alert.temperature(), alert.sensorAverage(), alert.faceAverage());
+    }
+}
@@ -0,0 +1,343 @@
+package omc.sensormonitoring.detection;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.aggregation.*;
+import omc.sensormonitoring.dto.DetectionStatsDto;
+import omc.sensormonitoring.model.FaceDirection;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Detects deviating sensors on the ingest path, within a few readings instead of at the end of the hour.
+ * <p>
+ * Every sensor keeps an exponentially weighted moving average (EWMA) of its readings, updated with the weight
+ * {@code sensors.detection.alpha} per reading. The reference of a face direction is the average of the moving
+ * averages of all its sensors, kept as a running sum and count that every update adjusts by the change of the
+ * sensor's moving average. A sensor is flagged once it has {@code sensors.detection.min-readings} readings,
+ * its face has {@code sensors.detection.min-sensors} sensors, and its moving average deviates from the face
+ * reference by more than {@code sensors.temperature.acceptable.deviation}, the same rule as the hourly check.
+ * </p>
+ * <p>
+ * An alert is passed to every {@link DeviationAlertSink} once, when a sensor becomes flagged; the sensor stays
+ * flagged until its moving average is back within the threshold. These alerts are independent of the hourly
+ * {@code sensor_deviated_data} records.
+ * </p>
+ * <p>
+ * Every sensor keeps the timestamp of its latest reading; a reading that is not newer is skipped, so resent and
+ * out-of-order readings do not move the moving average. A sensor without readings for
+ * {@code sensors.detection.idle-timeout} seconds is evicted by a periodic sweep and its moving average is removed
+ * from the face reference, so dead sensors neither skew the reference nor keep their memory.
+ * </p>
+ * <p>
+ * An update is O(1). The sensors are spread over independently locked stripes (one per available processor,
+ * or {@code sensors.detection.stripes}), each an open-addressing table of primitive arrays like the
+ * {@link SensorStatsTable}; the face sums and counts are {@link DoubleAdder}s and {@link LongAdder}s,
+ * so concurrent ingesting threads contend neither on a single lock nor on a single counter.
+ * </p>
+ */
+@Component
+@Slf4j
+public class OnlineDeviationDetector {
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    private final List<DeviationAlertSink> sinks;
+    private final DoubleAdder[] faceSums = new DoubleAdder[FACES.length];
+    private final LongAdder[] faceCounts = new LongAdder[FACES.length];
+    private final LongAdder flagged = new LongAdder();
+    private final LongAdder alerts = new LongAdder();
+    private final LongSupplier clock;
+    private Stripe[] stripes;
+
+    @Value("${sensors.detection.enabled}")
+    private boolean ENABLED;
+    @Value("${sensors.detection.alpha}")
+    private double ALPHA;
+    @Value("${sensors.detection.min-readings}")
+    private int MIN_READINGS;
+    @Value("${sensors.detection.min-sensors}")
+    private int MIN_SENSORS;
+    @Value("${sensors.detection.stripes}")
+    private int STRIPES;
+    @Value("${sensors.detection.idle-timeout}")
+    private long IDLE_TIMEOUT;
+    @Value("${sensors.temperature.acceptable.deviation}")
+    private double DEVIATION_PERCENTAGE;
+
+    @Autowired
+    public OnlineDeviationDetector(List<DeviationAlertSink> sinks) {
+        this(sinks, System::currentTimeMillis);
+    }
+
+    OnlineDeviationDetector(List<DeviationAlertSink> sinks, LongSupplier clock) {
+        this.sinks = sinks;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Validates the smoothing weight and allocates the stripes. If no stripe count is configured,
+     * one stripe per available processor is used.
+     *
+     * @throws IllegalStateException if the smoothing weight is not within (0, 1]
+     */
+    @PostConstruct
+    public void initializeDetector() {
+        if (!(ALPHA > 0 && ALPHA <= 1)) {
+            throw new IllegalStateException("sensors.detection.alpha must be greater than 0 and at most 1");
+        }
+        for (int face = 0; face < FACES.length; face++) {
+            faceSums[face] = new DoubleAdder();
+            faceCounts[face] = new LongAdder();
+        }
+        int stripeCount = STRIPES > 0 ? STRIPES : Runtime.getRuntime().availableProcessors();
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        log.info("Online deviation detection {} with {} stripes and {} alert sinks",
+                ENABLED ? "enabled" : "disabled", stripeCount, sinks.size());
+    }
+
+
+    /**
+     * Updates the moving average of the sensor with an accepted reading and raises an alert
+     * if the sensor starts to deviate.
+     *
+     * @param id          the unique identifier of the sensor
+     * @param timestamp   the timestamp of the reading (in milliseconds since epoch)
+     * @param face        the face direction of the sensor
+     * @param temperature the temperature recorded by the sensor
+     */
+    public void add(long id, long timestamp, FaceDirection face, double temperature) {
+        if (!ENABLED) {
+            return;
+        }
+        int hash = SensorStatsTable.hash(id);
+        Stripe stripe = stripes[(int) (((hash & 0xffffffffL) * stripes.length) >>> 32)];
+        DeviationAlert alert = stripe.add(id, hash, timestamp, face, temperature);
+        if (alert != null) {
+            alerts.increment();
+            for (DeviationAlertSink sink : sinks) {
+                sink.accept(alert);
+            }
+        }
+    }
+
+
+    /**
+     * Scheduled task that evicts the sensors whose latest reading is older than the idle timeout
+     * and removes their moving averages from the face references.
+     */
+    @Scheduled(fixedDelayString = "${sensors.window.check-interval}", timeUnit = TimeUnit.SECONDS)
+    public void evictIdleSensors() {
+        if (!ENABLED || IDLE_TIMEOUT <= 0) {
+            return;
+        }
+        long idleBefore = clock.getAsLong() - TimeUnit.SECONDS.toMillis(IDLE_TIMEOUT);
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            evicted += stripe.evictIdle(idleBefore);
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle sensors from online deviation detection", evicted);
+        }
+    }
+
+
+    /**
+     * Retrieves the current state of the detector.
+     *
+     * @return the number of tracked sensors, of currently flagged sensors and of alerts raised since startup
+     */
+    public DetectionStatsDto getStats() {
+        long sensors = 0;
+        for (LongAdder faceCount : faceCounts) {
+            sensors += faceCount.sum();
+        }
+        return new DetectionStatsDto(sensors, flagged.sum(), alerts.sum());
+    }
+
+
+    /**
+     * The moving averages of the sensors hashed to one stripe, in parallel arrays indexed by slot.
+     * A face ordinal of {@code -1} marks an empty slot.
+     */
+    private final class Stripe {
+        private static final byte EMPTY = -1;
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] ids;
+        private long[] lastTimestamps;
+        private double[] averages;
+        private int[] counts;
+        private byte[] faces;
+        private boolean[] deviated;
+        private int size;
+
+        private Stripe() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+
+        /**
+         * @return the alert if the sensor became flagged with this reading, otherwise {@code null};
+         * a reading not newer than the latest one of the sensor is skipped
+         */
+        private DeviationAlert add(long id, int hash, long timestamp, FaceDirection face, double temperature) {
+            int faceOrdinal = face.ordinal();
+            lock.lock();
+            try {
+                int slot = findSlot(id, hash);
+                if (faces[slot] == EMPTY) {
+                    if (size >= ids.length / 4 * 3) {
+                        resize();
+                        slot = findSlot(id, hash);
+                    }
+                    ids[slot] = id;
+                    lastTimestamps[slot] = timestamp;
+                    faces[slot] = (byte) faceOrdinal;
+                    averages[slot] = temperature;
+                    faceSums[faceOrdinal].add(temperature);
+                    faceCounts[faceOrdinal].increment();
+                    size++;
+                } else {
+                    if (timestamp <= lastTimestamps[slot]) {
+                        return null;
+                    }
+                    lastTimestamps[slot] = timestamp;
+                    double average = averages[slot];
+                    if (faces[slot] != faceOrdinal) {
+                        faceSums[faces[slot]].add(-average);
+                        faceCounts[faces[slot]].decrement();
+                        faceSums[faceOrdinal].add(average);
+                        faceCounts[faceOrdinal].increment();
+                        faces[slot] = (byte) faceOrdinal;
+                    }
+                    averages[slot] = average + ALPHA * (temperature - average);
+                    faceSums[faceOrdinal].add(averages[slot] - average);
+                }
+                if (counts[slot] < Integer.MAX_VALUE) {
+                    counts[slot]++;
+                }
+                long sensors = faceCounts[faceOrdinal].sum();
+                double faceAverage = faceSums[faceOrdinal].sum() / sensors;
+                boolean deviates = counts[slot] >= MIN_READINGS && sensors >= MIN_SENSORS &&
+                        SensorStatsCalculator.isDeviated(averages[slot], faceAverage, DEVIATION_PERCENTAGE);
+                if (deviates == deviated[slot]) {
+                    return null;
+                }
+                deviated[slot] = deviates;
+                if (!deviates) {
+                    flagged.decrement();
+                    return null;
+                }
+                flagged.increment();
+                return new DeviationAlert(id, timestamp, face, temperature, averages[slot], faceAverage);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+
+        private int findSlot(long id, int hash) {
+            int mask = ids.length - 1;
+            int slot = hash & mask;
+            while (faces[slot] != EMPTY && ids[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+
+        /**
+         * Removes the sensors whose latest reading is older than the given timestamp from the stripe
+         * and from the face references.
+         *
+         * @return the number of evicted sensors
+         */
+        private int evictIdle(long idleBefore) {
+            lock.lock();
+            try {
+                int evicted = 0;
+                for (int slot = 0; slot < ids.length; slot++) {
+                    if (faces[slot] != EMPTY && lastTimestamps[slot] < idleBefore) {
+                        evicted++;
+                    }
+                }
+                if (evicted > 0) {
+                    int remaining = size - evicted;
+                    int capacity = INITIAL_CAPACITY;
+                    while (remaining >= capacity / 4 * 3) {
+                        capacity *= 2;
+                    }
+                    rehash(capacity, idleBefore);
+                }
+                return evicted;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+
+        private void resize() {
+            rehash(ids.length * 2, Long.MIN_VALUE);
+        }
+
+
+        /**
+         * Moves the sensors into new arrays of the given capacity, dropping those whose latest reading
+         * is older than the given timestamp.
+         */
+        private void rehash(int capacity, long idleBefore) {
+            long[] oldIds = ids;
+            long[] oldLastTimestamps = lastTimestamps;
+            double[] oldAverages = averages;
+            int[] oldCounts = counts;
+            byte[] oldFaces = faces;
+            boolean[] oldDeviated = deviated;
+            allocate(capacity);
+            size = 0;
+            for (int oldSlot = 0; oldSlot < oldIds.length; oldSlot++) {
+                byte face = oldFaces[oldSlot];
+                if (face == EMPTY) {
+                    continue;
+                }
+                if (oldLastTimestamps[oldSlot] < idleBefore) {
+                    faceSums[face].add(-oldAverages[oldSlot]);
+                    faceCounts[face].decrement();
+                    if (oldDeviated[oldSlot]) {
+                        flagged.decrement();
+                    }
+                    continue;
+                }
+                int slot = findSlot(oldIds[oldSlot], SensorStatsTable.hash(oldIds[oldSlot]));
+                ids[slot] = oldIds[oldSlot];
+                lastTimestamps[slot] = oldLastTimestamps[oldSlot];
+                averages[slot] = oldAverages[oldSlot];
+                counts[slot] = oldCounts[oldSlot];
+                faces[slot] = face;
+                deviated[slot] = oldDeviated[oldSlot];
+                size++;
+            }
+        }
+
+
+        private void allocate(int capacity) {
+            ids = new long[capacity];
+            lastTimestamps = new long[capacity];
+            averages = new double[capacity];
+            counts = new int[capacity];
+            faces = new byte[capacity];
+            deviated = new boolean[capacity];
+            Arrays.fill(faces, EMPTY);
+        }
+    }
+}
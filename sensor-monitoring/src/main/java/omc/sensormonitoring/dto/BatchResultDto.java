@@ -0,0 +1,25 @@
+package omc.sensormonitoring.dto;
+
+import java.util.List;
+
+/**
+ * A data transfer object (DTO) summarizing the outcome of a batch ingestion request.
+ * This record contains the number of accepted and rejected readings,
+ * along with the details of every rejected reading.
+ */
+public record BatchResultDto(
+        /**
+         * The number of readings accepted and handed over for saving.
+         */
+        int accepted,
+
+        /**
+         * The number of readings rejected by validation.
+         */
+        int rejected,
+
+        /**
+         * The details of each rejected reading, see {@link RejectedSensorDataDto}.
+         */
+        List<RejectedSensorDataDto> rejects
+) {}
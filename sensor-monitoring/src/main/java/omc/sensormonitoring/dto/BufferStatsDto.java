@@ -0,0 +1,37 @@
+package omc.sensormonitoring.dto;
+
+/**
+ * A data transfer object (DTO) representing the current state of the ingest buffer.
+ * Counters are cumulative since application start.
+ */
+public record BufferStatsDto(
+        /**
+         * The maximum number of readings the buffer can hold.
+         */
+        int capacity,
+
+        /**
+         * The number of readings currently waiting to be flushed.
+         */
+        int size,
+
+        /**
+         * The current fill level of the buffer, from 0.0 (empty) to 1.0 (full).
+         */
+        double fillRatio,
+
+        /**
+         * The number of readings accepted into the buffer.
+         */
+        long accepted,
+
+        /**
+         * The number of readings rejected because the buffer was full.
+         */
+        long rejected,
+
+        /**
+         * The number of buffered readings discarded to make room for newer ones.
+         */
+        long dropped
+) {}
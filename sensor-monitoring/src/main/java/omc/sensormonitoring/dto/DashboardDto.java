@@ -0,0 +1,19 @@
+package omc.sensormonitoring.dto;
+
+import omc.sensormonitoring.model.SensorDeviatedData;
+import java.util.List;
+
+/**
+ * A data transfer object (DTO) representing the data rendered by the dashboard.
+ */
+public record DashboardDto(
+        /**
+         * The face temperature rollups of the last week, see {@link FaceRollupResultDto}.
+         */
+        FaceRollupResultDto faceRollups,
+
+        /**
+         * The malfunctioning sensors.
+         */
+        List<SensorDeviatedData> deviatedSensors
+) {}
@@ -0,0 +1,22 @@
+package omc.sensormonitoring.dto;
+
+/**
+ * A data transfer object (DTO) representing the state of the online deviation detection.
+ * Counters are cumulative since application start.
+ */
+public record DetectionStatsDto(
+        /**
+         * The number of sensors with a moving average.
+         */
+        long sensors,
+
+        /**
+         * The number of sensors currently deviating from their face direction.
+         */
+        long flagged,
+
+        /**
+         * The number of alerts raised.
+         */
+        long alerts
+) {}
@@ -0,0 +1,25 @@
+package omc.sensormonitoring.dto;
+
+import omc.sensormonitoring.model.SensorDeviatedData;
+import java.util.List;
+
+/**
+ * A data transfer object (DTO) representing a page of malfunctioning sensors, newest first.
+ * The next page is requested with {@code nextTimestamp} and {@code nextId} as the keyset to continue before.
+ */
+public record DeviatedSensorPageDto(
+        /**
+         * The malfunctioning sensors of the page, ordered by timestamp and sensor id, descending.
+         */
+        List<SensorDeviatedData> sensors,
+
+        /**
+         * The timestamp of the last sensor of the page, or {@code null} if there are no further pages.
+         */
+        Long nextTimestamp,
+
+        /**
+         * The sensor id of the last sensor of the page, or {@code null} if there are no further pages.
+         */
+        Long nextId
+) {}
@@ -0,0 +1,24 @@
+package omc.sensormonitoring.dto;
+
+import java.util.List;
+
+/**
+ * A data transfer object (DTO) representing the estimated percentiles of the temperatures
+ * of every face direction within a time range, merged from the hourly quantile sketches.
+ */
+public record FaceQuantileResultDto(
+        /**
+         * The requested quantiles, between 0 and 1.
+         */
+        double[] quantiles,
+
+        /**
+         * The relative error of the estimated values.
+         */
+        double relativeAccuracy,
+
+        /**
+         * The percentiles of every face direction with readings within the range, ordered by face direction.
+         */
+        List<FaceQuantilesDto> faces
+) {}
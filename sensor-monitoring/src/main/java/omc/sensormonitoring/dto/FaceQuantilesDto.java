@@ -0,0 +1,34 @@
+package omc.sensormonitoring.dto;
+
+import omc.sensormonitoring.model.FaceDirection;
+
+/**
+ * A data transfer object (DTO) representing the estimated percentiles of the temperatures
+ * of a face direction within a time range.
+ */
+public record FaceQuantilesDto(
+        /**
+         * The face direction.
+         */
+        FaceDirection face,
+
+        /**
+         * The number of readings within the range.
+         */
+        long count,
+
+        /**
+         * The lowest temperature within the range.
+         */
+        double min,
+
+        /**
+         * The highest temperature within the range.
+         */
+        double max,
+
+        /**
+         * The estimated temperatures at the requested quantiles, in the order of the request.
+         */
+        double[] values
+) {}
@@ -0,0 +1,20 @@
+package omc.sensormonitoring.dto;
+
+import omc.sensormonitoring.model.SensorFaceRollup;
+import java.util.List;
+
+/**
+ * A data transfer object (DTO) representing the face rollups of a time range,
+ * read from the tier selected for the range.
+ */
+public record FaceRollupResultDto(
+        /**
+         * The length (in milliseconds) of the buckets of the selected tier.
+         */
+        long resolution,
+
+        /**
+         * The buckets within the range, ordered by time and face direction.
+         */
+        List<SensorFaceRollup> rollups
+) {}
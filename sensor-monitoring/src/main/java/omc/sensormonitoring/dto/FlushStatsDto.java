@@ -0,0 +1,38 @@
+package omc.sensormonitoring.dto;
+
+/**
+ * A data transfer object (DTO) representing the state of the database flusher.
+ * Counters are cumulative since application start.
+ */
+public record FlushStatsDto(
+        /**
+         * The number of parallel writer workers.
+         */
+        int writers,
+
+        /**
+         * The current adaptive batch size used for new batches.
+         */
+        int batchSize,
+
+        /**
+         * The duration of the most recently written batch in milliseconds.
+         */
+        long lastBatchMillis,
+
+        /**
+         * The number of readings written to the database.
+         */
+        long written,
+
+        /**
+         * The number of readings whose batch failed to be written; with the WAL enabled
+         * they are written again from the WAL once the database is back.
+         */
+        long failed,
+
+        /**
+         * The number of WAL segments of failed flushes waiting to be written again.
+         */
+        int pendingWalSegments
+) {}
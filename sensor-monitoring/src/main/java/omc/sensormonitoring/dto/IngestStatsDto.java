@@ -0,0 +1,27 @@
+package omc.sensormonitoring.dto;
+
+/**
+ * A data transfer object (DTO) representing the state of the ingestion pipeline,
+ * intended for monitoring and alerting.
+ */
+public record IngestStatsDto(
+        /**
+         * The state of the ingest buffer, see {@link BufferStatsDto}.
+         */
+        BufferStatsDto buffer,
+
+        /**
+         * The state of the database flusher, see {@link FlushStatsDto}.
+         */
+        FlushStatsDto flush,
+
+        /**
+         * The state of the hourly aggregation windows, see {@link WindowStatsDto}.
+         */
+        WindowStatsDto window,
+
+        /**
+         * The state of the online deviation detection, see {@link DetectionStatsDto}.
+         */
+        DetectionStatsDto detection
+) {}
@@ -0,0 +1,18 @@
+package omc.sensormonitoring.dto;
+
+/**
+ * A data transfer object (DTO) describing a single reading rejected from a batch.
+ * This record contains the position of the reading in the submitted batch
+ * and the validation messages explaining why it was rejected.
+ */
+public record RejectedSensorDataDto(
+        /**
+         * The zero-based position of the rejected reading in the submitted batch.
+         */
+        int index,
+
+        /**
+         * The validation messages for the rejected reading, separated by semicolons.
+         */
+        String message
+) {}
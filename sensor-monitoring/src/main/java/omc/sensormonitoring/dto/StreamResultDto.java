@@ -0,0 +1,34 @@
+package omc.sensormonitoring.dto;
+
+/**
+ * A data transfer object (DTO) summarizing the outcome of a streaming ingestion request.
+ * This record contains only counters, so its size does not depend on the size of the upload.
+ */
+public record StreamResultDto(
+        /**
+         * The number of records decoded and handed over for saving.
+         */
+        long accepted,
+
+        /**
+         * The number of malformed records that were skipped.
+         */
+        long rejected,
+
+        /**
+         * The zero-based index of the first line not read because the ingest buffer was full, or {@code null}
+         * if the whole upload was read. The lines before it were handled; the upload is resumed from this line.
+         */
+        Long resumeLine
+) {
+
+    /**
+     * Creates the result of an upload that was read completely.
+     *
+     * @param accepted the number of records decoded and handed over for saving
+     * @param rejected the number of malformed records that were skipped
+     */
+    public StreamResultDto(long accepted, long rejected) {
+        this(accepted, rejected, null);
+    }
+}
@@ -0,0 +1,38 @@
+package omc.sensormonitoring.dto;
+
+/**
+ * A data transfer object (DTO) representing the state of the hourly event-time windows.
+ * Counters are cumulative since application start.
+ */
+public record WindowStatsDto(
+        /**
+         * How long (in milliseconds) after its end a window keeps accepting readings.
+         */
+        long allowedLatenessMillis,
+
+        /**
+         * The end of the last closed window in milliseconds since epoch; readings stamped
+         * before it are late.
+         */
+        long watermark,
+
+        /**
+         * The number of open windows, at most two: the current and the previous hour.
+         */
+        int openWindows,
+
+        /**
+         * The number of readings skipped because their window was already closed.
+         */
+        long late,
+
+        /**
+         * The number of readings skipped because they were stamped with a future hour.
+         */
+        long early,
+
+        /**
+         * The number of readings skipped because they repeated the latest reading of their sensor.
+         */
+        long duplicates
+) {}
@@ -0,0 +1,195 @@
+package omc.sensormonitoring.ingest;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.model.FaceDirection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.*;
+import java.util.function.Consumer;
+
+/**
+ * Incremental parser for newline-delimited JSON (NDJSON) sensor data uploads.
+ * <p>
+ * The request body is read through a fixed-size buffer and every line is decoded with the
+ * Jackson streaming API as soon as it is complete, so the heap used per request does not
+ * depend on the size of the upload. Each decoded record is handed to the consumer immediately.
+ * </p>
+ * <p>
+ * Malformed lines (invalid JSON, missing or mistyped fields, unknown face direction, or lines
+ * longer than the configured limit) are counted and skipped without aborting the stream.
+ * </p>
+ * <p>
+ * If the consumer throws a {@link SensorBufferFullException}, the rest of the upload is not read and the
+ * result reports the line the upload has to be resumed from, so that a client retrying later does not send
+ * the readings already buffered again.
+ * </p>
+ */
+@Component
+@Slf4j
+public class NdjsonSensorDataParser {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int INITIAL_LINE_SIZE = 256;
+
+    private static final int ID_FIELD = 1;
+    private static final int TIMESTAMP_FIELD = 1 << 1;
+    private static final int FACE_FIELD = 1 << 2;
+    private static final int TEMPERATURE_FIELD = 1 << 3;
+    private static final int ALL_FIELDS = ID_FIELD | TIMESTAMP_FIELD | FACE_FIELD | TEMPERATURE_FIELD;
+
+    private final JsonFactory jsonFactory;
+
+    @Value("${sensors.stream.max-line-length}")
+    private int MAX_LINE_LENGTH;
+
+    /**
+     * Constructs a new parser sharing the JSON factory of the application's object mapper.
+     *
+     * @param objectMapper the application's object mapper
+     */
+    public NdjsonSensorDataParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+
+    /**
+     * Reads the whole input stream and passes every decoded record to the consumer.
+     *
+     * @param inputStream the NDJSON input stream
+     * @param consumer    the consumer receiving the decoded records
+     * @return the number of accepted and rejected records, and the line to resume from if the consumer
+     * rejected a record because the buffer was full
+     * @throws IOException if the input stream cannot be read
+     */
+    public StreamResultDto parse(InputStream inputStream, Consumer<SensorDataDto> consumer) throws IOException {
+        byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        byte[] line = new byte[Math.min(INITIAL_LINE_SIZE, MAX_LINE_LENGTH)];
+        int lineLength = 0;
+        boolean overflow = false;
+        long accepted = 0;
+        long rejected = 0;
+        long lines = 0;
+
+        try {
+            int read;
+            while ((read = inputStream.read(readBuffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    byte b = readBuffer[i];
+                    if (b == '\n') {
+                        int result = overflow ? -1 : parseLine(line, lineLength, consumer);
+                        accepted += result > 0 ? 1 : 0;
+                        rejected += result < 0 ? 1 : 0;
+                        lines++;
+                        lineLength = 0;
+                        overflow = false;
+                    } else if (!overflow) {
+                        if (lineLength == MAX_LINE_LENGTH) {
+                            overflow = true;
+                        } else {
+                            if (lineLength == line.length) {
+                                byte[] grown = new byte[Math.min(line.length * 2, MAX_LINE_LENGTH)];
+                                System.arraycopy(line, 0, grown, 0, lineLength);
+                                line = grown;
+                            }
+                            line[lineLength++] = b;
+                        }
+                    }
+                }
+            }
+            int result = overflow ? -1 : parseLine(line, lineLength, consumer);
+            accepted += result > 0 ? 1 : 0;
+            rejected += result < 0 ? 1 : 0;
+        } catch (SensorBufferFullException e) {
+            log.debug("Stopped NDJSON upload at line {}, the buffer is full", lines);
+            return new StreamResultDto(accepted, rejected, lines);
+        }
+
+        if (rejected > 0) {
+            log.debug("Skipped {} malformed lines of NDJSON upload", rejected);
+        }
+        return new StreamResultDto(accepted, rejected);
+    }
+
+
+    /**
+     * Decodes a single line and passes the record to the consumer.
+     *
+     * @param line     the buffer holding the line
+     * @param length   the length of the line in the buffer
+     * @param consumer the consumer receiving the decoded record
+     * @return {@code 1} if the record was accepted, {@code -1} if it was malformed,
+     * {@code 0} if the line was blank
+     */
+    private int parseLine(byte[] line, int length, Consumer<SensorDataDto> consumer) {
+        if (isBlank(line, length)) {
+            return 0;
+        }
+        long id = 0;
+        long timestamp = 0;
+        FaceDirection face = null;
+        double temperature = 0;
+        int fields = 0;
+
+        try (JsonParser parser = jsonFactory.createParser(line, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return -1;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "id" -> {
+                        id = parser.getLongValue();
+                        fields |= ID_FIELD;
+                    }
+                    case "timestamp" -> {
+                        timestamp = parser.getLongValue();
+                        fields |= TIMESTAMP_FIELD;
+                    }
+                    case "face" -> {
+                        if (value != JsonToken.VALUE_STRING) {
+                            return -1;
+                        }
+                        face = FaceDirection.valueOf(parser.getText());
+                        fields |= FACE_FIELD;
+                    }
+                    case "temperature" -> {
+                        temperature = parser.getDoubleValue();
+                        fields |= TEMPERATURE_FIELD;
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                return -1;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return -1;
+        }
+
+        if (fields != ALL_FIELDS) {
+            return -1;
+        }
+        consumer.accept(new SensorDataDto(id, timestamp, face, temperature));
+        return 1;
+    }
+
+
+    /**
+     * Checks whether the line consists of whitespace only.
+     *
+     * @param line   the buffer holding the line
+     * @param length the length of the line in the buffer
+     * @return {@code true} if the line is blank
+     */
+    private static boolean isBlank(byte[] line, int length) {
+        for (int i = 0; i < length; i++) {
+            if (line[i] != ' ' && line[i] != '\t' && line[i] != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
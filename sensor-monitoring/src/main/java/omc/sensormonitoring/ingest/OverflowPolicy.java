@@ -0,0 +1,21 @@
+package omc.sensormonitoring.ingest;
+
+/**
+ * Enum representing the behaviour of the {@link SensorDataBuffer} when it is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Rejects incoming readings; the client receives a configurable 429/503 status with Retry-After.
+     */
+    REJECT,
+
+    /**
+     * Accepts incoming readings by discarding the oldest buffered ones.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Waits up to a configurable timeout for free space, then rejects incoming readings.
+     */
+    BLOCK
+}
@@ -0,0 +1,16 @@
+package omc.sensormonitoring.ingest;
+
+import static omc.sensormonitoring.controller.handler.ErrorMessages.BUFFER_FULL_MESSAGE;
+
+/**
+ * Exception thrown when sensor data cannot be accepted because the {@link SensorDataBuffer} is full.
+ */
+public class SensorBufferFullException extends RuntimeException {
+
+    /**
+     * Constructs a new exception with the default buffer full message.
+     */
+    public SensorBufferFullException() {
+        super(BUFFER_FULL_MESSAGE);
+    }
+}
@@ -0,0 +1,100 @@
+package omc.sensormonitoring.ingest;
+
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.model.FaceDirection;
+import java.nio.ByteBuffer;
+import java.util.*;
+import static omc.sensormonitoring.controller.handler.ErrorMessages.*;
+
+/**
+ * Decoder for the compact binary wire format of sensor readings.
+ * <p>
+ * A payload is a sequence of fixed-width big-endian records of {@value #RECORD_SIZE} bytes:
+ * </p>
+ * <ul>
+ *   <li>sensor id - 8 bytes, {@code long}</li>
+ *   <li>timestamp - 8 bytes, {@code long}, milliseconds since epoch</li>
+ *   <li>face direction - 1 byte, ordinal of {@link FaceDirection}</li>
+ *   <li>temperature - 8 bytes, IEEE 754 {@code double}</li>
+ * </ul>
+ * <p>
+ * Records are decoded with absolute reads straight from the buffer and passed to a
+ * {@link SensorReadingConsumer} as primitives, so no object is created per field.
+ * </p>
+ */
+public final class SensorDataBinaryCodec {
+
+    /** The content type of the binary wire format. */
+    public static final String MEDIA_TYPE_VALUE = "application/x-sensor-data";
+
+    /** The size of a single encoded record in bytes. */
+    public static final int RECORD_SIZE = 25;
+
+    private static final int TIMESTAMP_OFFSET = 8;
+    private static final int FACE_OFFSET = 16;
+    private static final int TEMPERATURE_OFFSET = 17;
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    private SensorDataBinaryCodec() {}
+
+
+    /**
+     * Returns the number of records in a payload of the given length.
+     *
+     * @param length the payload length in bytes
+     * @return the number of records
+     * @throws IllegalArgumentException if the length is not a multiple of {@value #RECORD_SIZE}
+     */
+    public static int recordCount(int length) {
+        if (length % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException(String.format(INVALID_BINARY_LENGTH_MESSAGE, RECORD_SIZE));
+        }
+        return length / RECORD_SIZE;
+    }
+
+
+    /**
+     * Decodes all records between the buffer's position and limit and passes them to the consumer.
+     * Records with an unknown face direction ordinal are skipped and reported.
+     *
+     * @param buffer   the buffer holding the encoded records
+     * @param consumer the consumer receiving the decoded readings
+     * @return the number of accepted readings and the details of rejected ones
+     * @throws IllegalArgumentException if the payload length is not a multiple of {@value #RECORD_SIZE}
+     */
+    public static BatchResultDto decode(ByteBuffer buffer, SensorReadingConsumer consumer) {
+        int count = recordCount(buffer.remaining());
+        int offset = buffer.position();
+        List<RejectedSensorDataDto> rejects = new ArrayList<>();
+        for (int i = 0; i < count; i++, offset += RECORD_SIZE) {
+            int face = buffer.get(offset + FACE_OFFSET);
+            if (face < 0 || face >= FACES.length) {
+                rejects.add(new RejectedSensorDataDto(i, INVALID_SENSOR_FACE_DIRECTION_MESSAGE));
+                continue;
+            }
+            consumer.accept(buffer.getLong(offset),
+                    buffer.getLong(offset + TIMESTAMP_OFFSET),
+                    FACES[face],
+                    buffer.getDouble(offset + TEMPERATURE_OFFSET));
+        }
+        buffer.position(offset);
+        return new BatchResultDto(count - rejects.size(), rejects.size(), rejects);
+    }
+
+
+    /**
+     * Encodes a single reading at the buffer's current position.
+     *
+     * @param buffer      the target buffer
+     * @param id          the unique identifier of the sensor
+     * @param timestamp   the timestamp of the reading (in milliseconds since epoch)
+     * @param face        the face direction of the sensor
+     * @param temperature the temperature recorded by the sensor
+     */
+    public static void encode(ByteBuffer buffer, long id, long timestamp, FaceDirection face, double temperature) {
+        buffer.putLong(id)
+                .putLong(timestamp)
+                .put((byte) face.ordinal())
+                .putDouble(temperature);
+    }
+}
@@ -0,0 +1,421 @@
+package omc.sensormonitoring.ingest;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.model.FaceDirection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.*;
+
+/**
+ * Bounded, preallocated staging buffer holding accepted sensor readings until they are flushed
+ * to the database.
+ * <p>
+ * The buffer is split into stripes, so concurrent request threads rarely contend on the same lock. Every
+ * thread starts at a stripe of its own and moves on to the next one when its stripe is locked or has no
+ * room, so a single thread can use the whole capacity. Each stripe stores readings in two preallocated
+ * {@link SensorDataColumns}: the active one receives readings, while the spare one is handed to the
+ * flusher. At flush time the two are swapped under the stripe lock, so the path from ingestion
+ * to the database does not allocate per reading.
+ * </p>
+ * <p>
+ * The total capacity is fixed at startup, so a slow database cannot make the buffered data grow
+ * until the JVM runs out of heap. What happens when a stripe is full is controlled by the configured
+ * {@link OverflowPolicy}. Batches are accepted or rejected as a whole.
+ * </p>
+ * <p>
+ * When the {@link SensorDataWal} is enabled, every accepted reading is also appended to the log of its stripe
+ * before the offer returns, and the log segments follow the storage through swap and release. A reading
+ * overwritten by {@link OverflowPolicy#DROP_OLDEST} would still be replayed from the log after a crash, so
+ * that policy cannot be combined with the WAL. While the WAL is backlogged with the segments of failed
+ * flushes, every offer is rejected regardless of the policy.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SensorDataBuffer {
+    private final SensorDataWal sensorDataWal;
+
+    @Value("${sensors.buffer.capacity}")
+    private int CAPACITY;
+    @Value("${sensors.buffer.stripes}")
+    private int STRIPES;
+    @Value("${sensors.buffer.overflow-policy}")
+    private OverflowPolicy OVERFLOW_POLICY;
+    @Value("${sensors.buffer.block-timeout}")
+    private long BLOCK_TIMEOUT_MILLIS;
+    @Value("${sensors.batch.max-size}")
+    private int MAX_BATCH_SIZE;
+
+    private final AtomicInteger nextHomeStripe = new AtomicInteger();
+    private final ThreadLocal<int[]> homeStripe =
+            ThreadLocal.withInitial(() -> new int[] {nextHomeStripe.getAndIncrement()});
+    private Stripe[] stripes;
+    private int fillThreshold = Integer.MAX_VALUE;
+    private Runnable fillListener = () -> {};
+
+
+    /**
+     * Preallocates the stripes of the buffer. If no stripe count is configured, one stripe per available
+     * processor is used, limited so that a batch of the maximum size fits into every stripe.
+     *
+     * @throws IllegalStateException if a batch of the maximum size does not fit into a stripe,
+     *                               or if the {@link OverflowPolicy#DROP_OLDEST} policy is used with the WAL
+     */
+    @PostConstruct
+    public void initializeBuffer() {
+        if (OVERFLOW_POLICY == OverflowPolicy.DROP_OLDEST && sensorDataWal.isEnabled()) {
+            throw new IllegalStateException("sensors.buffer.overflow-policy=DROP_OLDEST cannot be used with " +
+                    "sensors.wal.enabled");
+        }
+        int maxStripeCount = Math.max(1, CAPACITY / Math.max(1, MAX_BATCH_SIZE));
+        int stripeCount = STRIPES > 0 ? STRIPES : Math.min(Runtime.getRuntime().availableProcessors(), maxStripeCount);
+        if (MAX_BATCH_SIZE > CAPACITY / stripeCount) {
+            throw new IllegalStateException("sensors.buffer.capacity divided by sensors.buffer.stripes must be " +
+                    "at least sensors.batch.max-size");
+        }
+        int stripeCapacity = Math.max(1, (CAPACITY + stripeCount - 1) / stripeCount);
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(stripeCapacity, sensorDataWal.isEnabled() ? sensorDataWal.openStripeLog() : null);
+        }
+        log.info("Allocated sensor data buffer with {} stripes of capacity {} and overflow policy {}",
+                stripeCount, stripeCapacity, OVERFLOW_POLICY);
+    }
+
+
+    /**
+     * Registers a listener notified when the number of buffered readings reaches the given threshold,
+     * so that flushing can start before the next scheduled flush. The threshold is split evenly between
+     * the stripes, and the listener is called by the ingesting thread whose reading fills its stripe
+     * up to the stripe threshold.
+     *
+     * @param threshold the total number of buffered readings that triggers the listener
+     * @param listener  the listener; it must return quickly and must not block
+     */
+    public void setFillListener(int threshold, Runnable listener) {
+        this.fillThreshold = Math.max(1, threshold / stripes.length);
+        this.fillListener = listener;
+    }
+
+
+    /**
+     * Adds a single reading to a stripe with room for it.
+     *
+     * @param id          the unique identifier of the sensor
+     * @param timestamp   the timestamp of the reading (in milliseconds since epoch)
+     * @param face        the face direction of the sensor
+     * @param temperature the temperature recorded by the sensor
+     * @return {@code true} if the reading was accepted, {@code false} if it was rejected
+     */
+    public boolean offer(long id, long timestamp, FaceDirection face, double temperature) {
+        Stripe stripe = lockStripe(1);
+        long ticket;
+        try {
+            if (!awaitSpace(stripe, 1)) {
+                stripe.rejected++;
+                return false;
+            }
+            ticket = stripe.add(id, timestamp, face, temperature);
+            stripe.accepted++;
+            if (stripe.active.size() == fillThreshold) {
+                fillListener.run();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        stripe.awaitDurable(ticket);
+        return true;
+    }
+
+
+    /**
+     * Adds a batch of readings to a stripe with room for all of them.
+     * The batch is either accepted or rejected as a whole.
+     *
+     * @param sensorDataDtoList the readings to add
+     * @return {@code true} if the readings were accepted, {@code false} if they were rejected
+     */
+    public boolean offerAll(List<SensorDataDto> sensorDataDtoList) {
+        int count = sensorDataDtoList.size();
+        Stripe stripe = lockStripe(count);
+        long ticket = 0;
+        try {
+            if (!awaitSpace(stripe, count)) {
+                stripe.rejected += count;
+                return false;
+            }
+            int sizeBefore = stripe.active.size();
+            for (SensorDataDto sensorDataDto : sensorDataDtoList) {
+                ticket = stripe.add(sensorDataDto.id(), sensorDataDto.timestamp(),
+                        sensorDataDto.face(), sensorDataDto.temperature());
+            }
+            stripe.accepted += count;
+            if (sizeBefore < fillThreshold && stripe.active.size() >= fillThreshold) {
+                fillListener.run();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        stripe.awaitDurable(ticket);
+        return true;
+    }
+
+
+    /**
+     * Adds the readings held by a columnar storage to a stripe with room for all of them, without an object
+     * per reading. The batch is either accepted or rejected as a whole.
+     *
+     * @param columns the readings to add
+     * @return {@code true} if the readings were accepted, {@code false} if they were rejected
+     */
+    public boolean offerAll(SensorDataColumns columns) {
+        int count = columns.size();
+        Stripe stripe = lockStripe(count);
+        long ticket = 0;
+        try {
+            if (!awaitSpace(stripe, count)) {
+                stripe.rejected += count;
+                return false;
+            }
+            int sizeBefore = stripe.active.size();
+            for (int i = 0; i < count; i++) {
+                ticket = stripe.add(columns.id(i), columns.timestamp(i), columns.face(i), columns.temperature(i));
+            }
+            stripe.accepted += count;
+            if (sizeBefore < fillThreshold && stripe.active.size() >= fillThreshold) {
+                fillListener.run();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        stripe.awaitDurable(ticket);
+        return true;
+    }
+
+
+    /**
+     * @return the number of stripes of the buffer
+     */
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+
+    /**
+     * Takes the readings of a stripe for flushing by swapping its active storage with the spare one.
+     * The returned storage must be given back with {@link #release(int, SensorDataColumns, boolean)}
+     * once it is flushed.
+     *
+     * @param stripeIndex the index of the stripe
+     * @return the readings of the stripe, or {@code null} if the stripe is empty
+     * or its previous readings are still being flushed
+     */
+    public SensorDataColumns swap(int stripeIndex) {
+        Stripe stripe = stripes[stripeIndex];
+        stripe.lock.lock();
+        try {
+            if (stripe.active.size() == 0 || stripe.spare == null) {
+                return null;
+            }
+            SensorDataColumns flushed = stripe.active;
+            stripe.active = stripe.spare;
+            stripe.spare = null;
+            if (stripe.walLog != null) {
+                stripe.walLog.seal();
+            }
+            stripe.notFull.signalAll();
+            return flushed;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+
+    /**
+     * Gives back a flushed storage, so that it can be reused by the next swap of the stripe.
+     * The WAL segments of persisted readings are reused, those of a failed flush are kept for replay.
+     *
+     * @param stripeIndex the index of the stripe
+     * @param columns     the storage returned by {@link #swap(int)}
+     * @param persisted   whether all readings of the storage were persisted
+     */
+    public void release(int stripeIndex, SensorDataColumns columns, boolean persisted) {
+        Stripe stripe = stripes[stripeIndex];
+        stripe.lock.lock();
+        try {
+            columns.clear();
+            stripe.spare = columns;
+            if (stripe.walLog != null) {
+                stripe.walLog.release(persisted);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+
+    /**
+     * Returns the number of readings currently waiting to be flushed.
+     *
+     * @return the number of buffered readings
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.active.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+
+    /**
+     * Returns the current fill level and the cumulative counters of the buffer.
+     *
+     * @return the buffer statistics
+     */
+    public BufferStatsDto getStats() {
+        int capacity = 0;
+        int size = 0;
+        long accepted = 0;
+        long rejected = 0;
+        long dropped = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                capacity += stripe.active.capacity();
+                size += stripe.active.size();
+                accepted += stripe.accepted;
+                rejected += stripe.rejected;
+                dropped += stripe.dropped;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return new BufferStatsDto(capacity, size, (double) size / capacity, accepted, rejected, dropped);
+    }
+
+
+    /**
+     * Locks a stripe for adding the given number of readings. Starting at the home stripe of the current thread,
+     * the stripes are tried without waiting until one is free and has room for the readings, which then becomes
+     * the home stripe of the thread. If there is none, the home stripe is locked and the overflow policy applies.
+     *
+     * @param count the number of readings to add
+     * @return the locked stripe
+     */
+    private Stripe lockStripe(int count) {
+        int[] home = homeStripe.get();
+        for (int i = 0; i < stripes.length; i++) {
+            int index = Math.floorMod(home[0] + i, stripes.length);
+            Stripe stripe = stripes[index];
+            if (stripe.lock.tryLock()) {
+                if (stripe.free() >= count) {
+                    home[0] = index;
+                    return stripe;
+                }
+                stripe.lock.unlock();
+            }
+        }
+        Stripe stripe = stripes[Math.floorMod(home[0], stripes.length)];
+        stripe.lock.lock();
+        return stripe;
+    }
+
+
+    /**
+     * Checks, according to the overflow policy, whether the given number of readings can be added
+     * to the stripe, rejecting them while the WAL is backlogged. Must be called while holding the stripe lock.
+     *
+     * @param stripe the stripe
+     * @param count  the number of readings to add
+     * @return {@code true} if the readings can be added
+     */
+    private boolean awaitSpace(Stripe stripe, int count) {
+        if (sensorDataWal.isBacklogged()) {
+            return false;
+        }
+        return switch (OVERFLOW_POLICY) {
+            case DROP_OLDEST -> true;
+            case REJECT -> stripe.free() >= count;
+            case BLOCK -> awaitSpaceWithTimeout(stripe, count);
+        };
+    }
+
+
+    /**
+     * Waits until the given number of readings fits into the stripe or the block timeout elapses.
+     * Must be called while holding the stripe lock.
+     *
+     * @param stripe the stripe
+     * @param count  the number of readings to add
+     * @return {@code true} if the readings fit into the stripe before the timeout
+     */
+    private boolean awaitSpaceWithTimeout(Stripe stripe, int count) {
+        if (count > stripe.active.capacity()) {
+            return false;
+        }
+        long nanos = TimeUnit.MILLISECONDS.toNanos(BLOCK_TIMEOUT_MILLIS);
+        try {
+            while (stripe.free() < count) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = stripe.notFull.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+
+    /**
+     * A stripe of the buffer: a pair of preallocated storages guarded by a lock, its WAL log and its counters.
+     */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();
+        private final SensorDataWal.StripeLog walLog;
+        private SensorDataColumns active;
+        private SensorDataColumns spare;
+        private long accepted;
+        private long rejected;
+        private long dropped;
+
+        private Stripe(int capacity, SensorDataWal.StripeLog walLog) {
+            this.active = new SensorDataColumns(capacity);
+            this.spare = new SensorDataColumns(capacity);
+            this.walLog = walLog;
+        }
+
+        private int free() {
+            return active.capacity() - active.size();
+        }
+
+        private long add(long id, long timestamp, FaceDirection face, double temperature) {
+            if (active.add(id, timestamp, face, temperature)) {
+                dropped++;
+            }
+            return walLog != null ? walLog.append(id, timestamp, face, temperature) : 0;
+        }
+
+        private void awaitDurable(long ticket) {
+            if (walLog != null) {
+                walLog.awaitDurable(ticket);
+            }
+        }
+    }
+}
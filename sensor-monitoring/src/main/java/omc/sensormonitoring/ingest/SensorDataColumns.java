@@ -0,0 +1,128 @@
+package omc.sensormonitoring.ingest;
+
+import omc.sensormonitoring.model.FaceDirection;
+
+/**
+ * Fixed-capacity, struct-of-arrays storage for sensor readings.
+ * <p>
+ * Readings are kept in parallel primitive arrays (ids, timestamps, face ordinals and temperatures)
+ * instead of one object per reading, so adding, reading and clearing readings does not allocate.
+ * The arrays are used as a ring: when the storage is full, adding a reading may overwrite the oldest one.
+ * </p>
+ * <p>
+ * This class is not thread-safe; inside the {@link SensorDataBuffer} access is guarded by the owning stripe.
+ * </p>
+ */
+public final class SensorDataColumns {
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    private final long[] ids;
+    private final long[] timestamps;
+    private final byte[] faces;
+    private final double[] temperatures;
+    private int head;
+    private int size;
+
+    /**
+     * Constructs a new storage preallocated for the given number of readings.
+     *
+     * @param capacity the maximum number of readings
+     */
+    public SensorDataColumns(int capacity) {
+        ids = new long[capacity];
+        timestamps = new long[capacity];
+        faces = new byte[capacity];
+        temperatures = new double[capacity];
+    }
+
+
+    /**
+     * Adds a reading, overwriting the oldest one if the storage is full.
+     *
+     * @param id          the unique identifier of the sensor
+     * @param timestamp   the timestamp of the reading (in milliseconds since epoch)
+     * @param face        the face direction of the sensor
+     * @param temperature the temperature recorded by the sensor
+     * @return {@code true} if the oldest reading was overwritten
+     */
+    public boolean add(long id, long timestamp, FaceDirection face, double temperature) {
+        boolean overwritten = size == ids.length;
+        if (overwritten) {
+            head = (head + 1) % ids.length;
+            size--;
+        }
+        int index = (head + size) % ids.length;
+        ids[index] = id;
+        timestamps[index] = timestamp;
+        faces[index] = (byte) face.ordinal();
+        temperatures[index] = temperature;
+        size++;
+        return overwritten;
+    }
+
+
+    /**
+     * Removes all readings without releasing the arrays.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+
+    /**
+     * @return the number of readings held
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * @return the maximum number of readings
+     */
+    public int capacity() {
+        return ids.length;
+    }
+
+
+    /**
+     * @param i the position of the reading, from the oldest (0) to the newest ({@code size() - 1})
+     * @return the unique identifier of the sensor
+     */
+    public long id(int i) {
+        return ids[index(i)];
+    }
+
+
+    /**
+     * @param i the position of the reading, from the oldest (0) to the newest ({@code size() - 1})
+     * @return the timestamp of the reading (in milliseconds since epoch)
+     */
+    public long timestamp(int i) {
+        return timestamps[index(i)];
+    }
+
+
+    /**
+     * @param i the position of the reading, from the oldest (0) to the newest ({@code size() - 1})
+     * @return the face direction of the sensor
+     */
+    public FaceDirection face(int i) {
+        return FACES[faces[index(i)]];
+    }
+
+
+    /**
+     * @param i the position of the reading, from the oldest (0) to the newest ({@code size() - 1})
+     * @return the temperature recorded by the sensor
+     */
+    public double temperature(int i) {
+        return temperatures[index(i)];
+    }
+
+
+    private int index(int i) {
+        return (head + i) % ids.length;
+    }
+}
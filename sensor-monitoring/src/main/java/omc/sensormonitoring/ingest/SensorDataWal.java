@@ -0,0 +1,439 @@
+package omc.sensormonitoring.ingest;
+
+import jakarta.annotation.*;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.model.FaceDirection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Segmented, memory-mapped write-ahead log (WAL) of the readings accepted into the {@link SensorDataBuffer}.
+ * <p>
+ * Every stripe of the buffer appends its readings to its own chain of {@link WalSegment}s before the reading
+ * is acknowledged. An append is a plain memory write into the mapped file, so it survives a crash or restart
+ * of the process. A sync thread forces dirty segments to disk every {@code sensors.wal.sync-interval}
+ * milliseconds. With the {@link WalSyncMode#GROUP} mode ingesting threads wait for the force covering their
+ * readings and wake up the sync thread right away; readings appended while a force is running are committed
+ * together by the next one, so a single force acknowledges many requests. The socket listener has no way to
+ * acknowledge a reading and its event loops must not stall on a force, so this mode cannot be combined with it.
+ * </p>
+ * <p>
+ * The segments of a stripe are sealed together with the storage swapped out for flushing, and are reset and
+ * reused once the flusher has persisted them. The segments of a failed flush are kept as pending: the sync
+ * thread forces them like the others, and the flusher writes them again through {@link #retryPending(Consumer)}
+ * once the database is back, after which they are reused. On startup, the segments left over from the previous
+ * run, pending ones included, are replayed; inserts ignore duplicates, so replaying readings that were already
+ * persisted is harmless.
+ * </p>
+ * <p>
+ * At most {@code sensors.wal.max-pending-segments} segments are kept pending. Once the limit is reached the log
+ * is backlogged and the {@link SensorDataBuffer} rejects new readings, so the segment files stop growing while
+ * the database is down instead of filling the disk until a new segment cannot be created.
+ * </p>
+ */
+@Component
+@Slf4j
+public class SensorDataWal {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final AtomicLong segmentSequence = new AtomicLong();
+    private final Queue<WalSegment> freeSegments = new ConcurrentLinkedQueue<>();
+    private final Queue<WalSegment> releasedSegments = new ConcurrentLinkedQueue<>();
+    private final Queue<WalSegment> pendingSegments = new ConcurrentLinkedQueue<>();
+    private final List<StripeLog> stripeLogs = new CopyOnWriteArrayList<>();
+    private final Semaphore syncRequests = new Semaphore(0);
+    private volatile boolean running = true;
+    private List<Path> recoveredSegments = List.of();
+    private Path directory;
+    private Thread syncThread;
+
+    @Value("${sensors.wal.enabled}")
+    private boolean ENABLED;
+    @Value("${sensors.wal.directory}")
+    private String DIRECTORY;
+    @Value("${sensors.wal.segment-size}")
+    private int SEGMENT_SIZE;
+    @Value("${sensors.wal.sync}")
+    private WalSyncMode SYNC_MODE;
+    @Value("${sensors.wal.sync-interval}")
+    private long SYNC_INTERVAL_MILLIS;
+    @Value("${sensors.wal.max-pending-segments}")
+    private int MAX_PENDING_SEGMENTS;
+    @Value("${sensors.socket.enabled}")
+    private boolean SOCKET_ENABLED;
+
+
+    /**
+     * Creates the WAL directory, collects the segments left over from the previous run
+     * and starts the sync thread.
+     *
+     * @throws IOException           if the directory cannot be created or listed
+     * @throws IllegalStateException if the {@link WalSyncMode#GROUP} mode is combined with the socket listener,
+     *                               whose event loops must not wait for a force
+     */
+    @PostConstruct
+    public void initializeWal() throws IOException {
+        if (!ENABLED) {
+            return;
+        }
+        if (SYNC_MODE == WalSyncMode.GROUP && SOCKET_ENABLED) {
+            throw new IllegalStateException("sensors.wal.sync=GROUP cannot be used with sensors.socket.enabled");
+        }
+        directory = Path.of(DIRECTORY);
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            recoveredSegments = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        segmentSequence.set(recoveredSegments.stream().mapToLong(SensorDataWal::sequenceOf).max().orElse(0));
+        syncThread = new CustomizableThreadFactory("sensor-wal-sync-").newThread(this::runSyncLoop);
+        syncThread.start();
+        log.info("Opened sensor data WAL in {} with sync mode {}, {} segments to replay",
+                directory.toAbsolutePath(), SYNC_MODE, recoveredSegments.size());
+    }
+
+
+    /**
+     * Stops the sync thread and forces all segments to disk.
+     */
+    @PreDestroy
+    public void shutdownWal() throws InterruptedException {
+        if (syncThread == null) {
+            return;
+        }
+        running = false;
+        syncRequests.release();
+        syncThread.join(TimeUnit.SECONDS.toMillis(1));
+        for (StripeLog stripeLog : stripeLogs) {
+            stripeLog.sync(true);
+        }
+        forcePending();
+    }
+
+
+    /**
+     * @return {@code true} if the WAL is enabled
+     */
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+
+    /**
+     * Replays the segments left over from the previous run. Every segment is passed to the writer as a whole
+     * and deleted once the writer returns; if the writer throws, the remaining segments are kept for the
+     * next startup.
+     *
+     * @param writer the writer persisting the readings of a segment
+     * @return the number of replayed readings
+     * @throws UncheckedIOException if a segment cannot be read or deleted
+     */
+    public long replay(Consumer<SensorDataColumns> writer) {
+        long replayed = 0;
+        for (Path path : recoveredSegments) {
+            try {
+                SensorDataColumns columns = new SensorDataColumns((int) (Files.size(path) / WalSegment.RECORD_SIZE));
+                WalSegment.read(path, columns::add);
+                if (columns.size() > 0) {
+                    writer.accept(columns);
+                }
+                Files.delete(path);
+                replayed += columns.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        recoveredSegments = List.of();
+        return replayed;
+    }
+
+
+    /**
+     * Writes the readings of the segments of failed flushes again, oldest first. A segment is reused once the
+     * writer returns; if the writer throws, it and the segments after it stay pending for the next retry.
+     *
+     * @param writer the writer persisting the readings of a segment
+     * @return the number of written readings
+     * @throws UncheckedIOException if a segment cannot be read
+     */
+    public long retryPending(Consumer<SensorDataColumns> writer) {
+        long retried = 0;
+        WalSegment segment;
+        while ((segment = pendingSegments.peek()) != null) {
+            SensorDataColumns columns = new SensorDataColumns(segment.written() / WalSegment.RECORD_SIZE);
+            try {
+                WalSegment.read(segment.path(), columns::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (columns.size() > 0) {
+                writer.accept(columns);
+            }
+            pendingSegments.remove();
+            releasedSegments.add(segment);
+            retried += columns.size();
+        }
+        return retried;
+    }
+
+
+    /**
+     * @return the number of segments of failed flushes waiting to be written again
+     */
+    public int pendingSegments() {
+        return pendingSegments.size();
+    }
+
+
+    /**
+     * @return {@code true} if the segments of failed flushes reached {@code sensors.wal.max-pending-segments},
+     * so that no new readings should be accepted
+     */
+    public boolean isBacklogged() {
+        return ENABLED && pendingSegments.size() >= MAX_PENDING_SEGMENTS;
+    }
+
+
+    /**
+     * Opens the log of a buffer stripe.
+     *
+     * @return the stripe log
+     */
+    StripeLog openStripeLog() {
+        StripeLog stripeLog = new StripeLog();
+        stripeLogs.add(stripeLog);
+        return stripeLog;
+    }
+
+
+    /**
+     * Syncs every {@code sensors.wal.sync-interval} milliseconds, or as soon as a thread waits for a force.
+     */
+    private void runSyncLoop() {
+        while (running) {
+            try {
+                syncRequests.tryAcquire(SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                syncRequests.drainPermits();
+                sync();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+
+    /**
+     * Resets released segments for reuse and forces dirty segments to disk. Runs on the sync thread only,
+     * so a segment is never reset while it is being forced.
+     */
+    private void sync() {
+        try {
+            WalSegment segment;
+            while ((segment = releasedSegments.poll()) != null) {
+                segment.reset();
+                freeSegments.add(segment);
+            }
+            for (StripeLog stripeLog : stripeLogs) {
+                stripeLog.sync(SYNC_MODE != WalSyncMode.NONE);
+            }
+            if (SYNC_MODE != WalSyncMode.NONE) {
+                forcePending();
+            }
+        } catch (RuntimeException e) {
+            log.error("Error syncing sensor data WAL: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Forces the part of the pending segments not forced yet to disk; pending segments are not appended to.
+     */
+    private void forcePending() {
+        for (WalSegment segment : pendingSegments) {
+            segment.force(segment.written());
+        }
+    }
+
+
+    private WalSegment acquireSegment() {
+        WalSegment segment = freeSegments.poll();
+        if (segment != null) {
+            return segment;
+        }
+        Path path = directory.resolve(String.format("%s%016d%s",
+                SEGMENT_PREFIX, segmentSequence.incrementAndGet(), SEGMENT_SUFFIX));
+        try {
+            return WalSegment.create(path, SEGMENT_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+
+    /**
+     * The log of a single buffer stripe: the segments receiving its readings, the segments sealed with
+     * the storage being flushed, and the number of appended and forced readings.
+     * <p>
+     * The stripe calls {@link #append}, {@link #seal()} and {@link #release(boolean)} while holding its own
+     * lock; the log lock only guards against the sync thread, and waiting for a force happens outside the
+     * stripe lock.
+     * </p>
+     */
+    final class StripeLog {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition forced = lock.newCondition();
+        private List<WalSegment> segments = new ArrayList<>();
+        private List<WalSegment> sealed = List.of();
+        private WalSegment current;
+        private long appended;
+        private long synced;
+
+        private StripeLog() {}
+
+
+        /**
+         * Appends a reading.
+         *
+         * @return the ticket to pass to {@link #awaitDurable(long)}
+         * @throws UncheckedIOException if a new segment cannot be created
+         */
+        long append(long id, long timestamp, FaceDirection face, double temperature) {
+            lock.lock();
+            try {
+                if (current == null || !current.hasRemaining()) {
+                    current = acquireSegment();
+                    segments.add(current);
+                }
+                current.append(id, timestamp, face, temperature);
+                return ++appended;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+
+        /**
+         * Seals the segments holding the readings swapped out for flushing; new readings go to new segments.
+         */
+        void seal() {
+            lock.lock();
+            try {
+                sealed = segments;
+                segments = new ArrayList<>();
+                current = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+
+        /**
+         * Releases the sealed segments once their readings were flushed. Persisted segments are reused,
+         * the others are kept pending until {@link #retryPending(Consumer)} writes them.
+         *
+         * @param persisted whether all readings of the sealed segments were persisted
+         */
+        void release(boolean persisted) {
+            lock.lock();
+            try {
+                if (persisted) {
+                    releasedSegments.addAll(sealed);
+                } else if (!sealed.isEmpty()) {
+                    pendingSegments.addAll(sealed);
+                    log.warn("Keeping {} WAL segments of a failed flush for retry, {} pending of at most {}",
+                            sealed.size(), pendingSegments.size(), MAX_PENDING_SEGMENTS);
+                }
+                sealed = List.of();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+
+        /**
+         * Waits until the reading with the given ticket is forced to disk, if the sync mode requires it.
+         *
+         * @param ticket the ticket returned by {@link #append}
+         */
+        void awaitDurable(long ticket) {
+            if (SYNC_MODE != WalSyncMode.GROUP) {
+                return;
+            }
+            lock.lock();
+            try {
+                if (synced < ticket) {
+                    syncRequests.release();
+                }
+                while (synced < ticket) {
+                    forced.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+
+        /**
+         * Forces the written part of all segments to disk and wakes up the threads waiting for it.
+         *
+         * @param force whether to force the segments; otherwise waiting threads are released only
+         */
+        private void sync(boolean force) {
+            List<WalSegment> dirty;
+            int[] written;
+            long snapshot;
+            lock.lock();
+            try {
+                if (synced == appended) {
+                    return;
+                }
+                dirty = new ArrayList<>(sealed.size() + segments.size());
+                dirty.addAll(sealed);
+                dirty.addAll(segments);
+                written = new int[dirty.size()];
+                for (int i = 0; i < written.length; i++) {
+                    written[i] = dirty.get(i).written();
+                }
+                snapshot = appended;
+            } finally {
+                lock.unlock();
+            }
+            if (force) {
+                for (int i = 0; i < written.length; i++) {
+                    dirty.get(i).force(written[i]);
+                }
+            }
+            lock.lock();
+            try {
+                synced = snapshot;
+                forced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
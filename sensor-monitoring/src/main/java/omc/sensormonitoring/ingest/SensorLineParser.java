@@ -0,0 +1,224 @@
+package omc.sensormonitoring.ingest;
+
+import omc.sensormonitoring.model.FaceDirection;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte-level parser for the plain text line protocol of sensor readings.
+ * <p>
+ * Every reading is a single ASCII line of four comma-separated fields terminated by {@code \n}
+ * (an optional {@code \r} before it is ignored):
+ * </p>
+ * <pre>
+ * id,timestamp,face,temperature
+ * 17,1700000000000,NORTH,21.5
+ * </pre>
+ * <p>
+ * The face direction is the name of a {@link FaceDirection} and the temperature is a decimal number
+ * without exponent. Lines are parsed straight from the buffer into primitives and passed to a
+ * {@link SensorReadingConsumer}, so no object is created per line. Blank lines are ignored and
+ * malformed lines are counted and skipped.
+ * </p>
+ * <p>
+ * Instances keep the parsing cursor in fields and are not thread-safe; each event loop owns its own parser.
+ * </p>
+ */
+public final class SensorLineParser {
+    private static final byte SEPARATOR = ',';
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final int MAX_DIGITS = 18;
+    private static final FaceDirection[] FACES = FaceDirection.values();
+    private static final byte[][] FACE_NAMES = new byte[FACES.length][];
+    private static final double[] POWERS_OF_TEN = new double[MAX_DIGITS + 1];
+
+    static {
+        for (int i = 0; i < FACES.length; i++) {
+            FACE_NAMES[i] = FACES[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private ByteBuffer buffer;
+    private int cursor;
+    private int end;
+    private boolean malformed;
+
+
+    /**
+     * Parses all complete lines between the buffer's position and limit and passes them to the consumer.
+     * The buffer's position is moved to the start of the first incomplete line, or to the limit
+     * if the input ends with a line terminator or {@code endOfInput} is set.
+     *
+     * @param buffer     the buffer holding the lines
+     * @param consumer   the consumer receiving the decoded readings
+     * @param endOfInput whether a trailing line without terminator is complete, e.g. the last line of a datagram
+     * @return the number of malformed lines
+     */
+    public long decode(ByteBuffer buffer, SensorReadingConsumer consumer, boolean endOfInput) {
+        this.buffer = buffer;
+        long rejected = 0;
+        int start = buffer.position();
+        int limit = buffer.limit();
+        for (int i = start; i < limit; i++) {
+            if (buffer.get(i) == NEW_LINE) {
+                rejected += decodeLine(start, i, consumer) ? 0 : 1;
+                start = i + 1;
+            }
+        }
+        if (endOfInput && start < limit) {
+            rejected += decodeLine(start, limit, consumer) ? 0 : 1;
+            start = limit;
+        }
+        buffer.position(start);
+        this.buffer = null;
+        return rejected;
+    }
+
+
+    /**
+     * Decodes a single line and passes the reading to the consumer.
+     *
+     * @param start the index of the first byte of the line
+     * @param end   the index of the line terminator, exclusive
+     * @return {@code false} if the line is malformed
+     */
+    private boolean decodeLine(int start, int end, SensorReadingConsumer consumer) {
+        if (end > start && buffer.get(end - 1) == CARRIAGE_RETURN) {
+            end--;
+        }
+        if (end == start) {
+            return true;
+        }
+        this.cursor = start;
+        this.end = end;
+        this.malformed = false;
+        long id = parseLong();
+        long timestamp = parseLong();
+        FaceDirection face = parseFace();
+        double temperature = parseDecimal();
+        if (malformed || cursor != end + 1) {
+            return false;
+        }
+        consumer.accept(id, timestamp, face, temperature);
+        return true;
+    }
+
+
+    /**
+     * Parses an optionally signed integer field and skips the following separator.
+     */
+    private long parseLong() {
+        boolean negative = skipSign();
+        int digitsStart = cursor;
+        long value = 0;
+        while (cursor < end && isDigit(buffer.get(cursor))) {
+            value = value * 10 + (buffer.get(cursor++) - '0');
+        }
+        checkDigits(cursor - digitsStart);
+        skipSeparator();
+        return negative ? -value : value;
+    }
+
+
+    /**
+     * Parses a face direction name and skips the following separator.
+     */
+    private FaceDirection parseFace() {
+        int nameStart = cursor;
+        while (cursor < end && buffer.get(cursor) != SEPARATOR) {
+            cursor++;
+        }
+        FaceDirection face = matchFace(nameStart, cursor - nameStart);
+        if (face == null) {
+            malformed = true;
+        }
+        skipSeparator();
+        return face;
+    }
+
+
+    /**
+     * Parses an optionally signed decimal number without exponent and skips the following separator.
+     * The value is computed from the integer mantissa and the number of fraction digits. The result is
+     * correctly rounded for up to 15 digits, where the mantissa is exact as a double; longer numbers of
+     * up to {@value #MAX_DIGITS} digits are rounded twice and may be off by one unit in the last place.
+     */
+    private double parseDecimal() {
+        boolean negative = skipSign();
+        int digitsStart = cursor;
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        while (cursor < end) {
+            byte b = buffer.get(cursor);
+            if (isDigit(b)) {
+                mantissa = mantissa * 10 + (b - '0');
+                fractionDigits += fraction ? 1 : 0;
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+            cursor++;
+        }
+        checkDigits(cursor - digitsStart - (fraction ? 1 : 0));
+        skipSeparator();
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+
+    private FaceDirection matchFace(int start, int length) {
+        for (int i = 0; i < FACE_NAMES.length; i++) {
+            byte[] name = FACE_NAMES[i];
+            if (name.length != length) {
+                continue;
+            }
+            int j = 0;
+            while (j < length && buffer.get(start + j) == name[j]) {
+                j++;
+            }
+            if (j == length) {
+                return FACES[i];
+            }
+        }
+        return null;
+    }
+
+
+    private boolean skipSign() {
+        if (cursor < end && buffer.get(cursor) == '-') {
+            cursor++;
+            return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * Moves the cursor past the separator after a field, or past the end of the line after the last field.
+     */
+    private void skipSeparator() {
+        if (cursor < end && buffer.get(cursor) != SEPARATOR) {
+            malformed = true;
+        }
+        cursor++;
+    }
+
+
+    private void checkDigits(int digits) {
+        if (digits == 0 || digits > MAX_DIGITS) {
+            malformed = true;
+        }
+    }
+
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
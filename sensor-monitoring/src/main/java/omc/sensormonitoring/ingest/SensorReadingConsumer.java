@@ -0,0 +1,21 @@
+package omc.sensormonitoring.ingest;
+
+import omc.sensormonitoring.model.FaceDirection;
+
+/**
+ * Functional interface for consuming a single decoded sensor reading as primitive values,
+ * without allocating an intermediate object per reading or per field.
+ */
+@FunctionalInterface
+public interface SensorReadingConsumer {
+
+    /**
+     * Consumes a single sensor reading.
+     *
+     * @param id          the unique identifier of the sensor
+     * @param timestamp   the timestamp of the reading (in milliseconds since epoch)
+     * @param face        the face direction of the sensor
+     * @param temperature the temperature recorded by the sensor
+     */
+    void accept(long id, long timestamp, FaceDirection face, double temperature);
+}
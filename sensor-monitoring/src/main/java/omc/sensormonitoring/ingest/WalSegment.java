@@ -0,0 +1,128 @@
+package omc.sensormonitoring.ingest;
+
+import omc.sensormonitoring.model.FaceDirection;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * A fixed-size segment file of the {@link SensorDataWal}, mapped into memory.
+ * <p>
+ * A record is a marker byte followed by a record of the {@link SensorDataBinaryCodec} format. The marker is
+ * written after the record body, so a reader stops at the first record whose marker is not set. Segments are
+ * reset and reused once their readings are persisted, so the mapping and the file are created only once.
+ * </p>
+ */
+final class WalSegment {
+    static final int RECORD_SIZE = 1 + SensorDataBinaryCodec.RECORD_SIZE;
+    private static final byte RECORD_MARKER = 1;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private int forced;
+
+    private WalSegment(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+
+    /**
+     * Creates a new segment file of the given size and maps it into memory.
+     *
+     * @param path the path of the new segment file
+     * @param size the size of the segment in bytes
+     * @return the segment
+     * @throws IOException if the file cannot be created or mapped
+     */
+    static WalSegment create(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new WalSegment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+
+    /**
+     * Reads the records of a segment file and passes them to the consumer.
+     *
+     * @param path     the path of the segment file
+     * @param consumer the consumer receiving the readings
+     * @return the number of readings
+     * @throws IOException if the file cannot be mapped
+     */
+    static int read(Path path, SensorReadingConsumer consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int count = 0;
+        int offset = 0;
+        while (offset + RECORD_SIZE <= buffer.limit() && buffer.get(offset) == RECORD_MARKER) {
+            SensorDataBinaryCodec.decode(buffer.slice(offset + 1, SensorDataBinaryCodec.RECORD_SIZE), consumer);
+            offset += RECORD_SIZE;
+            count++;
+        }
+        return count;
+    }
+
+
+    Path path() {
+        return path;
+    }
+
+
+    /**
+     * @return {@code true} if another record fits into the segment
+     */
+    boolean hasRemaining() {
+        return buffer.remaining() >= RECORD_SIZE;
+    }
+
+
+    /**
+     * @return the number of bytes written to the segment
+     */
+    int written() {
+        return buffer.position();
+    }
+
+
+    /**
+     * Appends a reading. Appends must not run concurrently.
+     */
+    void append(long id, long timestamp, FaceDirection face, double temperature) {
+        int offset = buffer.position();
+        buffer.position(offset + 1);
+        SensorDataBinaryCodec.encode(buffer, id, timestamp, face, temperature);
+        buffer.put(offset, RECORD_MARKER);
+    }
+
+
+    /**
+     * Forces the bytes written up to the given position and not forced yet to disk.
+     * May run concurrently with appends beyond that position.
+     *
+     * @param written the position returned by {@link #written()}
+     */
+    void force(int written) {
+        if (written > forced) {
+            buffer.force(forced, written - forced);
+            forced = written;
+        }
+    }
+
+
+    /**
+     * Clears the written records, so that the segment can be reused.
+     */
+    void reset() {
+        int written = buffer.position();
+        for (int offset = 0; offset < written; offset += RECORD_SIZE) {
+            buffer.put(offset, (byte) 0);
+        }
+        buffer.position(0);
+        forced = 0;
+    }
+}
@@ -0,0 +1,22 @@
+package omc.sensormonitoring.ingest;
+
+/**
+ * Enum representing when the {@link SensorDataWal} forces appended readings to disk.
+ */
+public enum WalSyncMode {
+    /**
+     * Never forces; readings survive a crash of the process but not of the operating system.
+     */
+    NONE,
+
+    /**
+     * Forces dirty segments periodically without delaying acknowledgements.
+     */
+    PERIODIC,
+
+    /**
+     * Forces dirty segments periodically and acknowledges readings only once they are forced,
+     * so that one force commits all readings appended since the previous one.
+     */
+    GROUP
+}
@@ -0,0 +1,336 @@
+package omc.sensormonitoring.listener;
+
+import jakarta.annotation.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.ingest.*;
+import omc.sensormonitoring.model.FaceDirection;
+import omc.sensormonitoring.service.SensorService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Raw socket listener for devices that cannot afford an HTTP stack.
+ * <p>
+ * When {@code sensors.socket.enabled} is set, the listener accepts readings in the configured
+ * {@link SocketProtocol} over TCP and UDP on {@code sensors.socket.port}. It runs one non-blocking event loop
+ * per core (or {@code sensors.socket.event-loops}); accepted TCP connections are spread over the loops
+ * round-robin, and UDP datagrams are received by the first loop. Each connection reads into a direct buffer
+ * taken from a per-loop pool and given back when the connection closes; a TCP stream may split a reading
+ * across reads, and each datagram must hold whole readings.
+ * </p>
+ * <p>
+ * Decoded readings go to {@link SensorService#saveSensorData(long, long, FaceDirection, double)}, the same
+ * pipeline as the HTTP endpoints. There is no response channel: malformed readings are skipped and readings
+ * rejected by a full buffer are only counted in the buffer statistics. With the {@code BLOCK} overflow policy
+ * an event loop waits for free buffer space like an HTTP request thread does.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "sensors.socket.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SensorSocketListener {
+    private static final int DATAGRAM_BUFFER_SIZE = 65536;
+    private static final int MAX_POOLED_BUFFERS = 64;
+
+    private final SensorService sensorService;
+    private final SensorReadingConsumer readingConsumer = this::saveSensorData;
+    private final AtomicInteger nextEventLoop = new AtomicInteger();
+    private volatile boolean running = true;
+    private ServerSocketChannel serverChannel;
+    private DatagramChannel datagramChannel;
+    private EventLoop[] eventLoops;
+
+    @Value("${sensors.socket.port}")
+    private int PORT;
+    @Value("${sensors.socket.protocol}")
+    private SocketProtocol PROTOCOL;
+    @Value("${sensors.socket.event-loops}")
+    private int EVENT_LOOPS;
+    @Value("${sensors.socket.buffer-size}")
+    private int BUFFER_SIZE;
+
+
+    /**
+     * Binds the TCP and UDP channels and starts the event loops.
+     *
+     * @throws IOException if the channels cannot be opened or bound
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        int loops = EVENT_LOOPS > 0 ? EVENT_LOOPS : Runtime.getRuntime().availableProcessors();
+        eventLoops = new EventLoop[loops];
+        for (int i = 0; i < loops; i++) {
+            eventLoops[i] = new EventLoop();
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(PORT));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(eventLoops[0].selector, SelectionKey.OP_ACCEPT);
+        datagramChannel = DatagramChannel.open();
+        datagramChannel.bind(new InetSocketAddress(PORT));
+        datagramChannel.configureBlocking(false);
+        datagramChannel.register(eventLoops[0].selector, SelectionKey.OP_READ);
+        for (int i = 0; i < loops; i++) {
+            eventLoops[i].thread = new Thread(eventLoops[i], "sensor-socket-" + i);
+            eventLoops[i].thread.start();
+        }
+        log.info("Listening for {} sensor data on TCP and UDP port {} with {} event loops", PROTOCOL, PORT, loops);
+    }
+
+
+    /**
+     * Stops the event loops and closes all channels.
+     */
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.selector.wakeup();
+        }
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.thread.join(1000);
+        }
+        serverChannel.close();
+        datagramChannel.close();
+    }
+
+
+    /**
+     * Saves a decoded reading. Readings rejected by a full buffer are dropped, they are
+     * counted by the buffer itself.
+     */
+    private void saveSensorData(long id, long timestamp, FaceDirection face, double temperature) {
+        try {
+            sensorService.saveSensorData(id, timestamp, face, temperature);
+        } catch (SensorBufferFullException e) {
+            log.trace("Sensor data from socket rejected: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * The read state of a TCP connection.
+     */
+    private static final class Connection {
+        private final ByteBuffer buffer;
+        private boolean discarding;
+
+        private Connection(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+
+    /**
+     * A selector thread serving its share of the TCP connections, and for the first loop
+     * also the accepting channel and the UDP channel.
+     */
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<SocketChannel> acceptedChannels = new ConcurrentLinkedQueue<>();
+        private final Deque<ByteBuffer> bufferPool = new ArrayDeque<>();
+        private final ByteBuffer datagramBuffer = ByteBuffer.allocateDirect(DATAGRAM_BUFFER_SIZE);
+        private final SensorLineParser lineParser = new SensorLineParser();
+        private Thread thread;
+
+        private EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isValid()) {
+                            handle(key);
+                        }
+                    }
+                    registerAcceptedChannels();
+                } catch (IOException e) {
+                    log.error("Error in sensor socket event loop: {}", e.getMessage());
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.channel() instanceof SocketChannel) {
+                    close(key);
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.error("Error closing sensor socket selector: {}", e.getMessage());
+            }
+        }
+
+
+        private void handle(SelectionKey key) {
+            try {
+                if (key.isAcceptable()) {
+                    accept();
+                } else if (key.channel() == datagramChannel) {
+                    receive();
+                } else {
+                    read(key);
+                }
+            } catch (IOException e) {
+                if (key.channel() instanceof SocketChannel) {
+                    log.debug("Closing sensor socket connection: {}", e.getMessage());
+                    close(key);
+                } else {
+                    log.error("Error handling sensor socket channel: {}", e.getMessage());
+                }
+            }
+        }
+
+
+        /**
+         * Accepts pending connections and hands them to the event loops round-robin.
+         */
+        private void accept() throws IOException {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                EventLoop target = eventLoops[Math.floorMod(nextEventLoop.getAndIncrement(), eventLoops.length)];
+                target.acceptedChannels.add(channel);
+                if (target != this) {
+                    target.selector.wakeup();
+                }
+            }
+        }
+
+
+        private void registerAcceptedChannels() {
+            SocketChannel channel;
+            while ((channel = acceptedChannels.poll()) != null) {
+                try {
+                    channel.register(selector, SelectionKey.OP_READ, new Connection(acquireBuffer()));
+                } catch (ClosedChannelException e) {
+                    log.debug("Sensor socket connection closed before registration");
+                }
+            }
+        }
+
+
+        /**
+         * Receives all pending datagrams; every datagram is decoded as complete input.
+         */
+        private void receive() throws IOException {
+            while (true) {
+                datagramBuffer.clear();
+                if (datagramChannel.receive(datagramBuffer) == null) {
+                    return;
+                }
+                datagramBuffer.flip();
+                long malformed = decode(datagramBuffer, true);
+                if (malformed > 0) {
+                    log.debug("Skipped {} malformed sensor readings in datagram", malformed);
+                }
+            }
+        }
+
+
+        /**
+         * Reads from a TCP connection and decodes all complete readings. An incomplete reading stays
+         * in the buffer until the next read; a line that does not fit in the buffer is skipped.
+         */
+        private void read(SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection connection = (Connection) key.attachment();
+            ByteBuffer buffer = connection.buffer;
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (connection.discarding) {
+                connection.discarding = !skipLine(buffer);
+            }
+            long malformed = decode(buffer, read < 0);
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                connection.discarding = true;
+                malformed++;
+            }
+            if (malformed > 0) {
+                log.debug("Skipped {} malformed sensor readings from {}", malformed, channel.getRemoteAddress());
+            }
+            if (read < 0) {
+                close(key);
+            }
+        }
+
+
+        /**
+         * Decodes all complete readings between the buffer's position and limit.
+         *
+         * @param buffer     the received bytes
+         * @param endOfInput whether no more bytes follow, so that a trailing incomplete reading is malformed
+         * @return the number of malformed readings
+         */
+        private long decode(ByteBuffer buffer, boolean endOfInput) {
+            if (PROTOCOL == SocketProtocol.LINE) {
+                return lineParser.decode(buffer, readingConsumer, endOfInput);
+            }
+            int limit = buffer.limit();
+            int remainder = buffer.remaining() % SensorDataBinaryCodec.RECORD_SIZE;
+            buffer.limit(limit - remainder);
+            long malformed = SensorDataBinaryCodec.decode(buffer, readingConsumer).rejected();
+            buffer.limit(limit);
+            if (endOfInput && remainder > 0) {
+                buffer.position(limit);
+                malformed++;
+            }
+            return malformed;
+        }
+
+
+        /**
+         * Skips the bytes up to and including the next line terminator.
+         *
+         * @return {@code true} if the terminator was found
+         */
+        private boolean skipLine(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                if (buffer.get() == '\n') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+
+        private ByteBuffer acquireBuffer() {
+            ByteBuffer buffer = bufferPool.poll();
+            return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+
+        private void close(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                log.debug("Error closing sensor socket connection: {}", e.getMessage());
+            }
+            ByteBuffer buffer = ((Connection) key.attachment()).buffer;
+            buffer.clear();
+            if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+                bufferPool.add(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package omc.sensormonitoring.listener;
+
+import omc.sensormonitoring.ingest.*;
+
+/**
+ * Enum representing the wire protocol accepted by the {@link SensorSocketListener}.
+ */
+public enum SocketProtocol {
+    /**
+     * Plain text lines {@code id,timestamp,face,temperature}, see {@link SensorLineParser}.
+     */
+    LINE,
+
+    /**
+     * Fixed-width binary records, see {@link SensorDataBinaryCodec}.
+     */
+    BINARY
+}
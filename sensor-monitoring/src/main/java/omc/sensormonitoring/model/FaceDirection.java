@@ -10,6 +10,10 @@ package omc.sensormonitoring.model;
  *   <li>{@link #NORTH}</li>
  *   <li>{@link #WEST}</li>
  * </ul>
+ *
+ * <p>The ordinal of a direction is persisted: it is the {@code face} column of {@code sensor_avg_data}, the face
+ * byte of binary ingest records and of write-ahead log segments. Only append new directions; reordering or
+ * removing one silently changes the direction of the stored history and of unreplayed log records.</p>
  */
 public enum FaceDirection {
     /**
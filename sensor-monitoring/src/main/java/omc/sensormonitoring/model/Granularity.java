@@ -0,0 +1,49 @@
+package omc.sensormonitoring.model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enum representing the length of the buckets the hourly face averages are grouped into.
+ *
+ * <p>Buckets are aligned in UTC; weeks start on Monday.</p>
+ */
+public enum Granularity {
+    /**
+     * Represents buckets of one hour.
+     */
+    HOUR(TimeUnit.HOURS.toMillis(1), 0),
+
+    /**
+     * Represents buckets of one day.
+     */
+    DAY(TimeUnit.DAYS.toMillis(1), 0),
+
+    /**
+     * Represents buckets of one week, starting on Monday (the epoch started on a Thursday).
+     */
+    WEEK(TimeUnit.DAYS.toMillis(7), TimeUnit.DAYS.toMillis(4));
+
+    private final long length;
+    private final long offset;
+
+    Granularity(long length, long offset) {
+        this.length = length;
+        this.offset = offset;
+    }
+
+
+    /**
+     * @return the length of a bucket (in milliseconds)
+     */
+    public long getLength() {
+        return length;
+    }
+
+
+    /**
+     * @return the start of the first bucket after the epoch (in milliseconds since epoch)
+     */
+    public long getOffset() {
+        return offset;
+    }
+}
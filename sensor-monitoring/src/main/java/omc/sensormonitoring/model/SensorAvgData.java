@@ -0,0 +1,67 @@
+package omc.sensormonitoring.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import omc.sensormonitoring.model.composed.SensorDataId;
+
+/**
+ * Represents the temperature statistics of a single sensor within one hour.
+ * <p>
+ * This entity is mapped to the database table and uses the composite primary key defined by the
+ * {@link SensorDataId} class, so the history of a sensor is read by a range scan of the primary key index
+ * on {@code (id, timestamp)}. One row is stored for every sensor and hour, so the row is kept compact:
+ * the face direction is stored as its ordinal, so {@link FaceDirection} must not be reordered. The index on
+ * {@code timestamp} serves the deletion of the hours past the retention.
+ * </p>
+ */
+@Entity
+@ToString
+@RequiredArgsConstructor
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@IdClass(SensorDataId.class)
+@Table(indexes = @Index(name = "sensor_avg_data_timestamp_idx", columnList = "timestamp"))
+public class SensorAvgData {
+
+    /**
+     * The unique identifier of the sensor.
+     * This field is part of the composite primary key.
+     */
+    @Id
+    private Long id;
+
+    /**
+     * The end of the hour in milliseconds since epoch, matching the timestamp of {@link SensorFaceData}.
+     * This field is part of the composite primary key.
+     */
+    @Id
+    private long timestamp;
+
+    /**
+     * The face direction of the latest reading of the sensor within the hour.
+     */
+    @Enumerated(EnumType.ORDINAL)
+    private FaceDirection face;
+
+    /**
+     * The number of readings of the sensor within the hour.
+     */
+    private int readings;
+
+    /**
+     * The average temperature of the sensor within the hour, rounded to two decimals.
+     */
+    private double temperature;
+
+    /**
+     * The lowest temperature of the sensor within the hour.
+     */
+    private double minTemperature;
+
+    /**
+     * The highest temperature of the sensor within the hour.
+     */
+    private double maxTemperature;
+}
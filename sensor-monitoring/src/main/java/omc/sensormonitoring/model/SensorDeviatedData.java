@@ -14,6 +14,9 @@ import omc.sensormonitoring.model.composed.SensorDataId;
  * predefined thresholds, including the sensor's identification, timestamp of the reading,
  * face direction, and the temperature measured.
  * </p>
+ * <p>
+ * The index on {@code (timestamp, id)} serves the keyset pagination of the records, newest first.
+ * </p>
  */
 @Entity
 @ToString
@@ -23,6 +26,7 @@ import omc.sensormonitoring.model.composed.SensorDataId;
 @Builder
 @AllArgsConstructor
 @IdClass(SensorDataId.class)
+@Table(indexes = @Index(name = "sensor_deviated_data_timestamp_id_idx", columnList = "timestamp, id"))
 public class SensorDeviatedData {
 
     /**
@@ -13,6 +13,10 @@ import omc.sensormonitoring.model.composed.SensorFaceId;
  * the average temperature measured by a sensor, categorized by its face direction
  * and the timestamp of the measurement.
  * </p>
+ * <p>
+ * The face direction, timestamp and temperature are also indexed together, so that aggregations of a time range
+ * are answered from the index alone, with or without a face direction filter.
+ * </p>
  */
 @Entity
 @ToString
@@ -22,6 +26,7 @@ import omc.sensormonitoring.model.composed.SensorFaceId;
 @Builder
 @AllArgsConstructor
 @IdClass(SensorFaceId.class)
+@Table(indexes = @Index(name = "sensor_face_data_face_timestamp_idx", columnList = "face, timestamp, temperature"))
 public class SensorFaceData {
 
     /**
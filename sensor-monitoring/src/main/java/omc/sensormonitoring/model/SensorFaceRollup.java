@@ -0,0 +1,75 @@
+package omc.sensormonitoring.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import omc.sensormonitoring.model.composed.SensorFaceRollupId;
+
+/**
+ * Represents the temperature statistics of all readings of a face direction within one bucket
+ * of a rollup tier.
+ * <p>
+ * This entity is mapped to the database table and uses a composite primary key defined by the
+ * {@link SensorFaceRollupId} class. Unlike {@link SensorFaceData}, which averages the hourly sensor averages,
+ * a rollup keeps the sum and the number of readings, so that the buckets of a tier can be merged
+ * into a bucket of the next coarser tier.
+ * </p>
+ */
+@Entity
+@ToString
+@RequiredArgsConstructor
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@IdClass(SensorFaceRollupId.class)
+public class SensorFaceRollup {
+
+    /**
+     * The length of the bucket in milliseconds, identifying the rollup tier.
+     * This field is part of the composite primary key.
+     */
+    @Id
+    private long resolution;
+
+    /**
+     * The start of the bucket in milliseconds since epoch.
+     * This field is part of the composite primary key.
+     */
+    @Id
+    private long timestamp;
+
+    /**
+     * The face direction of the sensors.
+     * This field is part of the composite primary key.
+     */
+    @Id
+    @Enumerated(EnumType.STRING)
+    private FaceDirection face;
+
+    /**
+     * The number of readings within the bucket.
+     */
+    private long readings;
+
+    /**
+     * The sum of the temperatures of the readings.
+     */
+    private double temperatureSum;
+
+    /**
+     * The lowest temperature within the bucket.
+     */
+    private double minTemperature;
+
+    /**
+     * The highest temperature within the bucket.
+     */
+    private double maxTemperature;
+
+    /**
+     * @return the average temperature of the readings within the bucket, rounded to two decimals
+     */
+    public double getAverageTemperature() {
+        return readings == 0 ? 0 : Math.round(temperatureSum / readings * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,53 @@
+package omc.sensormonitoring.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import omc.sensormonitoring.aggregation.QuantileSketch;
+import omc.sensormonitoring.model.composed.SensorFaceId;
+
+/**
+ * Represents the distribution of all temperature readings of a face direction within one hour,
+ * stored next to the hourly average of {@link SensorFaceData}.
+ * <p>
+ * This entity is mapped to the database table and uses the composite primary key defined by the
+ * {@link SensorFaceId} class. The readings are kept as a serialized {@link QuantileSketch}, so the sketches of
+ * any number of hours can be merged to estimate percentiles over a time range without the raw readings.
+ * </p>
+ */
+@Entity
+@ToString
+@RequiredArgsConstructor
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@IdClass(SensorFaceId.class)
+public class SensorFaceSketch {
+
+    /**
+     * The end of the hour in milliseconds since epoch, matching the timestamp of {@link SensorFaceData}.
+     * This field is part of the composite primary key.
+     */
+    @Id
+    private long timestamp;
+
+    /**
+     * The face direction of the sensors.
+     * This field is part of the composite primary key.
+     */
+    @Id
+    @Enumerated(EnumType.STRING)
+    private FaceDirection face;
+
+    /**
+     * The number of readings within the hour.
+     */
+    private long count;
+
+    /**
+     * The quantile sketch of the readings, serialized by {@link QuantileSketch#toBytes()}.
+     */
+    @ToString.Exclude
+    @Column(nullable = false)
+    private byte[] sketch;
+}
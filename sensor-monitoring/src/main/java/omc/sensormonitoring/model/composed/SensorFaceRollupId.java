@@ -0,0 +1,53 @@
+package omc.sensormonitoring.model.composed;
+
+import omc.sensormonitoring.model.FaceDirection;
+import omc.sensormonitoring.model.SensorFaceRollup;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Represents the composite primary key for the {@link SensorFaceRollup} entity.
+ * <p>
+ * This class encapsulates the resolution of the rollup tier, the start of the bucket and the face direction.
+ * It implements {@link Serializable} to allow instances of this class to be serialized,
+ * which is required for JPA entity identification.
+ * </p>
+ */
+public class SensorFaceRollupId implements Serializable {
+
+    private long resolution;
+    private long timestamp;
+    private FaceDirection face;
+
+    /**
+     * Default constructor for the SensorFaceRollupId class.
+     */
+    public SensorFaceRollupId() {}
+
+    /**
+     * Constructs a new SensorFaceRollupId with the specified resolution, bucket start and face direction.
+     *
+     * @param resolution the length of the bucket in milliseconds
+     * @param timestamp  the start of the bucket in milliseconds since epoch
+     * @param face       the face direction of the sensors
+     */
+    public SensorFaceRollupId(long resolution, long timestamp, FaceDirection face) {
+        this.resolution = resolution;
+        this.timestamp = timestamp;
+        this.face = face;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SensorFaceRollupId)) return false;
+        SensorFaceRollupId that = (SensorFaceRollupId) o;
+        return resolution == that.resolution && timestamp == that.timestamp && Objects.equals(face, that.face);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(resolution, timestamp, face);
+    }
+}
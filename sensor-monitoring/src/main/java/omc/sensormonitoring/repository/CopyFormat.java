@@ -0,0 +1,16 @@
+package omc.sensormonitoring.repository;
+
+/**
+ * Enum representing the data format used by the {@link CopySensorDataWriter}.
+ */
+public enum CopyFormat {
+    /**
+     * PostgreSQL binary COPY format: fixed-width values, no text conversion on either side.
+     */
+    BINARY,
+
+    /**
+     * Comma-separated text format.
+     */
+    CSV
+}
@@ -0,0 +1,150 @@
+package omc.sensormonitoring.repository;
+
+import lombok.RequiredArgsConstructor;
+import omc.sensormonitoring.ingest.SensorDataColumns;
+import omc.sensormonitoring.model.FaceDirection;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+
+/**
+ * {@link SensorDataWriter} streaming readings to PostgreSQL with the {@code COPY} protocol
+ * through the PgJDBC {@link org.postgresql.copy.CopyManager}.
+ * <p>
+ * Rows are encoded straight from the primitive columns into a reusable buffer in the configured
+ * {@link CopyFormat} and copied into a per-connection temporary staging table, from which they are
+ * moved into {@code sensor_data} in the same transaction, ignoring readings that already exist.
+ * Enabled with {@code sensors.db.writer=copy}.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sensors.db.writer", havingValue = "copy")
+public class CopySensorDataWriter implements SensorDataWriter {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${sensors.db.copy.format}")
+    private CopyFormat COPY_FORMAT;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_ROW_SIZE = 128;
+    private static final byte[] BINARY_HEADER = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final short BINARY_TRAILER = -1;
+    private static final short FIELD_COUNT = 4;
+    private static final byte[][] FACE_NAMES = new byte[FaceDirection.values().length][];
+
+    static {
+        for (FaceDirection face : FaceDirection.values()) {
+            FACE_NAMES[face.ordinal()] = face.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static final String CREATE_STAGING_TABLE_QUERY =
+            "CREATE TEMP TABLE IF NOT EXISTS sensor_data_staging " +
+            "(id bigint, timestamp bigint, face varchar(255), temperature double precision) ON COMMIT DELETE ROWS";
+    private static final String COPY_QUERY =
+            "COPY sensor_data_staging (id, timestamp, face, temperature) FROM STDIN (FORMAT %s)";
+    private static final String MOVE_STAGED_DATA_QUERY =
+            "INSERT INTO sensor_data (id, timestamp, face, temperature) " +
+            "SELECT id, timestamp, face, temperature FROM sensor_data_staging ON CONFLICT DO NOTHING";
+
+
+    @Override
+    public void write(SensorDataColumns columns, int from, int to) {
+        ConnectionCallback<Void> stageAndMove = connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_TABLE_QUERY);
+            }
+            copy(connection, columns, from, to);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(MOVE_STAGED_DATA_QUERY);
+            }
+            return null;
+        };
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute(stageAndMove));
+    }
+
+
+    /**
+     * Copies a range of readings into the staging table.
+     *
+     * @param connection the connection bound to the current transaction
+     * @param columns    the buffered sensor data
+     * @param from       the position of the first reading to copy, inclusive
+     * @param to         the position of the last reading to copy, exclusive
+     * @throws SQLException if the copy fails
+     */
+    private void copy(Connection connection, SensorDataColumns columns, int from, int to) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn(String.format(COPY_QUERY, COPY_FORMAT.name()));
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+            if (COPY_FORMAT == CopyFormat.BINARY) {
+                buffer.put(BINARY_HEADER).putInt(0).putInt(0);
+            }
+            for (int i = from; i < to; i++) {
+                if (buffer.remaining() < MAX_ROW_SIZE) {
+                    copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+                if (COPY_FORMAT == CopyFormat.BINARY) {
+                    putBinaryRow(buffer, columns, i);
+                } else {
+                    putCsvRow(buffer, columns, i);
+                }
+            }
+            if (COPY_FORMAT == CopyFormat.BINARY) {
+                buffer.putShort(BINARY_TRAILER);
+            }
+            copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+
+    /**
+     * Encodes a reading as a row of the PostgreSQL binary COPY format.
+     */
+    private static void putBinaryRow(ByteBuffer buffer, SensorDataColumns columns, int i) {
+        byte[] face = FACE_NAMES[columns.face(i).ordinal()];
+        buffer.putShort(FIELD_COUNT)
+                .putInt(Long.BYTES).putLong(columns.id(i))
+                .putInt(Long.BYTES).putLong(columns.timestamp(i))
+                .putInt(face.length).put(face)
+                .putInt(Double.BYTES).putDouble(columns.temperature(i));
+    }
+
+
+    /**
+     * Encodes a reading as a CSV row.
+     */
+    private static void putCsvRow(ByteBuffer buffer, SensorDataColumns columns, int i) {
+        putAscii(buffer, Long.toString(columns.id(i)));
+        buffer.put((byte) ',');
+        putAscii(buffer, Long.toString(columns.timestamp(i)));
+        buffer.put((byte) ',');
+        buffer.put(FACE_NAMES[columns.face(i).ordinal()]);
+        buffer.put((byte) ',');
+        putAscii(buffer, Double.toString(columns.temperature(i)));
+        buffer.put((byte) '\n');
+    }
+
+
+    private static void putAscii(ByteBuffer buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+}
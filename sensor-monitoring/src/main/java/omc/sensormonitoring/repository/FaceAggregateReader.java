@@ -0,0 +1,108 @@
+package omc.sensormonitoring.repository;
+
+import lombok.RequiredArgsConstructor;
+import omc.sensormonitoring.aggregation.*;
+import omc.sensormonitoring.model.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming aggregation reads over the hourly face averages.
+ * <p>
+ * The hourly face averages of a time range are grouped into buckets of a {@link Granularity} by the database,
+ * so a query over months returns one row per bucket and face direction instead of every hourly row. The face
+ * directions are always passed as a list, so the index on face direction, timestamp and temperature is scanned
+ * by one range per face direction, with or without a filter, and the table itself is not read.
+ * </p>
+ * <p>
+ * The buckets are read in pages of at most {@code sensors.db.fetch-size} rows, each by its own query resuming
+ * after the last complete bucket of the previous page, into a {@link FaceAggregatePage}. A page is handed to the
+ * {@link FaceAggregateConsumer} only once its query has completed, so a consumer writing to a slow client does
+ * not hold a connection or a transaction open, and memory use is bounded by the page size.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class FaceAggregateReader {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private static final String FACE_AGGREGATES_QUERY =
+            "SELECT (timestamp - ? - ?) / ? * ? + ? AS bucket, face, ROUND(AVG(temperature)::numeric, 2), " +
+            "MIN(temperature), MAX(temperature), COUNT(*) FROM sensor_face_data " +
+            "WHERE face = ANY (?) AND timestamp > ? AND timestamp <= ? GROUP BY bucket, face ORDER BY bucket, face " +
+            "LIMIT ?";
+    private static final int FACE_COUNT = FaceDirection.values().length;
+    private static final String[] ALL_FACES = Arrays.stream(FaceDirection.values())
+            .map(FaceDirection::name)
+            .toArray(String[]::new);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${sensors.db.fetch-size}")
+    private int FETCH_SIZE;
+
+
+    /**
+     * Streams the aggregated temperatures of every face direction and bucket of the hours ending
+     * within the specified timestamp range, ordered by bucket and face direction. An hour belongs
+     * to the bucket containing its start. Pages of buckets are read by separate queries and handed to
+     * the consumer between them.
+     *
+     * @param startTimestamp the start of the timestamp range, exclusive (in milliseconds since epoch)
+     * @param endTimestamp   the end of the timestamp range, inclusive (in milliseconds since epoch)
+     * @param granularity    the length of the buckets
+     * @param face           the face direction to filter by, or {@code null} for all face directions
+     * @param consumer       the consumer receiving the aggregated temperatures of every bucket and face direction
+     */
+    public void streamFaceAggregates(long startTimestamp, long endTimestamp, Granularity granularity,
+                                     FaceDirection face, FaceAggregateConsumer consumer) {
+        FaceAggregatePage page = new FaceAggregatePage(Math.max(FETCH_SIZE, 2 * FACE_COUNT));
+        long from = startTimestamp;
+        while (true) {
+            page.clear();
+            readPage(from, endTimestamp, granularity, face, page);
+            if (!page.isFull()) {
+                page.forEach(consumer);
+                return;
+            }
+            long lastBucket = page.removeLastBucket();
+            page.forEach(consumer);
+            from = Math.max(from, lastBucket + HOUR - 1);
+        }
+    }
+
+
+    /**
+     * Reads the first buckets after a timestamp into a page, as many rows as the page holds.
+     *
+     * @param startTimestamp the start of the timestamp range, exclusive (in milliseconds since epoch)
+     * @param endTimestamp   the end of the timestamp range, inclusive (in milliseconds since epoch)
+     * @param granularity    the length of the buckets
+     * @param face           the face direction to filter by, or {@code null} for all face directions
+     * @param page           the empty page receiving the aggregated temperatures
+     */
+    private void readPage(long startTimestamp, long endTimestamp, Granularity granularity, FaceDirection face,
+                          FaceAggregatePage page) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FACE_AGGREGATES_QUERY);
+            ps.setFetchSize(page.capacity());
+            ps.setLong(1, HOUR);
+            ps.setLong(2, granularity.getOffset());
+            ps.setLong(3, granularity.getLength());
+            ps.setLong(4, granularity.getLength());
+            ps.setLong(5, granularity.getOffset());
+            ps.setArray(6, connection.createArrayOf("varchar", face == null ? ALL_FACES : new String[] {face.name()}));
+            ps.setLong(7, startTimestamp);
+            ps.setLong(8, endTimestamp);
+            ps.setInt(9, page.capacity());
+            return ps;
+        }, resultSet -> {
+            page.accept(resultSet.getLong(1), FaceDirection.valueOf(resultSet.getString(2)),
+                    resultSet.getDouble(3), resultSet.getDouble(4), resultSet.getDouble(5), resultSet.getLong(6));
+        });
+    }
+}
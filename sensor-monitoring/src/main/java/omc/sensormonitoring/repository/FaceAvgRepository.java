@@ -26,7 +26,11 @@ public interface FaceAvgRepository extends JpaRepository<SensorFaceData, Long> {
     List<SensorFaceData> findAllFromPeriod(@Param("timestamp") long timestamp);
 
 
-
-
-
+    /**
+     * Checks whether the face averages of an hour were stored.
+     *
+     * @param timestamp the end of the hour (in milliseconds since epoch)
+     * @return {@code true} if at least one face average exists for the hour
+     */
+    boolean existsByTimestamp(long timestamp);
 }
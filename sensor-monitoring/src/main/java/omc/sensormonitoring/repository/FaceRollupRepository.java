@@ -0,0 +1,64 @@
+package omc.sensormonitoring.repository;
+
+import jakarta.transaction.Transactional;
+import omc.sensormonitoring.model.SensorFaceRollup;
+import omc.sensormonitoring.model.composed.SensorFaceRollupId;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import java.util.*;
+
+/**
+ * Repository interface for managing {@link SensorFaceRollup} entities.
+ * <p>
+ * This interface extends {@link JpaRepository} to provide CRUD operations for the face rollups of all tiers.
+ * It includes methods for reading the buckets of a tier within a time range, for finding the first and the last
+ * stored bucket of a tier and for enforcing the retention of a tier.
+ * </p>
+ */
+public interface FaceRollupRepository extends JpaRepository<SensorFaceRollup, SensorFaceRollupId> {
+
+    /**
+     * Retrieves the buckets of a tier starting within the specified timestamp range, ordered by time and face.
+     *
+     * @param resolution     the resolution of the tier (in milliseconds)
+     * @param startTimestamp the start of the timestamp range, inclusive (in milliseconds since epoch)
+     * @param endTimestamp   the end of the timestamp range, exclusive (in milliseconds since epoch)
+     * @return a list of {@link SensorFaceRollup} entities
+     */
+    @Query("SELECT r FROM SensorFaceRollup r " +
+            "WHERE r.resolution = :resolution AND r.timestamp >= :startTimestamp AND r.timestamp < :endTimestamp " +
+            "ORDER BY r.timestamp, r.face")
+    List<SensorFaceRollup> findRange(@Param("resolution") long resolution,
+                                     @Param("startTimestamp") long startTimestamp,
+                                     @Param("endTimestamp") long endTimestamp);
+
+    /**
+     * Finds the start of the first stored bucket of a tier.
+     *
+     * @param resolution the resolution of the tier (in milliseconds)
+     * @return the start of the first bucket (in milliseconds since epoch), or empty if the tier has no buckets
+     */
+    @Query("SELECT MIN(r.timestamp) FROM SensorFaceRollup r WHERE r.resolution = :resolution")
+    Optional<Long> findFirstTimestamp(@Param("resolution") long resolution);
+
+    /**
+     * Finds the start of the last stored bucket of a tier.
+     *
+     * @param resolution the resolution of the tier (in milliseconds)
+     * @return the start of the last bucket (in milliseconds since epoch), or empty if the tier has no buckets
+     */
+    @Query("SELECT MAX(r.timestamp) FROM SensorFaceRollup r WHERE r.resolution = :resolution")
+    Optional<Long> findLastTimestamp(@Param("resolution") long resolution);
+
+    /**
+     * Deletes the buckets of a tier starting before the specified timestamp.
+     *
+     * @param resolution the resolution of the tier (in milliseconds)
+     * @param timestamp  the oldest bucket start to keep (in milliseconds since epoch)
+     * @return the number of deleted buckets
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SensorFaceRollup r WHERE r.resolution = :resolution AND r.timestamp < :timestamp")
+    int deleteOlderThan(@Param("resolution") long resolution, @Param("timestamp") long timestamp);
+}
@@ -0,0 +1,29 @@
+package omc.sensormonitoring.repository;
+
+import omc.sensormonitoring.model.SensorFaceSketch;
+import omc.sensormonitoring.model.composed.SensorFaceId;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+
+/**
+ * Repository interface for managing {@link SensorFaceSketch} entities.
+ * <p>
+ * This interface extends {@link JpaRepository} to provide CRUD operations for the hourly quantile sketches
+ * of the face directions. It includes a method for reading the sketches of a time range.
+ * </p>
+ */
+public interface FaceSketchRepository extends JpaRepository<SensorFaceSketch, SensorFaceId> {
+
+    /**
+     * Retrieves the sketches of the hours ending after the start and no later than the end
+     * of the specified timestamp range.
+     *
+     * @param startTimestamp the start of the timestamp range, exclusive (in milliseconds since epoch)
+     * @param endTimestamp   the end of the timestamp range, inclusive (in milliseconds since epoch)
+     * @return a list of {@link SensorFaceSketch} entities
+     */
+    @Query("SELECT s FROM SensorFaceSketch s WHERE s.timestamp > :startTimestamp AND s.timestamp <= :endTimestamp")
+    List<SensorFaceSketch> findRange(@Param("startTimestamp") long startTimestamp,
+                                     @Param("endTimestamp") long endTimestamp);
+}
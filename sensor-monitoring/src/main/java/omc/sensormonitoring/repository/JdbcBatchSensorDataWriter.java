@@ -0,0 +1,45 @@
+package omc.sensormonitoring.repository;
+
+import lombok.RequiredArgsConstructor;
+import omc.sensormonitoring.ingest.SensorDataColumns;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.Repository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * {@link SensorDataWriter} using a JDBC batch of parameterized {@code INSERT} statements.
+ * <p>
+ * Parameters are bound straight from the primitive columns, without an intermediate object per row.
+ * This is the default writer ({@code sensors.db.writer=batch}).
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sensors.db.writer", havingValue = "batch", matchIfMissing = true)
+public class JdbcBatchSensorDataWriter implements SensorDataWriter {
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String INSERT_SENSOR_DATA_QUERY =
+            "INSERT INTO sensor_data (id, timestamp, face, temperature) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+
+    @Override
+    public void write(SensorDataColumns columns, int from, int to) {
+        jdbcTemplate.batchUpdate(INSERT_SENSOR_DATA_QUERY, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, columns.id(from + i));
+                ps.setLong(2, columns.timestamp(from + i));
+                ps.setString(3, columns.face(from + i).name());
+                ps.setDouble(4, columns.temperature(from + i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return to - from;
+            }
+        });
+    }
+}
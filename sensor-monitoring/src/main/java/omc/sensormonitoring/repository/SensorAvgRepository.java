@@ -0,0 +1,44 @@
+package omc.sensormonitoring.repository;
+
+import jakarta.transaction.Transactional;
+import omc.sensormonitoring.model.SensorAvgData;
+import omc.sensormonitoring.model.composed.SensorDataId;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+
+/**
+ * Repository interface for reading the hourly {@link SensorAvgData} history of sensors.
+ * <p>
+ * The history is written in bulk by the {@link SensorHistoryWriter}; this repository reads it and deletes the
+ * hours past the retention.
+ * </p>
+ */
+public interface SensorAvgRepository extends JpaRepository<SensorAvgData, SensorDataId> {
+
+    /**
+     * Retrieves the hourly statistics of a sensor for the hours ending within a time range, oldest first.
+     * The range is read by a single scan of the primary key index on {@code (id, timestamp)}.
+     *
+     * @param id             the unique identifier of the sensor
+     * @param startTimestamp the start of the range, exclusive (in milliseconds since epoch)
+     * @param endTimestamp   the end of the range, inclusive (in milliseconds since epoch)
+     * @return the hourly statistics of the sensor
+     */
+    @Query("SELECT s FROM SensorAvgData s WHERE s.id = :id " +
+            "AND s.timestamp > :startTimestamp AND s.timestamp <= :endTimestamp ORDER BY s.timestamp")
+    List<SensorAvgData> findHistory(@Param("id") long id, @Param("startTimestamp") long startTimestamp,
+                                    @Param("endTimestamp") long endTimestamp);
+
+    /**
+     * Deletes the hourly statistics of every sensor for the hours ending before the specified timestamp.
+     * The hours are found by a range scan of the index on {@code timestamp}.
+     *
+     * @param timestamp the oldest end of hour to keep (in milliseconds since epoch)
+     * @return the number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SensorAvgData s WHERE s.timestamp < :timestamp")
+    int deleteOlderThan(@Param("timestamp") long timestamp);
+}
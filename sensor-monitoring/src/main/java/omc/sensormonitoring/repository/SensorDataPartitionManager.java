@@ -0,0 +1,265 @@
+package omc.sensormonitoring.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.sql.DataSource;
+
+/**
+ * Manages the hourly range partitions of the {@code sensor_data} table.
+ * <p>
+ * {@code sensor_data} is a PostgreSQL table partitioned by range of {@code timestamp}, with one partition
+ * per hour named {@code sensor_data_yyyyMMddHH} (UTC) and a default partition catching readings of hours
+ * without a partition. The partitioned table is created on startup before Hibernate validates the schema;
+ * an existing unpartitioned table is migrated into it, and the partition of the previous hour is created for
+ * late readings. Every {@code sensors.db.partition.check-interval} seconds the partitions from the current
+ * hour up to {@code sensors.db.partition.ahead} hours ahead are created; readings that already landed in the
+ * default partition for such an hour are moved into it.
+ * </p>
+ * <p>
+ * Raw data is purged by truncating the partition of an hour instead of deleting its rows, which takes
+ * milliseconds and leaves no dead tuples behind. The truncation joins the surrounding transaction, so the
+ * readings are only gone once the aggregates of their hour are committed; it locks the partition only, so
+ * it neither waits for nor blocks inserts of other hours, or the aggregation of other hours running in
+ * parallel. Dropping a partition also locks the parent table, so emptied partitions are dropped separately
+ * by the scheduled task in short transactions of their own.
+ * </p>
+ */
+@Component
+@Slf4j
+public class SensorDataPartitionManager {
+    private static final long HOUR_IN_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final String TABLE = "sensor_data";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("uuuuMMddHH")
+            .withZone(ZoneOffset.UTC);
+
+    private static final String TABLE_KIND_QUERY =
+            "SELECT c.relkind FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE c.relname = ? AND n.nspname = current_schema()";
+    private static final String CREATE_PARTITIONED_TABLE_QUERY =
+            "CREATE TABLE " + TABLE + " (id bigint NOT NULL, timestamp bigint NOT NULL, face varchar(255) " +
+            "CHECK (face IN ('SOUTH', 'EAST', 'NORTH', 'WEST')), temperature double precision NOT NULL, " +
+            "PRIMARY KEY (id, timestamp)) PARTITION BY RANGE (timestamp)";
+    private static final String CREATE_DEFAULT_PARTITION_QUERY =
+            "CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT";
+    private static final String PARTITIONS_QUERY =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = '" + TABLE + "'::regclass";
+    private static final String DEFAULT_ROWS_EXIST_QUERY =
+            "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ?)";
+    private static final String CREATE_PARTITION_QUERY =
+            "CREATE TABLE %s PARTITION OF " + TABLE + " FOR VALUES FROM (%d) TO (%d)";
+    private static final String CREATE_DETACHED_PARTITION_QUERY =
+            "CREATE TABLE %s (LIKE " + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)";
+    private static final String MOVE_DEFAULT_ROWS_QUERY =
+            "WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ? " +
+            "RETURNING *) INSERT INTO %s SELECT * FROM moved";
+    private static final String ATTACH_PARTITION_QUERY =
+            "ALTER TABLE " + TABLE + " ATTACH PARTITION %s FOR VALUES FROM (%d) TO (%d)";
+    private static final String TRUNCATE_PARTITION_QUERY = "TRUNCATE TABLE %s";
+    private static final String LOCK_PARTITION_QUERY = "LOCK TABLE %s IN ACCESS EXCLUSIVE MODE";
+    private static final String PARTITION_EMPTY_QUERY = "SELECT NOT EXISTS (SELECT 1 FROM %s)";
+    private static final String DROP_PARTITION_QUERY = "DROP TABLE IF EXISTS %s";
+    private static final String DROP_LOCK_TIMEOUT = "1s";
+    private static final String DELETE_DEFAULT_ROWS_QUERY =
+            "DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ?";
+    private static final String UNPARTITIONED_TABLE = TABLE + "_unpartitioned";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> partitions = ConcurrentHashMap.newKeySet();
+
+    @Value("${sensors.db.partition.ahead}")
+    private int AHEAD_HOURS;
+
+    /**
+     * The partitions are created before the entity manager factory, so their DDL runs in plain JDBC
+     * transactions rather than through the JPA transaction manager.
+     */
+    public SensorDataPartitionManager(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+
+    /**
+     * Creates the partitioned table, migrating an unpartitioned one, and the partitions around the current hour.
+     */
+    @PostConstruct
+    public void initializePartitions() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> kind = jdbcTemplate.queryForList(TABLE_KIND_QUERY, String.class, TABLE);
+            if (kind.isEmpty()) {
+                jdbcTemplate.execute(CREATE_PARTITIONED_TABLE_QUERY);
+            } else if (kind.get(0).equals("r")) {
+                migrateUnpartitionedTable();
+            }
+            jdbcTemplate.execute(CREATE_DEFAULT_PARTITION_QUERY);
+        });
+        jdbcTemplate.queryForList(PARTITIONS_QUERY, String.class).stream()
+                .filter(name -> !name.equals(DEFAULT_PARTITION))
+                .map(SensorDataPartitionManager::hourOf)
+                .forEach(partitions::add);
+        createPartition(hourStart(System.currentTimeMillis()) - HOUR_IN_MILLIS);
+        createPartitions();
+        log.info("Using {} hourly partitions of {}, creating {} hours ahead", partitions.size(), TABLE, AHEAD_HOURS);
+    }
+
+
+    /**
+     * Scheduled task that creates the partitions from the current hour up to the configured number of hours ahead
+     * and drops the partitions emptied by {@link #purgeHour(long)}.
+     */
+    @Scheduled(fixedDelayString = "${sensors.db.partition.check-interval}", timeUnit = TimeUnit.SECONDS)
+    public void createPartitions() {
+        long currentHour = hourStart(System.currentTimeMillis());
+        dropEmptyPartitions(currentHour);
+        for (int hour = 0; hour <= AHEAD_HOURS; hour++) {
+            try {
+                createPartition(currentHour + hour * HOUR_IN_MILLIS);
+            } catch (DataAccessException e) {
+                log.error("Error creating partition of {} for hour {}: {}", TABLE,
+                        partitionName(currentHour + hour * HOUR_IN_MILLIS), e.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Purges the raw sensor data of an hour by truncating its partition and deleting its readings
+     * from the default partition. The emptied partition is dropped later by {@link #createPartitions()}.
+     *
+     * @param startOfHour the start of the hour (in milliseconds since epoch)
+     */
+    public void purgeHour(long startOfHour) {
+        if (partitions.contains(startOfHour)) {
+            jdbcTemplate.execute(String.format(TRUNCATE_PARTITION_QUERY, partitionName(startOfHour)));
+        }
+        jdbcTemplate.update(DELETE_DEFAULT_ROWS_QUERY, startOfHour, startOfHour + HOUR_IN_MILLIS);
+    }
+
+
+    /**
+     * Drops the empty partitions of the hours before the previous one. The partition is locked first, so that
+     * no reading can be inserted between the check and the drop; the drop also locks the parent table, and
+     * gives up after {@value #DROP_LOCK_TIMEOUT} instead of queueing inserts behind a long transaction.
+     *
+     * @param currentHour the start of the current hour
+     */
+    private void dropEmptyPartitions(long currentHour) {
+        for (long startOfHour : partitions) {
+            if (startOfHour >= currentHour - HOUR_IN_MILLIS) {
+                continue;
+            }
+            String name = partitionName(startOfHour);
+            try {
+                boolean dropped = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    jdbcTemplate.execute("SET LOCAL lock_timeout = '" + DROP_LOCK_TIMEOUT + "'");
+                    jdbcTemplate.execute(String.format(LOCK_PARTITION_QUERY, name));
+                    if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(String.format(PARTITION_EMPTY_QUERY, name),
+                            Boolean.class))) {
+                        jdbcTemplate.execute(String.format(DROP_PARTITION_QUERY, name));
+                        return true;
+                    }
+                    return false;
+                }));
+                if (dropped) {
+                    partitions.remove(startOfHour);
+                    log.debug("Dropped partition {}", name);
+                }
+            } catch (DataAccessException e) {
+                log.debug("Could not drop partition {}, retrying later: {}", name, e.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Creates the partition of an hour unless it exists. Readings of the hour in the default partition
+     * are moved into the new partition before it is attached.
+     */
+    private void createPartition(long startOfHour) {
+        if (partitions.contains(startOfHour)) {
+            return;
+        }
+        long endOfHour = startOfHour + HOUR_IN_MILLIS;
+        String name = partitionName(startOfHour);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(DEFAULT_ROWS_EXIST_QUERY, Boolean.class,
+                    startOfHour, endOfHour))) {
+                jdbcTemplate.execute(String.format(CREATE_DETACHED_PARTITION_QUERY, name));
+                int moved = jdbcTemplate.update(String.format(MOVE_DEFAULT_ROWS_QUERY, name), startOfHour, endOfHour);
+                jdbcTemplate.execute(String.format(ATTACH_PARTITION_QUERY, name, startOfHour, endOfHour));
+                log.debug("Moved {} readings from the default partition into {}", moved, name);
+            } else {
+                jdbcTemplate.execute(String.format(CREATE_PARTITION_QUERY, name, startOfHour, endOfHour));
+            }
+        });
+        partitions.add(startOfHour);
+        log.debug("Created partition {}", name);
+    }
+
+
+    /**
+     * Replaces an unpartitioned {@code sensor_data} table by the partitioned one, creating a partition
+     * for every hour it holds readings of.
+     */
+    private void migrateUnpartitionedTable() {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + UNPARTITIONED_TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + UNPARTITIONED_TABLE + " RENAME CONSTRAINT " + TABLE + "_pkey TO " +
+                UNPARTITIONED_TABLE + "_pkey");
+        jdbcTemplate.execute(CREATE_PARTITIONED_TABLE_QUERY);
+        List<Long> hours = jdbcTemplate.queryForList("SELECT DISTINCT timestamp - timestamp % " + HOUR_IN_MILLIS +
+                " FROM " + UNPARTITIONED_TABLE, Long.class);
+        for (long hour : hours) {
+            jdbcTemplate.execute(String.format(CREATE_PARTITION_QUERY, partitionName(hour), hour,
+                    hour + HOUR_IN_MILLIS));
+        }
+        int migrated = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT id, timestamp, face, temperature " +
+                "FROM " + UNPARTITIONED_TABLE);
+        jdbcTemplate.execute("DROP TABLE " + UNPARTITIONED_TABLE);
+        log.info("Migrated {} readings of {} hours into the partitioned {} table", migrated, hours.size(), TABLE);
+    }
+
+
+    static String partitionName(long startOfHour) {
+        return TABLE + "_" + PARTITION_SUFFIX.format(Instant.ofEpochMilli(startOfHour));
+    }
+
+
+    private static long hourOf(String partitionName) {
+        String suffix = partitionName.substring(TABLE.length() + 1);
+        return LocalDateTime.parse(suffix, PARTITION_SUFFIX).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+
+    private static long hourStart(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, HOUR_IN_MILLIS);
+    }
+
+
+    /**
+     * Makes the entity manager factory wait for the partitioned table, so that Hibernate does not
+     * create an unpartitioned one.
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class PartitionsBeforeEntityManagerFactory extends EntityManagerFactoryDependsOnPostProcessor {
+
+        PartitionsBeforeEntityManagerFactory() {
+            super(SensorDataPartitionManager.class);
+        }
+    }
+}
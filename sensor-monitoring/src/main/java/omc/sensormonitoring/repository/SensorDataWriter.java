@@ -0,0 +1,22 @@
+package omc.sensormonitoring.repository;
+
+import omc.sensormonitoring.ingest.SensorDataColumns;
+
+/**
+ * Writer persisting buffered sensor readings into the {@code sensor_data} table.
+ * <p>
+ * The implementation is selected with the {@code sensors.db.writer} property. Writers must ignore
+ * readings whose primary key already exists, so that resent readings do not fail a whole batch.
+ * </p>
+ */
+public interface SensorDataWriter {
+
+    /**
+     * Writes a range of buffered readings to the database.
+     *
+     * @param columns the buffered sensor data
+     * @param from    the position of the first reading to write, inclusive
+     * @param to      the position of the last reading to write, exclusive
+     */
+    void write(SensorDataColumns columns, int from, int to);
+}
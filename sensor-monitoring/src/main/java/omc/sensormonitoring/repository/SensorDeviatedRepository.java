@@ -1,7 +1,10 @@
 package omc.sensormonitoring.repository;
 
-import omc.sensormonitoring.model.SensorDeviatedData;
-import org.springframework.data.jpa.repository.JpaRepository;
+import omc.sensormonitoring.model.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 
 
 /**
@@ -11,8 +14,34 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * deviated data entries, allowing for easy storage and retrieval of records
  * that indicate sensor malfunctions or deviations from expected temperature ranges.
  * </p>
+ * <p>
+ * The table only grows, so it is read page by page with keyset pagination on {@code (timestamp, id)},
+ * served by the index of the same columns: a page costs the same no matter how deep it is or how much
+ * history has accumulated.
+ * </p>
  */
 public interface SensorDeviatedRepository extends JpaRepository<SensorDeviatedData, Long> {
-    // No additional methods are defined in this repository at present.
 
+    /**
+     * Retrieves a page of deviated sensors at or after the start of a time range and before a keyset,
+     * ordered by timestamp and sensor id, descending.
+     *
+     * @param startTimestamp  the start of the timestamp range, inclusive (in milliseconds since epoch)
+     * @param beforeTimestamp the timestamp of the keyset to continue before
+     * @param beforeId        the sensor id of the keyset to continue before
+     * @param face            the face direction to filter by, or {@code null} for all face directions
+     * @param id              the sensor id to filter by, or {@code null} for all sensors
+     * @param limit           the maximum number of records
+     * @return a list of {@link SensorDeviatedData} entities
+     */
+    @Query("SELECT s FROM SensorDeviatedData s " +
+            "WHERE s.timestamp >= :startTimestamp AND (s.timestamp, s.id) < (:beforeTimestamp, :beforeId) " +
+            "AND (:face IS NULL OR s.face = :face) AND (:id IS NULL OR s.id = :id) " +
+            "ORDER BY s.timestamp DESC, s.id DESC")
+    List<SensorDeviatedData> findPage(@Param("startTimestamp") long startTimestamp,
+                                      @Param("beforeTimestamp") long beforeTimestamp,
+                                      @Param("beforeId") long beforeId,
+                                      @Param("face") FaceDirection face,
+                                      @Param("id") Long id,
+                                      Limit limit);
 }
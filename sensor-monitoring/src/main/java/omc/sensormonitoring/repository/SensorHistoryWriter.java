@@ -0,0 +1,168 @@
+package omc.sensormonitoring.repository;
+
+import lombok.RequiredArgsConstructor;
+import omc.sensormonitoring.aggregation.*;
+import omc.sensormonitoring.model.FaceDirection;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.Repository;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.Arrays;
+
+/**
+ * Bulk writes of the hourly per-sensor statistics into {@code sensor_avg_data}.
+ * <p>
+ * The statistics of a closed window are encoded straight from the {@link SensorStatsTable} in the PostgreSQL
+ * binary COPY format and copied into a per-connection temporary staging table, from which they are moved into
+ * {@code sensor_avg_data} with a single statement, like the {@link CopySensorDataWriter} does for the raw data.
+ * The statistics of an hour aggregated from the raw data are computed and inserted by the database in a single
+ * {@code INSERT ... SELECT}, without reading the rows. Both ignore sensors whose hour is already stored, so an
+ * hour processed again is not duplicated.
+ * </p>
+ * <p>
+ * The statistics are kept by sensor and face direction, while the history holds one row per sensor and hour.
+ * The face directions a sensor reported within the hour are therefore merged into one row holding the total
+ * number of readings, the overall average, minimum and maximum, and the face direction of its latest reading.
+ * </p>
+ * <p>
+ * Both run on the connection of the surrounding transaction, so the history of an hour is committed together
+ * with its face averages.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorHistoryWriter {
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int ROW_SIZE = Short.BYTES + 2 * (4 + Long.BYTES) + (4 + Short.BYTES) +
+            (4 + Integer.BYTES) + 3 * (4 + Double.BYTES);
+    private static final byte[] BINARY_HEADER = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final short BINARY_TRAILER = -1;
+    private static final short FIELD_COUNT = 7;
+    private static final FaceDirection[] FACES = FaceDirection.values();
+    private static final String[] FACE_NAMES = Arrays.stream(FACES)
+            .map(FaceDirection::name)
+            .toArray(String[]::new);
+
+    private static final String CREATE_STAGING_TABLE_QUERY =
+            "CREATE TEMP TABLE IF NOT EXISTS sensor_avg_data_staging (id bigint, timestamp bigint, face smallint, " +
+            "readings integer, temperature double precision, min_temperature double precision, " +
+            "max_temperature double precision) ON COMMIT DELETE ROWS";
+    private static final String COPY_QUERY =
+            "COPY sensor_avg_data_staging (id, timestamp, face, readings, temperature, min_temperature, " +
+            "max_temperature) FROM STDIN (FORMAT BINARY)";
+    private static final String MOVE_STAGED_DATA_QUERY =
+            "INSERT INTO sensor_avg_data (id, timestamp, face, readings, temperature, min_temperature, " +
+            "max_temperature) SELECT id, timestamp, face, readings, temperature, min_temperature, max_temperature " +
+            "FROM sensor_avg_data_staging ON CONFLICT DO NOTHING";
+    private static final String AGGREGATE_RAW_DATA_QUERY =
+            "INSERT INTO sensor_avg_data (id, timestamp, face, readings, temperature, min_temperature, " +
+            "max_temperature) SELECT id, ?, (array_agg(face ORDER BY timestamp DESC, face))[1] - 1, COUNT(*), " +
+            "ROUND(AVG(temperature)::numeric, 2), MIN(temperature), MAX(temperature) " +
+            "FROM (SELECT id, timestamp, array_position(?, face) AS face, temperature FROM sensor_data " +
+            "WHERE timestamp BETWEEN ? AND ?) readings GROUP BY id ON CONFLICT DO NOTHING";
+
+
+    /**
+     * Stores the statistics of every sensor of a closed window.
+     *
+     * @param sensorStats the statistics by sensor
+     * @param endOfHour   the end of the hour (in milliseconds since epoch)
+     */
+    public void write(SensorStatsTable sensorStats, long endOfHour) {
+        if (sensorStats.size() == 0) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_TABLE_QUERY);
+            }
+            copy(connection, sensorStats, endOfHour);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(MOVE_STAGED_DATA_QUERY);
+            }
+            return null;
+        });
+    }
+
+
+    /**
+     * Computes and stores the statistics of every sensor from the raw sensor data within a time range.
+     *
+     * @param startTimestamp the start of the time range (in milliseconds since epoch)
+     * @param endTimestamp   the end of the time range, inclusive (in milliseconds since epoch)
+     * @param endOfHour      the end of the hour (in milliseconds since epoch)
+     */
+    public void writeFromRawData(long startTimestamp, long endTimestamp, long endOfHour) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(AGGREGATE_RAW_DATA_QUERY)) {
+                ps.setLong(1, endOfHour);
+                ps.setArray(2, connection.createArrayOf("varchar", FACE_NAMES));
+                ps.setLong(3, startTimestamp);
+                ps.setLong(4, endTimestamp);
+                ps.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+
+    /**
+     * Copies the statistics of every sensor into the staging table, merging the face directions of a sensor
+     * into the slot of its latest face direction.
+     *
+     * @param connection  the connection bound to the current transaction
+     * @param sensorStats the statistics by sensor
+     * @param endOfHour   the end of the hour (in milliseconds since epoch)
+     * @throws SQLException if the copy fails
+     */
+    private void copy(Connection connection, SensorStatsTable sensorStats, long endOfHour) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_QUERY);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+            buffer.put(BINARY_HEADER).putInt(0).putInt(0);
+            for (int slot = 0; slot < sensorStats.capacity(); slot++) {
+                if (!sensorStats.isUsed(slot) || !sensorStats.isLatestFace(slot)) {
+                    continue;
+                }
+                long id = sensorStats.id(slot);
+                int count = 0;
+                double sum = 0;
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (FaceDirection face : FACES) {
+                    int faceSlot = sensorStats.indexOf(id, face);
+                    if (faceSlot >= 0) {
+                        count += sensorStats.count(faceSlot);
+                        sum += sensorStats.sum(faceSlot);
+                        min = Math.min(min, sensorStats.min(faceSlot));
+                        max = Math.max(max, sensorStats.max(faceSlot));
+                    }
+                }
+                if (buffer.remaining() < ROW_SIZE + Short.BYTES) {
+                    copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+                buffer.putShort(FIELD_COUNT)
+                        .putInt(Long.BYTES).putLong(id)
+                        .putInt(Long.BYTES).putLong(endOfHour)
+                        .putInt(Short.BYTES).putShort((short) sensorStats.face(slot).ordinal())
+                        .putInt(Integer.BYTES).putInt(count)
+                        .putInt(Double.BYTES).putDouble(SensorStatsCalculator.averageTemperature(sum, count))
+                        .putInt(Double.BYTES).putDouble(min)
+                        .putInt(Double.BYTES).putDouble(max);
+            }
+            buffer.putShort(BINARY_TRAILER);
+            copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+}
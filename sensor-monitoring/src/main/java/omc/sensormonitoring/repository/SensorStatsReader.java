@@ -0,0 +1,112 @@
+package omc.sensormonitoring.repository;
+
+import lombok.RequiredArgsConstructor;
+import omc.sensormonitoring.ingest.SensorReadingConsumer;
+import omc.sensormonitoring.model.FaceDirection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Streaming aggregation reads over the raw sensor data.
+ * <p>
+ * The per-sensor averages of a time range are read through a forward-only cursor with a JDBC fetch size of
+ * {@code sensors.db.fetch-size} rows and handed to a {@link SensorReadingConsumer} row by row, so neither
+ * the driver nor the caller holds the whole result set. PostgreSQL only uses a server-side cursor when the
+ * statement runs inside a transaction, so callers must be transactional. The per-face averages are reduced
+ * by the database and returned as a handful of rows. The readings themselves are streamed the same way when
+ * the distribution of the temperatures is needed.
+ * </p>
+ * <p>
+ * Readings are grouped by sensor and face direction, and a resent reading was already ignored on insert by the
+ * primary key on {@code (id, timestamp)}; the in-memory {@link omc.sensormonitoring.aggregation.SensorStatsTable}
+ * follows the same rules.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorStatsReader {
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    private static final String SENSOR_AVERAGES_QUERY =
+            "SELECT id, MAX(timestamp), face, ROUND(AVG(temperature)::numeric, 2) " +
+            "FROM sensor_data WHERE timestamp BETWEEN ? AND ? GROUP BY id, face";
+    private static final String FACE_TEMPERATURES_QUERY =
+            "SELECT face, temperature FROM sensor_data WHERE timestamp BETWEEN ? AND ?";
+    private static final String FACE_AVERAGES_QUERY =
+            "SELECT face, ROUND(AVG(temperature), 2) FROM (" +
+            "SELECT face, ROUND(AVG(temperature)::numeric, 2) AS temperature " +
+            "FROM sensor_data WHERE timestamp BETWEEN ? AND ? GROUP BY id, face) sensors GROUP BY face";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${sensors.db.fetch-size}")
+    private int FETCH_SIZE;
+
+
+    /**
+     * Streams the average temperature of every sensor within the specified timestamp range.
+     *
+     * @param startTimestamp the start of the timestamp range (in milliseconds since epoch)
+     * @param endTimestamp   the end of the timestamp range, inclusive (in milliseconds since epoch)
+     * @param consumer       the consumer receiving the sensor id, the latest timestamp, the face direction
+     *                       and the average temperature rounded to two decimals of every sensor
+     */
+    public void streamSensorAverages(long startTimestamp, long endTimestamp, SensorReadingConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SENSOR_AVERAGES_QUERY,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, startTimestamp);
+            ps.setLong(2, endTimestamp);
+            return ps;
+        }, resultSet -> {
+            consumer.accept(resultSet.getLong(1), resultSet.getLong(2), FaceDirection.valueOf(resultSet.getString(3)),
+                    resultSet.getDouble(4));
+        });
+    }
+
+
+    /**
+     * Streams the face direction and temperature of every reading within the specified timestamp range.
+     *
+     * @param startTimestamp the start of the timestamp range (in milliseconds since epoch)
+     * @param endTimestamp   the end of the timestamp range, inclusive (in milliseconds since epoch)
+     * @param consumer       the consumer receiving the face direction and the temperature of every reading
+     */
+    public void streamFaceTemperatures(long startTimestamp, long endTimestamp,
+                                       ObjDoubleConsumer<FaceDirection> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FACE_TEMPERATURES_QUERY,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, startTimestamp);
+            ps.setLong(2, endTimestamp);
+            return ps;
+        }, resultSet -> {
+            consumer.accept(FaceDirection.valueOf(resultSet.getString(1)), resultSet.getDouble(2));
+        });
+    }
+
+
+    /**
+     * Calculates the average temperature of each face direction within the specified timestamp range
+     * as the average of the sensor averages.
+     *
+     * @param startTimestamp the start of the timestamp range (in milliseconds since epoch)
+     * @param endTimestamp   the end of the timestamp range, inclusive (in milliseconds since epoch)
+     * @return the average temperatures rounded to two decimals and indexed by face direction ordinal,
+     * {@code NaN} for faces without sensors
+     */
+    public double[] findFaceAverages(long startTimestamp, long endTimestamp) {
+        double[] averages = new double[FACES.length];
+        Arrays.fill(averages, Double.NaN);
+        jdbcTemplate.query(FACE_AVERAGES_QUERY, resultSet -> {
+            averages[FaceDirection.valueOf(resultSet.getString(1)).ordinal()] = resultSet.getDouble(2);
+        }, startTimestamp, endTimestamp);
+        return averages;
+    }
+}
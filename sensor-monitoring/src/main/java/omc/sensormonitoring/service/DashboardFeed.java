@@ -0,0 +1,252 @@
+package omc.sensormonitoring.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.dto.FaceRollupResultDto;
+import omc.sensormonitoring.model.SensorDeviatedData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Live feed of the dashboard over Server-Sent Events.
+ * <p>
+ * Once the transaction storing new data commits, the data is serialized once and broadcast to every subscribed
+ * dashboard: an {@code hour} event with the face averages and the deviated sensors of a stored hour (at most
+ * {@code sensors.deviated.page-size} sensors, the number the dashboard shows), and a {@code rollups} event with
+ * the new buckets of a rollup tier. A dashboard patches its tables from these events instead of reloading.
+ * </p>
+ * <p>
+ * Broadcasts run on a single feed thread, so a slow subscriber never delays the jobs publishing the events.
+ * The feed thread hands the send to every subscriber to a pool of {@code sensors.feed.max-subscribers} sender
+ * threads and waits for at most {@code sensors.feed.send-timeout} milliseconds; a subscriber whose send has not
+ * completed by then is dropped and its send interrupted, so a stalled connection delays the other subscribers by
+ * the send timeout once. A dropped send that stays blocked in the connection keeps its sender thread and counts
+ * against the subscriber limit until it returns, so the threads never outnumber the pool and a subscription
+ * beyond the limit is rejected with a {@link DashboardFeedFullException}. A comment is sent every
+ * {@code sensors.feed.heartbeat} seconds to detect closed connections, and a subscription ends after
+ * {@code sensors.feed.timeout} seconds, after which the browser reconnects on its own.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardFeed {
+    private final ObjectMapper objectMapper;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService broadcaster =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("dashboard-feed-"));
+    private final Map<SseEmitter, Send> stalled = new ConcurrentHashMap<>();
+    private ExecutorService senders;
+
+    @Value("${sensors.feed.timeout}")
+    private long TIMEOUT;
+    @Value("${sensors.feed.send-timeout}")
+    private long SEND_TIMEOUT_MILLIS;
+    @Value("${sensors.feed.max-subscribers}")
+    private int MAX_SUBSCRIBERS;
+    @Value("${sensors.deviated.page-size}")
+    private int DEVIATED_PAGE_SIZE;
+
+
+    /**
+     * Creates one sender thread per allowed subscriber.
+     *
+     * @throws IllegalStateException if the subscriber limit is not positive
+     */
+    @PostConstruct
+    public void initializeFeed() {
+        if (MAX_SUBSCRIBERS < 1) {
+            throw new IllegalStateException("sensors.feed.max-subscribers must be positive");
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_SUBSCRIBERS, MAX_SUBSCRIBERS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("dashboard-feed-send-"));
+        pool.allowCoreThreadTimeOut(true);
+        senders = pool;
+    }
+
+
+    /**
+     * Subscribes a dashboard to the feed.
+     *
+     * @return the emitter of the subscription
+     * @throws DashboardFeedFullException if the subscribed dashboards and the stalled sends reach the limit
+     */
+    public synchronized SseEmitter subscribe() {
+        stalled.values().removeIf(Send::isReturned);
+        if (subscribers.size() + stalled.size() >= MAX_SUBSCRIBERS) {
+            throw new DashboardFeedFullException();
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(TIMEOUT));
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        return emitter;
+    }
+
+
+    /**
+     * @return the number of subscribed dashboards
+     */
+    public int getSubscribers() {
+        return subscribers.size();
+    }
+
+
+    /**
+     * Broadcasts the face averages and the latest deviated sensors of a stored hour.
+     *
+     * @param event the stored hour
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHourlyDataStored(HourlyDataStoredEvent event) {
+        List<SensorDeviatedData> deviatedSensors = event.deviatedSensors().stream()
+                .sorted(Comparator.comparing(SensorDeviatedData::getId).reversed())
+                .limit(DEVIATED_PAGE_SIZE)
+                .toList();
+        broadcast("hour", new HourlyDataStoredEvent(event.endOfHour(), event.faces(), deviatedSensors));
+    }
+
+
+    /**
+     * Broadcasts the new buckets of a rollup tier.
+     *
+     * @param event the tier with new buckets
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFaceRollupsStored(FaceRollupsStoredEvent event) {
+        broadcast("rollups", new FaceRollupResultDto(event.resolution(), event.rollups()));
+    }
+
+
+    /**
+     * Scheduled task that sends a comment to every subscriber, dropping the ones whose connection is closed.
+     */
+    @Scheduled(fixedDelayString = "${sensors.feed.heartbeat}", timeUnit = TimeUnit.SECONDS)
+    public void heartbeat() {
+        broadcast(SseEmitter.event().comment("heartbeat"));
+    }
+
+
+    @PreDestroy
+    public void shutdownFeed() {
+        broadcaster.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+    }
+
+
+    private void broadcast(String name, Object data) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            broadcast(SseEmitter.event().name(name).data(objectMapper.writeValueAsString(data)));
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing {} event: {}", name, e.getMessage());
+        }
+    }
+
+
+    private void broadcast(SseEmitter.SseEventBuilder event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Set<DataWithMediaType> payload = event.build();
+        broadcaster.execute(() -> send(payload));
+    }
+
+
+    /**
+     * Sends an event to every subscriber in parallel and waits until all sends complete or the send timeout
+     * elapses. Subscribers whose connection is closed or whose send did not complete in time are dropped; a send
+     * that did not complete is interrupted and kept as stalled until it returns.
+     *
+     * @param payload the serialized event
+     */
+    private void send(Set<DataWithMediaType> payload) {
+        List<Send> sends = new ArrayList<>();
+        for (SseEmitter subscriber : subscribers) {
+            Send send = new Send(subscriber, payload);
+            senders.execute(send);
+            sends.add(send);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SEND_TIMEOUT_MILLIS);
+        for (Send send : sends) {
+            try {
+                send.result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                subscribers.remove(send.subscriber);
+            } catch (TimeoutException e) {
+                subscribers.remove(send.subscriber);
+                stalled.put(send.subscriber, send);
+                send.abandon();
+                log.debug("Dropped a dashboard feed subscriber not receiving within {} ms", SEND_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * The send of an event to one subscriber on a sender thread. An abandoned send is interrupted if it is
+     * running and skipped if it has not started; {@link #isReturned()} tells whether it still holds its thread.
+     */
+    private static final class Send implements Runnable {
+        private final SseEmitter subscriber;
+        private final Set<DataWithMediaType> payload;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private Thread runner;
+        private boolean abandoned;
+
+        private Send(SseEmitter subscriber, Set<DataWithMediaType> payload) {
+            this.subscriber = subscriber;
+            this.payload = payload;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (abandoned) {
+                    result.cancel(false);
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                subscriber.send(payload);
+                result.complete(null);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private synchronized void abandon() {
+            abandoned = true;
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+
+        private boolean isReturned() {
+            return result.isDone();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package omc.sensormonitoring.service;
+
+import static omc.sensormonitoring.controller.handler.ErrorMessages.FEED_FULL_MESSAGE;
+
+/**
+ * Exception thrown when a dashboard cannot subscribe because the {@link DashboardFeed} has reached its
+ * subscriber limit.
+ */
+public class DashboardFeedFullException extends RuntimeException {
+
+    /**
+     * Constructs a new exception with the default feed full message.
+     */
+    public DashboardFeedFullException() {
+        super(FEED_FULL_MESSAGE);
+    }
+}
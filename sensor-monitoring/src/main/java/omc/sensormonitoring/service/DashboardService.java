@@ -0,0 +1,104 @@
+package omc.sensormonitoring.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.dto.DashboardDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache of the dashboard data.
+ * <p>
+ * The dashboard shows the face rollups of the week ending with the current hour and the first page of the sensors
+ * found malfunctioning within the last {@code sensors.deviated.default-window} seconds. Both only change when the
+ * hourly job or the rollup job stores new data. The data is therefore loaded once per hour and kept in a bounded
+ * LRU map of at most {@code sensors.dashboard.cache.max-entries} hours, so refreshing the dashboard costs no
+ * database round-trip.
+ * </p>
+ * <p>
+ * An entry is invalidated once the transaction storing the data it was loaded from commits: all entries after
+ * a {@link HourlyDataStoredEvent}, and the entries holding rollups of the stored tier after a
+ * {@link FaceRollupsStoredEvent}. Loading and invalidating are serialized on the map, so concurrent requests
+ * missing the cache load the data only once, and an entry loaded before a commit can never outlive the
+ * invalidation of that commit.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardService {
+    private static final long HOUR_IN_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long WEEK_IN_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private final SensorService sensorService;
+    private final Map<Long, DashboardDto> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, DashboardDto> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private LongSupplier clock = System::currentTimeMillis;
+
+    @Value("${sensors.dashboard.cache.max-entries}")
+    private int MAX_ENTRIES;
+    @Value("${sensors.deviated.default-window}")
+    private long DEVIATED_WINDOW;
+    @Value("${sensors.deviated.page-size}")
+    private int DEVIATED_PAGE_SIZE;
+
+
+    /**
+     * Retrieves the dashboard data of the current hour from the cache, loading it on a miss.
+     * With a maximum of {@code 0} entries, the data is loaded on every call.
+     *
+     * @return the face rollups of the week ending with the current hour and the latest malfunctioning sensors
+     */
+    public DashboardDto getDashboard() {
+        long now = clock.getAsLong();
+        long endOfHour = now - Math.floorMod(now, HOUR_IN_MILLIS) + HOUR_IN_MILLIS;
+        synchronized (cache) {
+            DashboardDto dashboard = cache.get(endOfHour);
+            if (dashboard == null) {
+                long deviatedFrom = endOfHour - TimeUnit.SECONDS.toMillis(DEVIATED_WINDOW);
+                dashboard = new DashboardDto(sensorService.getFaceRollups(endOfHour - WEEK_IN_MILLIS, endOfHour),
+                        sensorService.getMalfunctioningSensors(deviatedFrom, endOfHour, null, null, null, null,
+                                DEVIATED_PAGE_SIZE).sensors());
+                if (MAX_ENTRIES > 0) {
+                    cache.put(endOfHour, dashboard);
+                }
+            }
+            return dashboard;
+        }
+    }
+
+
+    /**
+     * Invalidates all entries once the face averages and deviated sensors of an hour are committed.
+     *
+     * @param event the stored hour
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHourlyDataStored(HourlyDataStoredEvent event) {
+        synchronized (cache) {
+            cache.clear();
+        }
+        log.debug("Invalidated the dashboard cache after storing the hour ending at {}", event.endOfHour());
+    }
+
+
+    /**
+     * Invalidates the entries holding rollups of a tier once new buckets of the tier are committed.
+     *
+     * @param event the tier with new buckets
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFaceRollupsStored(FaceRollupsStoredEvent event) {
+        synchronized (cache) {
+            cache.values().removeIf(dashboard -> dashboard.faceRollups().resolution() == event.resolution());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package omc.sensormonitoring.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.aggregation.FaceRollupAggregator;
+import omc.sensormonitoring.dto.FaceRollupResultDto;
+import omc.sensormonitoring.model.*;
+import omc.sensormonitoring.repository.FaceRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Maintains the multi-resolution face rollups and answers range queries from the most suitable tier.
+ * <p>
+ * The tiers are given by {@code sensors.rollup.resolutions} (in seconds, each a multiple of the previous one)
+ * and kept for {@code sensors.rollup.retentions} seconds each ({@code 0} keeps a tier forever). The finest tier
+ * is collected in memory by the {@link FaceRollupAggregator} and stored when its buckets close. Every coarser
+ * tier is computed from the stored buckets of the tier below once they are all final, so no tier is ever
+ * computed from raw readings. On startup, every coarser tier resumes after its last stored bucket, so buckets
+ * left unfinished by a restart or by downtime are computed from the stored buckets below.
+ * </p>
+ * <p>
+ * A roll-up runs in a single transaction. If it does not commit, the closed buckets of the finest tier are
+ * handed back to the {@link FaceRollupAggregator} and the coarser tiers are computed again by the next run.
+ * </p>
+ * <p>
+ * A range query reads the coarsest tier that still holds the start of the range and yields at least
+ * {@code sensors.rollup.min-points} buckets over the range; if no tier is fine enough, the finest tier
+ * holding the range is read.
+ * </p>
+ * <p>
+ * Storing new buckets of a tier publishes a {@link FaceRollupsStoredEvent}.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FaceRollupService {
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    private final FaceRollupAggregator faceRollupAggregator;
+    private final FaceRollupRepository faceRollupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private LongSupplier clock = System::currentTimeMillis;
+    private long[] resolutions;
+    private long[] retentions;
+    private long[] rolledBefore;
+
+    @Value("${sensors.rollup.resolutions}")
+    private long[] RESOLUTIONS;
+    @Value("${sensors.rollup.retentions}")
+    private long[] RETENTIONS;
+    @Value("${sensors.rollup.min-points}")
+    private int MIN_POINTS;
+
+
+    /**
+     * Validates the tiers and starts rolling up every coarser tier after its last stored bucket, or from the first
+     * stored bucket of the tier below, or else from the bucket holding the current watermark of the finest tier.
+     *
+     * @throws IllegalStateException if the tiers are not consistent
+     */
+    @PostConstruct
+    public void initializeTiers() {
+        if (RESOLUTIONS.length == 0 || RESOLUTIONS.length != RETENTIONS.length) {
+            throw new IllegalStateException("sensors.rollup.resolutions and sensors.rollup.retentions " +
+                    "must have the same non-zero number of values");
+        }
+        resolutions = new long[RESOLUTIONS.length];
+        retentions = new long[RESOLUTIONS.length];
+        rolledBefore = new long[RESOLUTIONS.length];
+        for (int tier = 0; tier < resolutions.length; tier++) {
+            resolutions[tier] = TimeUnit.SECONDS.toMillis(RESOLUTIONS[tier]);
+            retentions[tier] = TimeUnit.SECONDS.toMillis(RETENTIONS[tier]);
+            if (resolutions[tier] <= 0 || tier > 0 && resolutions[tier] % resolutions[tier - 1] != 0) {
+                throw new IllegalStateException(
+                        "Every rollup resolution must be a positive multiple of the previous one");
+            }
+        }
+        long closedBefore = faceRollupAggregator.getClosedBefore();
+        rolledBefore[0] = closedBefore;
+        for (int tier = 1; tier < resolutions.length; tier++) {
+            int current = tier;
+            rolledBefore[tier] = faceRollupRepository.findLastTimestamp(resolutions[tier])
+                    .map(last -> last + resolutions[current])
+                    .or(() -> faceRollupRepository.findFirstTimestamp(resolutions[current - 1])
+                            .map(first -> bucketOf(first, current)))
+                    .orElseGet(() -> bucketOf(closedBefore, current));
+        }
+        log.info("Rolling up face temperatures with resolutions {} s", Arrays.toString(RESOLUTIONS));
+    }
+
+
+    /**
+     * Scheduled task that stores the closed buckets of the finest tier, computes the buckets of the coarser
+     * tiers that became final and deletes the buckets past the retention of their tier. The progress of the
+     * tiers is kept once the transaction commits; otherwise the closed buckets are handed back.
+     */
+    @Scheduled(fixedDelayString = "${sensors.window.check-interval}", timeUnit = TimeUnit.SECONDS)
+    @Transactional
+    public void rollUp() {
+        List<SensorFaceRollup> closed = faceRollupAggregator.closeBuckets();
+        long[] rolled = rolledBefore.clone();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    rolledBefore = rolled;
+                } else {
+                    faceRollupAggregator.reopenBuckets(closed);
+                    log.warn("Face roll-up not committed, reopened {} face buckets", closed.size());
+                }
+            }
+        });
+        faceRollupRepository.saveAll(closed);
+        if (!closed.isEmpty()) {
+            eventPublisher.publishEvent(new FaceRollupsStoredEvent(resolutions[0], closed));
+        }
+        rolled[0] = faceRollupAggregator.getClosedBefore();
+        for (int tier = 1; tier < resolutions.length; tier++) {
+            while (rolled[tier] + resolutions[tier] <= rolled[tier - 1]) {
+                downsample(tier, rolled[tier]);
+                rolled[tier] += resolutions[tier];
+            }
+        }
+        enforceRetention();
+    }
+
+
+    /**
+     * Retrieves the face rollups starting within a time range from the tier selected for the range.
+     *
+     * @param startOfPeriod the start of the range (in milliseconds since epoch)
+     * @param endOfPeriod   the end of the range (in milliseconds since epoch)
+     * @return the resolution of the selected tier and its buckets within the range
+     * @throws IllegalArgumentException if the range is empty
+     */
+    public FaceRollupResultDto getFaceRollups(long startOfPeriod, long endOfPeriod) {
+        if (startOfPeriod >= endOfPeriod) {
+            throw new IllegalArgumentException("The start of the period must be before its end");
+        }
+        int tier = selectTier(startOfPeriod, endOfPeriod);
+        return new FaceRollupResultDto(resolutions[tier], faceRollupRepository.findRange(resolutions[tier],
+                bucketOf(startOfPeriod, tier), endOfPeriod));
+    }
+
+
+    /**
+     * Selects the coarsest tier that holds the start of the range and yields at least the minimum number
+     * of buckets, or else the finest tier holding the start of the range, or else the tier kept the longest.
+     *
+     * @return the index of the tier
+     */
+    int selectTier(long startOfPeriod, long endOfPeriod) {
+        long now = clock.getAsLong();
+        long maxResolution = (endOfPeriod - startOfPeriod) / Math.max(1, MIN_POINTS);
+        int selected = -1;
+        int longestKept = 0;
+        for (int tier = 0; tier < resolutions.length; tier++) {
+            boolean holdsStart = retentions[tier] == 0 || now - retentions[tier] <= startOfPeriod;
+            if (holdsStart && (selected < 0 || resolutions[tier] <= maxResolution)) {
+                selected = tier;
+            }
+            if (retentions[longestKept] != 0 && (retentions[tier] == 0 || retentions[tier] > retentions[longestKept])) {
+                longestKept = tier;
+            }
+        }
+        return selected < 0 ? longestKept : selected;
+    }
+
+
+    /**
+     * Computes a bucket of a tier by merging the buckets of the tier below that it spans.
+     *
+     * @param tier  the index of the tier
+     * @param start the start of the bucket in milliseconds since epoch
+     */
+    private void downsample(int tier, long start) {
+        List<SensorFaceRollup> sources = faceRollupRepository.findRange(resolutions[tier - 1], start,
+                start + resolutions[tier]);
+        SensorFaceRollup[] merged = new SensorFaceRollup[FACES.length];
+        for (SensorFaceRollup source : sources) {
+            SensorFaceRollup rollup = merged[source.getFace().ordinal()];
+            if (rollup == null) {
+                merged[source.getFace().ordinal()] = new SensorFaceRollup(resolutions[tier], start, source.getFace(),
+                        source.getReadings(), source.getTemperatureSum(), source.getMinTemperature(),
+                        source.getMaxTemperature());
+            } else {
+                rollup.setReadings(rollup.getReadings() + source.getReadings());
+                rollup.setTemperatureSum(rollup.getTemperatureSum() + source.getTemperatureSum());
+                rollup.setMinTemperature(Math.min(rollup.getMinTemperature(), source.getMinTemperature()));
+                rollup.setMaxTemperature(Math.max(rollup.getMaxTemperature(), source.getMaxTemperature()));
+            }
+        }
+        List<SensorFaceRollup> rollups = Arrays.stream(merged).filter(Objects::nonNull).toList();
+        if (!rollups.isEmpty()) {
+            faceRollupRepository.saveAll(rollups);
+            eventPublisher.publishEvent(new FaceRollupsStoredEvent(resolutions[tier], rollups));
+            log.debug("Rolled up {} face buckets of {} ms at {}", rollups.size(), resolutions[tier], start);
+        }
+    }
+
+
+    /**
+     * Deletes the buckets older than the retention of their tier.
+     */
+    private void enforceRetention() {
+        long now = clock.getAsLong();
+        for (int tier = 0; tier < resolutions.length; tier++) {
+            if (retentions[tier] > 0) {
+                int deleted = faceRollupRepository.deleteOlderThan(resolutions[tier], now - retentions[tier]);
+                if (deleted > 0) {
+                    log.debug("Deleted {} face buckets of {} ms past retention", deleted, resolutions[tier]);
+                }
+            }
+        }
+    }
+
+
+    private long bucketOf(long timestamp, int tier) {
+        return timestamp - Math.floorMod(timestamp, resolutions[tier]);
+    }
+}
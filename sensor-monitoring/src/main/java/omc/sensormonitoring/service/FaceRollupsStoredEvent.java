@@ -0,0 +1,13 @@
+package omc.sensormonitoring.service;
+
+import omc.sensormonitoring.model.SensorFaceRollup;
+import java.util.List;
+
+/**
+ * Published by the {@link FaceRollupService} within the transaction that stores new buckets of a rollup tier.
+ *
+ * @param resolution the resolution of the tier (in milliseconds)
+ * @param rollups    the stored buckets
+ */
+public record FaceRollupsStoredEvent(long resolution, List<SensorFaceRollup> rollups) {
+}
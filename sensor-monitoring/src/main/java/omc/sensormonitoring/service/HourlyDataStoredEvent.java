@@ -0,0 +1,17 @@
+package omc.sensormonitoring.service;
+
+import omc.sensormonitoring.model.*;
+import java.util.List;
+
+/**
+ * Published by the {@link SensorService} within the transaction that stores the face averages and
+ * the deviated sensors of an hour.
+ *
+ * @param endOfHour       the end of the stored hour in milliseconds since epoch
+ * @param faces           the stored face averages of the hour
+ * @param deviatedSensors the stored deviated sensors of the hour
+ */
+public record HourlyDataStoredEvent(long endOfHour,
+                                    List<SensorFaceData> faces,
+                                    List<SensorDeviatedData> deviatedSensors) {
+}
@@ -0,0 +1,137 @@
+package omc.sensormonitoring.service;
+
+import jakarta.annotation.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.aggregation.HourlySensorAggregator;
+import omc.sensormonitoring.repository.SensorRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Catches up the hours the hourly task never processed, e.g. because the application was down
+ * when they closed or because storing their averages failed.
+ * <p>
+ * On startup and then every {@code sensors.catchup.interval} seconds the reconciler looks up the hours that
+ * still hold raw sensor data and hands each of them to {@link SensorService#aggregateMissedHour(long)}, which
+ * aggregates and purges the hour in its own transaction. The hours are processed in parallel by at most
+ * {@code sensors.catchup.concurrency} worker threads, so that catching up a long downtime neither delays
+ * the scheduled tasks nor exhausts the connection pool; ingestion does not wait for it.
+ * </p>
+ * <p>
+ * Only hours before the first hour of the {@link HourlySensorAggregator} are considered, together with hours
+ * that closed more than an hour ago and whose raw data was therefore not purged by the hourly task. A run
+ * is skipped while the previous one is still in progress.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MissedHourReconciler {
+    private static final long HOUR_IN_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final SensorService sensorService;
+    private final SensorRepository sensorRepository;
+    private final HourlySensorAggregator hourlySensorAggregator;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong caughtUp = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private ExecutorService executor;
+
+    @Value("${sensors.catchup.concurrency}")
+    private int CONCURRENCY;
+
+
+    /**
+     * Creates the pool of catch-up workers.
+     */
+    @PostConstruct
+    public void initializeExecutor() {
+        executor = Executors.newFixedThreadPool(Math.max(1, CONCURRENCY),
+                new CustomizableThreadFactory("sensor-catchup-"));
+    }
+
+
+    /**
+     * Stops the catch-up workers; hours not yet processed are picked up by the next run.
+     */
+    @PreDestroy
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+
+    /**
+     * Scheduled task that starts catching up the missed hours unless the previous run is still in progress.
+     */
+    @Scheduled(fixedDelayString = "${sensors.catchup.interval}", timeUnit = TimeUnit.SECONDS)
+    public void reconcile() {
+        catchUp();
+    }
+
+
+    /**
+     * Looks up the missed hours and processes them on the catch-up workers.
+     *
+     * @return a future completed once all missed hours were processed, or right away if a run is in progress
+     */
+    CompletableFuture<Void> catchUp() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Skipping catch-up of missed hours, the previous run is still in progress");
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(this::findMissedHours, executor)
+                .thenCompose(hours -> CompletableFuture.allOf(hours.stream()
+                        .map(hour -> CompletableFuture.runAsync(() -> aggregateMissedHour(hour), executor))
+                        .toArray(CompletableFuture[]::new)))
+                .whenComplete((result, e) -> {
+                    running.set(false);
+                    if (e != null) {
+                        log.error("Error catching up missed hours: {}", e.getMessage());
+                    }
+                });
+    }
+
+
+    /**
+     * @return the number of caught up hours since startup
+     */
+    public long getCaughtUp() {
+        return caughtUp.get();
+    }
+
+
+    /**
+     * @return the number of hours that failed to be caught up since startup
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+
+    private List<Long> findMissedHours() {
+        long before = Math.max(hourlySensorAggregator.getFirstHour(),
+                hourlySensorAggregator.getStats().watermark() - HOUR_IN_MILLIS);
+        List<Long> hours = sensorRepository.findHoursBefore(before);
+        if (!hours.isEmpty()) {
+            log.info("Catching up {} missed hours with {} workers", hours.size(), CONCURRENCY);
+        }
+        return hours;
+    }
+
+
+    private void aggregateMissedHour(long startOfHour) {
+        try {
+            sensorService.aggregateMissedHour(startOfHour);
+            caughtUp.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.error("Error catching up hour starting at {}: {}", startOfHour, e.getMessage());
+        }
+    }
+}
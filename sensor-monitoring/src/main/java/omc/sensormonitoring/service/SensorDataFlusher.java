@@ -0,0 +1,298 @@
+package omc.sensormonitoring.service;
+
+import jakarta.annotation.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import omc.sensormonitoring.aggregation.*;
+import omc.sensormonitoring.dto.FlushStatsDto;
+import omc.sensormonitoring.ingest.*;
+import omc.sensormonitoring.repository.SensorDataWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Flushes the {@link SensorDataBuffer} to the database.
+ * <p>
+ * A dedicated flusher thread wakes up every {@code sensors.db.batch.frequency} seconds, or as soon as the
+ * buffer reaches {@code sensors.db.flush.threshold} readings, and drains the buffer until it is empty.
+ * The drained readings are split into batches that are written in parallel by a pool of writer workers,
+ * each on its own pooled connection.
+ * </p>
+ * <p>
+ * The batch size adapts to the measured write latency: after each batch it is scaled by the ratio of
+ * the target latency to the measured one (at most doubled or halved), within
+ * [{@code sensors.db.batch.min-size}, {@code sensors.db.batch.size}].
+ * </p>
+ * <p>
+ * When virtual threads are enabled ({@code spring.threads.virtual.enabled} on Java 21+), the flusher and every
+ * batch run on virtual threads. The number of batches written at the same time, and so the number of
+ * database connections held by the flusher, is limited by a semaphore of {@code sensors.db.flush.writers}
+ * permits in both modes.
+ * </p>
+ * <p>
+ * Every drained batch is first added to the {@link HourlySensorAggregator} and the {@link FaceRollupAggregator}.
+ * With raw persistence disabled
+ * ({@code sensors.db.raw.enabled}) the readings are only aggregated and never written to the database.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SensorDataFlusher {
+    private final SensorDataBuffer sensorDataBuffer;
+    private final SensorDataWriter sensorDataWriter;
+    private final SensorDataWal sensorDataWal;
+    private final HourlySensorAggregator hourlySensorAggregator;
+    private final FaceRollupAggregator faceRollupAggregator;
+    private final Environment environment;
+    private final Semaphore wakeups = new Semaphore(0);
+    private final AtomicInteger batchSize = new AtomicInteger();
+    private final AtomicLong lastBatchMillis = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean running = true;
+    private Semaphore connectionPermits;
+    private Thread flusherThread;
+    private Executor writerExecutor;
+
+    @Value("${sensors.db.batch.size}")
+    private int MAX_BATCH_SIZE;
+    @Value("${sensors.db.batch.min-size}")
+    private int MIN_BATCH_SIZE;
+    @Value("${sensors.db.batch.frequency}")
+    private int BATCH_SAVE_FREQUENCY;
+    @Value("${sensors.db.flush.writers}")
+    private int WRITERS;
+    @Value("${sensors.db.flush.threshold}")
+    private int FLUSH_THRESHOLD;
+    @Value("${sensors.db.flush.target-latency}")
+    private long TARGET_LATENCY_MILLIS;
+    @Value("${sensors.db.raw.enabled}")
+    private boolean RAW_PERSISTENCE;
+
+
+    /**
+     * Starts the flusher thread and the writer workers on platform or virtual threads,
+     * and registers the buffer fill listener.
+     */
+    @PostConstruct
+    public void initializeExecutor() {
+        batchSize.set(MAX_BATCH_SIZE);
+        connectionPermits = new Semaphore(WRITERS);
+        boolean virtualThreads = Threading.VIRTUAL.isActive(environment);
+        ThreadFactory flusherThreadFactory;
+        if (virtualThreads) {
+            writerExecutor = new VirtualThreadTaskExecutor("sensor-writer-");
+            flusherThreadFactory = new VirtualThreadTaskExecutor("sensor-flusher-").getVirtualThreadFactory();
+        } else {
+            writerExecutor = Executors.newFixedThreadPool(WRITERS, new CustomizableThreadFactory("sensor-writer-"));
+            flusherThreadFactory = new CustomizableThreadFactory("sensor-flusher-");
+        }
+        log.info("Flushing sensor data with {} writers on {} threads, raw persistence {}", WRITERS,
+                virtualThreads ? "virtual" : "platform", RAW_PERSISTENCE ? "enabled" : "disabled");
+        replayWal();
+        sensorDataBuffer.setFillListener(FLUSH_THRESHOLD, wakeups::release);
+        flusherThread = flusherThreadFactory.newThread(this::runFlushLoop);
+        flusherThread.start();
+    }
+
+
+    /**
+     * Stops the flusher thread, flushes the remaining readings and stops the writer workers.
+     */
+    @PreDestroy
+    public void shutdownExecutor() throws InterruptedException {
+        running = false;
+        wakeups.release();
+        flusherThread.join(TimeUnit.SECONDS.toMillis(BATCH_SAVE_FREQUENCY * 10L));
+        if (writerExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+
+    /**
+     * Returns the current adaptive batch size and the cumulative counters of the flusher.
+     *
+     * @return the flusher statistics
+     */
+    public FlushStatsDto getStats() {
+        return new FlushStatsDto(WRITERS, batchSize.get(), lastBatchMillis.get(), written.get(), failed.get(),
+                sensorDataWal.pendingSegments());
+    }
+
+
+    /**
+     * Aggregates and writes the readings left in the WAL by the previous run before new readings are flushed.
+     * If the database is not available, the WAL is kept and replayed on the next startup.
+     */
+    private void replayWal() {
+        try {
+            long replayed = sensorDataWal.replay(columns -> {
+                hourlySensorAggregator.add(columns);
+                faceRollupAggregator.add(columns);
+                if (!RAW_PERSISTENCE) {
+                    return;
+                }
+                for (int from = 0; from < columns.size(); from += MAX_BATCH_SIZE) {
+                    sensorDataWriter.write(columns, from, Math.min(from + MAX_BATCH_SIZE, columns.size()));
+                }
+            });
+            if (replayed > 0) {
+                log.info("Replayed {} sensor readings from WAL", replayed);
+            }
+        } catch (DataAccessException e) {
+            log.error("Error replaying sensor data WAL: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Writes the readings of failed flushes kept in the WAL again. They were aggregated when they were drained,
+     * so they are only written. If the database is still not available, they stay pending for the next retry.
+     */
+    private void retryWal() {
+        if (!RAW_PERSISTENCE || sensorDataWal.pendingSegments() == 0) {
+            return;
+        }
+        try {
+            long retried = sensorDataWal.retryPending(columns -> {
+                for (int from = 0; from < columns.size(); from += MAX_BATCH_SIZE) {
+                    sensorDataWriter.write(columns, from, Math.min(from + MAX_BATCH_SIZE, columns.size()));
+                }
+            });
+            written.addAndGet(retried);
+            log.info("Wrote {} sensor readings of failed flushes from WAL", retried);
+        } catch (DataAccessException e) {
+            log.warn("Error writing {} pending WAL segments: {}", sensorDataWal.pendingSegments(), e.getMessage());
+        }
+    }
+
+
+    /**
+     * Waits for the next scheduled flush or for the buffer fill listener, then drains the buffer.
+     * Runs until the application shuts down and performs a final flush on exit.
+     */
+    private void runFlushLoop() {
+        while (running) {
+            try {
+                wakeups.tryAcquire(BATCH_SAVE_FREQUENCY, TimeUnit.SECONDS);
+                wakeups.drainPermits();
+                flush();
+                retryWal();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error flushing sensor data: {}", e.getMessage());
+            }
+        }
+        flush();
+    }
+
+
+    /**
+     * Drains the buffer until it is empty: swaps every non-empty stripe, aggregates its readings, writes them
+     * in parallel batches, gives the storage back, and repeats while new readings keep arriving.
+     */
+    void flush() {
+        int flushed = 0;
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        do {
+            pending.clear();
+            for (int stripe = 0; stripe < sensorDataBuffer.stripeCount(); stripe++) {
+                SensorDataColumns columns = sensorDataBuffer.swap(stripe);
+                if (columns == null) {
+                    continue;
+                }
+                flushed += columns.size();
+                hourlySensorAggregator.add(columns);
+                faceRollupAggregator.add(columns);
+                if (RAW_PERSISTENCE) {
+                    pending.add(writeStripe(stripe, columns));
+                } else {
+                    sensorDataBuffer.release(stripe, columns, true);
+                    pending.add(CompletableFuture.completedFuture(null));
+                }
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        } while (!pending.isEmpty() && running);
+        if (flushed == 0) {
+            log.trace("No sensor data to flush.");
+        }
+    }
+
+
+    /**
+     * Splits the readings of a stripe into batches of the current adaptive size and submits them
+     * to the writer workers.
+     *
+     * @param stripe  the index of the stripe
+     * @param columns the readings swapped out of the stripe
+     * @return a future completed once all batches are written and the storage is given back to the buffer
+     */
+    private CompletableFuture<Void> writeStripe(int stripe, SensorDataColumns columns) {
+        int size = batchSize.get();
+        List<CompletableFuture<Boolean>> batches = new ArrayList<>();
+        for (int from = 0; from < columns.size(); from += size) {
+            int to = Math.min(from + size, columns.size());
+            int batchFrom = from;
+            batches.add(CompletableFuture.supplyAsync(() -> writeBatch(columns, batchFrom, to), writerExecutor));
+        }
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new))
+                .handle((result, e) -> e == null && batches.stream().allMatch(CompletableFuture::join))
+                .thenAccept(persisted -> sensorDataBuffer.release(stripe, columns, persisted));
+    }
+
+
+    /**
+     * Writes a single batch once a connection permit is available and adapts the batch size
+     * to the measured latency.
+     *
+     * @param columns the buffered sensor data
+     * @param from    the position of the first reading to write, inclusive
+     * @param to      the position of the last reading to write, exclusive
+     * @return {@code true} if the batch was written
+     */
+    private boolean writeBatch(SensorDataColumns columns, int from, int to) {
+        connectionPermits.acquireUninterruptibly();
+        long start = System.nanoTime();
+        try {
+            sensorDataWriter.write(columns, from, to);
+            written.addAndGet(to - from);
+        } catch (DataAccessException e) {
+            failed.addAndGet(to - from);
+            log.error("Error saving sensor data batch: {}", e.getMessage());
+            return false;
+        } finally {
+            connectionPermits.release();
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        lastBatchMillis.set(elapsedMillis);
+        adaptBatchSize(to - from, elapsedMillis);
+        log.debug("Saved into DB batch with size {} in {} ms", to - from, elapsedMillis);
+        return true;
+    }
+
+
+    /**
+     * Scales the batch size by the ratio of the target latency to the measured one,
+     * at most doubling or halving it per batch.
+     *
+     * @param writtenSize   the size of the written batch
+     * @param elapsedMillis the time it took to write the batch
+     */
+    private void adaptBatchSize(int writtenSize, long elapsedMillis) {
+        double factor = Math.max(0.5, Math.min(2.0, (double) TARGET_LATENCY_MILLIS / elapsedMillis));
+        int next = (int) Math.max(MIN_BATCH_SIZE, Math.min(MAX_BATCH_SIZE, writtenSize * factor));
+        batchSize.updateAndGet(current -> factor < 1.0 ? Math.min(current, next) : Math.max(current, next));
+    }
+}
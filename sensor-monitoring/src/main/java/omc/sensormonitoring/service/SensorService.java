@@ -1,6 +1,8 @@
 package omc.sensormonitoring.service;
 
-import omc.sensormonitoring.dto.SensorDataDto;
+import omc.sensormonitoring.aggregation.FaceAggregateConsumer;
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.ingest.SensorDataColumns;
 import omc.sensormonitoring.model.*;
 import java.util.List;
 
@@ -20,6 +22,37 @@ public interface SensorService {
      */
     void saveSensorData(SensorDataDto sensorDataDto);
 
+    /**
+     * Saves the provided batch of sensor data to the system in a single call.
+     *
+     * @param sensorDataDtoList the validated sensor data to be saved
+     */
+    void saveSensorDataBatch(List<SensorDataDto> sensorDataDtoList);
+
+    /**
+     * Saves a batch of sensor readings held in primitive columns to the system in a single call.
+     *
+     * @param columns the decoded sensor readings to be saved
+     */
+    void saveSensorDataBatch(SensorDataColumns columns);
+
+    /**
+     * Saves a single sensor reading provided as primitive values.
+     *
+     * @param id          the unique identifier of the sensor
+     * @param timestamp   the timestamp of the reading (in milliseconds since epoch)
+     * @param face        the face direction of the sensor
+     * @param temperature the temperature recorded by the sensor
+     */
+    void saveSensorData(long id, long timestamp, FaceDirection face, double temperature);
+
+    /**
+     * Retrieves the current state of the ingestion pipeline, such as the fill level of the ingest buffer.
+     *
+     * @return the {@link IngestStatsDto} describing the ingestion pipeline
+     */
+    IngestStatsDto getIngestStats();
+
     /**
      * Retrieves average temperatures for each face direction over a specified time period.
      *
@@ -29,14 +62,73 @@ public interface SensorService {
     List<SensorFaceData> getAvgFaceDirectionTemperatures(long startOfPeriod);
 
     /**
-     * Retrieves a list of malfunctioning sensors detected in the system.
+     * Retrieves the face temperature rollups within a time range from the rollup tier best suited to its length.
+     *
+     * @param startOfPeriod the start of the time period (in milliseconds since epoch)
+     * @param endOfPeriod   the end of the time period (in milliseconds since epoch)
+     * @return the {@link FaceRollupResultDto} with the resolution of the tier and the rollups
+     */
+    FaceRollupResultDto getFaceRollups(long startOfPeriod, long endOfPeriod);
+
+    /**
+     * Retrieves the hourly average, minimum and maximum temperature and the number of readings of a sensor
+     * within a time range.
+     *
+     * @param sensorId      the unique identifier of the sensor
+     * @param startOfPeriod the start of the time period (in milliseconds since epoch)
+     * @param endOfPeriod   the end of the time period (in milliseconds since epoch)
+     * @return a list of {@link SensorAvgData} of the hours ending within the period, oldest first
+     */
+    List<SensorAvgData> getSensorHistory(long sensorId, long startOfPeriod, long endOfPeriod);
+
+    /**
+     * Streams the average, minimum and maximum of the hourly face averages within a time range, grouped into
+     * buckets of the specified granularity, ordered by bucket and face direction.
+     *
+     * @param startOfPeriod the start of the time period (in milliseconds since epoch)
+     * @param endOfPeriod   the end of the time period (in milliseconds since epoch)
+     * @param granularity   the length of the buckets
+     * @param face          the face direction to filter by, or {@code null} for all face directions
+     * @param consumer      the consumer receiving the aggregated temperatures of every bucket and face direction
+     */
+    void streamFaceAggregates(long startOfPeriod, long endOfPeriod, Granularity granularity, FaceDirection face,
+                              FaceAggregateConsumer consumer);
+
+    /**
+     * Estimates percentiles of the temperatures of every face direction within a time range
+     * by merging the stored hourly quantile sketches.
+     *
+     * @param startOfPeriod the start of the time period (in milliseconds since epoch)
+     * @param endOfPeriod   the end of the time period (in milliseconds since epoch)
+     * @param quantiles     the quantiles to estimate, between 0 and 1
+     * @return the {@link FaceQuantileResultDto} with the estimated temperatures of every face direction
+     */
+    FaceQuantileResultDto getFaceQuantiles(long startOfPeriod, long endOfPeriod, double[] quantiles);
+
+    /**
+     * Retrieves a page of the malfunctioning sensors detected within a time range, newest first.
      *
-     * @return a list of {@link SensorDeviatedData} representing the malfunctioning sensors
+     * @param startOfPeriod   the start of the time period, inclusive (in milliseconds since epoch)
+     * @param endOfPeriod     the end of the time period, exclusive (in milliseconds since epoch)
+     * @param face            the face direction to filter by, or {@code null} for all face directions
+     * @param sensorId        the sensor id to filter by, or {@code null} for all sensors
+     * @param beforeTimestamp the {@code nextTimestamp} of the previous page, or {@code null} for the first page
+     * @param beforeId        the {@code nextId} of the previous page, or {@code null} for the first page
+     * @param limit           the maximum number of sensors of the page
+     * @return the {@link DeviatedSensorPageDto} with the malfunctioning sensors and the keyset of the next page
      */
-    List<SensorDeviatedData> getMalfunctioningSensors();
+    DeviatedSensorPageDto getMalfunctioningSensors(long startOfPeriod, long endOfPeriod, FaceDirection face,
+                                                   Long sensorId, Long beforeTimestamp, Long beforeId, int limit);
 
     /**
      * Scheduled task that calculates and stores hourly average sensor data.
      */
     void calculateAndStoreHourlyAverageData();
+
+    /**
+     * Aggregates an hour missed by the hourly task from its raw sensor data and purges the raw data.
+     *
+     * @param startOfHour the start of the hour (in milliseconds since epoch)
+     */
+    void aggregateMissedHour(long startOfHour);
 }
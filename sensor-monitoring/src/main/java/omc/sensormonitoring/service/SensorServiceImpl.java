@@ -1,28 +1,53 @@
 package omc.sensormonitoring.service;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import omc.sensormonitoring.dto.SensorDataDto;
+import omc.sensormonitoring.aggregation.*;
+import omc.sensormonitoring.detection.OnlineDeviationDetector;
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.ingest.*;
 import omc.sensormonitoring.model.*;
 import omc.sensormonitoring.repository.*;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.dao.DataAccessException;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.*;
 import java.time.*;
 import java.util.*;
-import java.util.concurrent.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of the {@link SensorService} interface that manages sensor data processing and storage.
  * <p>
  * This service is responsible for receiving sensor data, calculating hourly averages, detecting sensor deviations,
- * and flushing batched data to the database. It uses a concurrent queue for handling incoming sensor data
- * and executes scheduled tasks for data processing.
+ * and accepting incoming sensor data into a bounded {@link SensorDataBuffer}, which is written to the database
+ * by the {@link SensorDataFlusher}. It executes scheduled tasks for data processing.
+ * </p>
+ * <p>
+ * The hourly averages are taken from the event-time windows of the {@link HourlySensorAggregator}, which
+ * aggregates the readings as they are flushed; every closed window is processed exactly once. Only an hour
+ * the aggregator did not see from its start is aggregated from the raw sensor data, provided raw persistence
+ * is enabled; the raw data is streamed through the {@link SensorStatsReader} rather than loaded as a whole.
+ * </p>
+ * <p>
+ * Next to every hourly face average, a {@link QuantileSketch} of all readings of the face within the hour is
+ * stored, taken from the window or, on the raw fallback, built from a second pass over the raw readings.
+ * Percentiles over any time range are estimated by merging the stored sketches.
+ * </p>
+ * <p>
+ * The average, minimum, maximum and number of readings of every sensor within the hour are kept as its hourly
+ * history in {@code sensor_avg_data}, written in bulk by the {@link SensorHistoryWriter}.
+ * </p>
+ * <p>
+ * Storing the data of an hour publishes a {@link HourlyDataStoredEvent}, which invalidates the dashboard cache
+ * and is pushed to the live dashboards once the transaction commits.
+ * </p>
+ * <p>
+ * Every accepted reading is also passed to the {@link OnlineDeviationDetector}, which flags deviating sensors
+ * right away rather than at the end of the hour.
  * </p>
  * <p>
  * The service integrates with several repositories to perform database operations and applies business rules
@@ -33,83 +58,111 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class SensorServiceImpl implements SensorService {
-    private final ConcurrentLinkedQueue<SensorDataDto> sensorQueue = new ConcurrentLinkedQueue<>();
-    private final ScheduledExecutorService batchExecutor = Executors.newScheduledThreadPool(5);
-    private final SensorRepository sensorRepository;
+    private final SensorStatsReader sensorStatsReader;
+    private final SensorDataPartitionManager sensorDataPartitionManager;
     private final SensorDeviatedRepository sensorDeviatedRepository;
     private final FaceAvgRepository faceAvgRepository;
-    private final JdbcTemplate jdbcTemplate;
+    private final FaceSketchRepository faceSketchRepository;
+    private final FaceAggregateReader faceAggregateReader;
+    private final SensorAvgRepository sensorAvgRepository;
+    private final SensorHistoryWriter sensorHistoryWriter;
+    private final SensorDataBuffer sensorDataBuffer;
+    private final SensorDataFlusher sensorDataFlusher;
+    private final HourlySensorAggregator hourlySensorAggregator;
+    private final SensorStatsCalculator sensorStatsCalculator;
+    private final FaceRollupService faceRollupService;
+    private final OnlineDeviationDetector onlineDeviationDetector;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Value("${sensors.db.batch.size}")
-    private int BATCH_SIZE;
-    @Value("${sensors.db.batch.frequency}")
-    private int BATCH_SAVE_FREQUENCY;
     @Value("${sensors.temperature.acceptable.deviation}")
     private double DEVIATION_PERCENTAGE;
+    @Value("${sensors.history.enabled}")
+    private boolean HISTORY_ENABLED;
+    @Value("${sensors.history.retention}")
+    private long HISTORY_RETENTION;
+    @Value("${sensors.db.raw.enabled}")
+    private boolean RAW_PERSISTENCE;
 
     private static final long HOUR_IN_MILLIS = 60 * 60 * 1000;
-    private static final String INSERT_SENSOR_DATA_QUERY =
-            "INSERT INTO sensor_data (id, timestamp, face, temperature) VALUES (?, ?, ?, ?)";
+    private static final FaceDirection[] FACES = FaceDirection.values();
 
 
     /**
-     * Initializes the scheduled executor for flushing the sensor data queue.
+     * Saves sensor data into the ingest buffer.
+     *
+     * @param sensorDataDto the sensor data to save
+     * @throws SensorBufferFullException if the buffer is full
      */
-    @PostConstruct
-    public void initializeExecutor() {
-        batchExecutor.scheduleAtFixedRate(this::flushQueue, 0, BATCH_SAVE_FREQUENCY, TimeUnit.SECONDS);
+    public void saveSensorData(SensorDataDto sensorDataDto) {
+        saveSensorData(sensorDataDto.id(), sensorDataDto.timestamp(), sensorDataDto.face(),
+                sensorDataDto.temperature());
     }
 
 
     /**
-     * Saves sensor data into the concurrent queue.
+     * Saves a batch of sensor data into the ingest buffer. The batch is accepted or rejected as a whole.
      *
-     * @param sensorDataDto the sensor data to save
+     * @param sensorDataDtoList the sensor data to save
+     * @throws SensorBufferFullException if the buffer is full
      */
-    public void saveSensorData(SensorDataDto sensorDataDto) {
-        sensorQueue.add(sensorDataDto);
+    public void saveSensorDataBatch(List<SensorDataDto> sensorDataDtoList) {
+        if (!sensorDataBuffer.offerAll(sensorDataDtoList)) {
+            throw new SensorBufferFullException();
+        }
+        for (SensorDataDto sensorDataDto : sensorDataDtoList) {
+            onlineDeviationDetector.add(sensorDataDto.id(), sensorDataDto.timestamp(), sensorDataDto.face(),
+                    sensorDataDto.temperature());
+        }
     }
 
 
     /**
-     * Flushes the sensor data queue and saves data in batches to the database.
+     * Saves a batch of sensor readings held in primitive columns into the ingest buffer. The batch is accepted
+     * or rejected as a whole.
+     *
+     * @param columns the sensor readings to save
+     * @throws SensorBufferFullException if the buffer is full
      */
-    void flushQueue() {
-        if (sensorQueue.isEmpty()) {
-            log.trace("No sensor data to flush.");
-            return;
+    public void saveSensorDataBatch(SensorDataColumns columns) {
+        if (!sensorDataBuffer.offerAll(columns)) {
+            throw new SensorBufferFullException();
         }
-
-        List<SensorDataDto> batchList = new ArrayList<>();
-        while (!sensorQueue.isEmpty() && batchList.size() < BATCH_SIZE) {
-            batchList.add(sensorQueue.poll());
+        for (int i = 0; i < columns.size(); i++) {
+            onlineDeviationDetector.add(columns.id(i), columns.timestamp(i), columns.face(i), columns.temperature(i));
         }
+    }
 
-        if (!batchList.isEmpty()) {
-            try {
-                saveSensorDataInBatch(batchList);
-            } catch (DataAccessException e) {
-                log.error("Error saving sensor data batch: {}", e.getMessage());
-            }
+
+    /**
+     * Saves a single sensor reading provided as primitive values into the ingest buffer.
+     *
+     * @param id          the unique identifier of the sensor
+     * @param timestamp   the timestamp of the reading (in milliseconds since epoch)
+     * @param face        the face direction of the sensor
+     * @param temperature the temperature recorded by the sensor
+     * @throws SensorBufferFullException if the buffer is full
+     */
+    public void saveSensorData(long id, long timestamp, FaceDirection face, double temperature) {
+        if (!sensorDataBuffer.offer(id, timestamp, face, temperature)) {
+            throw new SensorBufferFullException();
         }
+        onlineDeviationDetector.add(id, timestamp, face, temperature);
     }
 
 
     /**
-     * Saves a list of sensor data in batch to the database.
+     * Retrieves the current state of the ingestion pipeline.
      *
-     * @param sensorDataDtoList the list of sensor data to save
+     * @return the ingestion statistics
      */
-    private void saveSensorDataInBatch(List<SensorDataDto> sensorDataDtoList) {
-        List<Object[]> batchArgs = sensorDataDtoList.stream()
-                .map(sensor -> new Object[]{sensor.id(), sensor.timestamp(), sensor.face().name(), sensor.temperature()})
-                .toList();
-
-        jdbcTemplate.batchUpdate(INSERT_SENSOR_DATA_QUERY, batchArgs);
-        log.debug("Saved into DB batch with size {}", batchArgs.size());
+    public IngestStatsDto getIngestStats() {
+        return new IngestStatsDto(sensorDataBuffer.getStats(), sensorDataFlusher.getStats(),
+                hourlySensorAggregator.getStats(), onlineDeviationDetector.getStats());
     }
 
 
+
+
     /**
      * Retrieves average face direction temperatures for a given period.
      *
@@ -122,41 +175,266 @@ public class SensorServiceImpl implements SensorService {
 
 
     /**
-     * Retrieves a list of malfunctioning sensors.
+     * Retrieves the face temperature rollups within a time range.
+     *
+     * @param startOfPeriod the start of the time period
+     * @param endOfPeriod   the end of the time period
+     * @return the rollups of the tier selected for the period
+     */
+    public FaceRollupResultDto getFaceRollups(long startOfPeriod, long endOfPeriod) {
+        return faceRollupService.getFaceRollups(startOfPeriod, endOfPeriod);
+    }
+
+
+    /**
+     * Retrieves the hourly statistics of a sensor for the hours ending within a time range.
+     *
+     * @param sensorId      the unique identifier of the sensor
+     * @param startOfPeriod the start of the time period, exclusive
+     * @param endOfPeriod   the end of the time period, inclusive
+     * @return the hourly statistics of the sensor, oldest first
+     */
+    public List<SensorAvgData> getSensorHistory(long sensorId, long startOfPeriod, long endOfPeriod) {
+        return sensorAvgRepository.findHistory(sensorId, startOfPeriod, endOfPeriod);
+    }
+
+
+    /**
+     * Streams the hourly face averages of the hours ending within a time range, grouped by the database into
+     * buckets of the requested granularity. Not transactional: the buckets are read in pages by separate queries,
+     * so no connection is held while the consumer writes a page.
      *
-     * @return a list of malfunctioning sensor data
+     * @param startOfPeriod the start of the time period, exclusive
+     * @param endOfPeriod   the end of the time period, inclusive
+     * @param granularity   the length of the buckets
+     * @param face          the face direction to filter by, or {@code null} for all face directions
+     * @param consumer      the consumer receiving the aggregated temperatures of every bucket and face direction
      */
-    public List<SensorDeviatedData> getMalfunctioningSensors() {
-        return sensorDeviatedRepository.findAll();
+    public void streamFaceAggregates(long startOfPeriod, long endOfPeriod, Granularity granularity,
+                                     FaceDirection face, FaceAggregateConsumer consumer) {
+        faceAggregateReader.streamFaceAggregates(startOfPeriod, endOfPeriod, granularity, face, consumer);
     }
 
 
     /**
-     * Scheduled task that calculates and stores hourly average sensor data.
+     * Estimates percentiles of the temperatures of every face direction within a time range by merging the
+     * hourly sketches of the hours ending within the range. Sketches that cannot be merged with the configured
+     * relative accuracy, e.g. stored before it was changed, are skipped.
+     *
+     * @param startOfPeriod the start of the time period, exclusive
+     * @param endOfPeriod   the end of the time period, inclusive
+     * @param quantiles     the quantiles to estimate, between 0 and 1
+     * @return the estimated temperatures of every face direction with readings within the range
+     */
+    public FaceQuantileResultDto getFaceQuantiles(long startOfPeriod, long endOfPeriod, double[] quantiles) {
+        QuantileSketch[] merged = new QuantileSketch[FACES.length];
+        int skipped = 0;
+        for (SensorFaceSketch faceSketch : faceSketchRepository.findRange(startOfPeriod, endOfPeriod)) {
+            int face = faceSketch.getFace().ordinal();
+            if (merged[face] == null) {
+                merged[face] = hourlySensorAggregator.newSketch();
+            }
+            try {
+                merged[face].merge(QuantileSketch.fromBytes(faceSketch.getSketch()));
+            } catch (IllegalArgumentException e) {
+                skipped++;
+            }
+        }
+        if (skipped > 0) {
+            log.warn("Skipped {} face sketches that cannot be merged with the configured relative accuracy", skipped);
+        }
+        List<FaceQuantilesDto> faces = new ArrayList<>(FACES.length);
+        for (int face = 0; face < FACES.length; face++) {
+            QuantileSketch sketch = merged[face];
+            if (sketch == null || sketch.getCount() == 0) {
+                continue;
+            }
+            double[] values = new double[quantiles.length];
+            for (int i = 0; i < quantiles.length; i++) {
+                values[i] = sketch.quantile(quantiles[i]);
+            }
+            faces.add(new FaceQuantilesDto(FACES[face], sketch.getCount(), sketch.getMin(), sketch.getMax(), values));
+        }
+        return new FaceQuantileResultDto(quantiles, hourlySensorAggregator.newSketch().getRelativeAccuracy(), faces);
+    }
+
+
+    /**
+     * Retrieves a page of malfunctioning sensors by keyset pagination on {@code (timestamp, id)}. One record
+     * more than the limit is read to tell whether a further page exists. Without a keyset, or with one at or
+     * after the end of the period, the page starts with the newest record before the end of the period.
+     *
+     * @param startOfPeriod   the start of the time period, inclusive
+     * @param endOfPeriod     the end of the time period, exclusive
+     * @param face            the face direction to filter by, or {@code null}
+     * @param sensorId        the sensor id to filter by, or {@code null}
+     * @param beforeTimestamp the timestamp of the keyset to continue before, or {@code null}
+     * @param beforeId        the sensor id of the keyset to continue before, or {@code null}
+     * @param limit           the maximum number of sensors of the page
+     * @return the page of malfunctioning sensor data
+     */
+    public DeviatedSensorPageDto getMalfunctioningSensors(long startOfPeriod, long endOfPeriod, FaceDirection face,
+                                                          Long sensorId, Long beforeTimestamp, Long beforeId,
+                                                          int limit) {
+        long keysetTimestamp = endOfPeriod;
+        long keysetId = Long.MIN_VALUE;
+        if (beforeTimestamp != null && beforeTimestamp < endOfPeriod) {
+            keysetTimestamp = beforeTimestamp;
+            keysetId = beforeId != null ? beforeId : Long.MIN_VALUE;
+        }
+        List<SensorDeviatedData> sensors = sensorDeviatedRepository.findPage(startOfPeriod, keysetTimestamp, keysetId,
+                face, sensorId, Limit.of(limit + 1));
+        if (sensors.size() <= limit) {
+            return new DeviatedSensorPageDto(sensors, null, null);
+        }
+        SensorDeviatedData last = sensors.get(limit - 1);
+        return new DeviatedSensorPageDto(new ArrayList<>(sensors.subList(0, limit)), last.getTimestamp(), last.getId());
+    }
+
+
+    /**
+     * Scheduled task that calculates and stores the hourly average sensor data of every window
+     * closed by the {@link HourlySensorAggregator} since the previous run. If the transaction does not
+     * commit, the windows are handed back to the aggregator and stored by the next run.
      */
     @Override
-    @Scheduled(cron = "${sensors.scheduling.cron}")
+    @Scheduled(fixedDelayString = "${sensors.window.check-interval}", timeUnit = TimeUnit.SECONDS)
     @Transactional
     public void calculateAndStoreHourlyAverageData() {
-        try {
-            long currentRoundHour = getRoundHourInMillis(System.currentTimeMillis());
-            long previousRoundHour = currentRoundHour - HOUR_IN_MILLIS;
-            log.info("Extracting data for period: {} - {} at {}",
-                    convertMillisToLocalTime(previousRoundHour),
-                    convertMillisToLocalTime(currentRoundHour),
-                    convertMillisToLocalTime(System.currentTimeMillis()));
-
-            List<SensorData> avgBySensor = sensorRepository.findAggregatedSensorData(previousRoundHour, currentRoundHour);
-            if (avgBySensor.isEmpty()) {
-                log.warn("No sensor data found");
-                return;
+        List<HourlyAggregate> windows = hourlySensorAggregator.closeWindows();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && !windows.isEmpty()) {
+                    hourlySensorAggregator.reopenWindows(windows);
+                    log.error("Hourly data not committed, reopened {} windows", windows.size());
+                }
             }
-            log.debug("Extracted average temperature by sensor for the last hour at: {}",
-                    convertMillisToLocalTime(System.currentTimeMillis()));
-            processAndSaveSensorData(avgBySensor, currentRoundHour);
-        } catch (DataAccessException e) {
-            log.error("Error handling sensors data: {}", e.getMessage());
+        });
+        for (HourlyAggregate window : windows) {
+            processWindow(window);
+        }
+    }
+
+
+    /**
+     * Aggregates an hour missed by the hourly task from its raw sensor data and purges the raw data.
+     * If the face averages of the hour were already stored, the raw data is only purged. The readings
+     * stamped with the end of the hour belong to the next hour and are kept.
+     *
+     * @param startOfHour the start of the hour in milliseconds
+     */
+    @Override
+    @Transactional
+    public void aggregateMissedHour(long startOfHour) {
+        long endOfHour = startOfHour + HOUR_IN_MILLIS;
+        if (!faceAvgRepository.existsByTimestamp(endOfHour)) {
+            processRawSensorData(startOfHour, endOfHour - 1, endOfHour);
         }
+        deleteOldSensorData(startOfHour);
+        log.info("Caught up missed hour {} - {}", convertMillisToLocalTime(startOfHour),
+                convertMillisToLocalTime(endOfHour));
+    }
+
+
+    /**
+     * Calculates and stores the hourly average sensor data of a closed window. The statistics of every
+     * sensor are taken from the aggregates of the window, or from the raw sensor data if the aggregator
+     * did not run for the whole hour; the readings stamped with the end of the hour belong to the next hour.
+     * The per-sensor history past the retention is deleted along with it.
+     *
+     * @param window the aggregates of the closed window
+     */
+    private void processWindow(HourlyAggregate window) {
+        long startOfHour = window.hour();
+        long endOfHour = startOfHour + HOUR_IN_MILLIS;
+        log.info("Extracting data for period: {} - {} at {}",
+                convertMillisToLocalTime(startOfHour),
+                convertMillisToLocalTime(endOfHour),
+                convertMillisToLocalTime(System.currentTimeMillis()));
+
+        boolean processed;
+        if (RAW_PERSISTENCE && !hourlySensorAggregator.covers(startOfHour)) {
+            log.info("Aggregating hour from raw sensor data, the in-memory aggregates are incomplete");
+            processed = processRawSensorData(startOfHour, endOfHour - 1, endOfHour);
+        } else {
+            processed = processWindowAggregates(window, endOfHour);
+        }
+        if (processed) {
+            deleteOldSensorData(startOfHour);
+        }
+        if (HISTORY_RETENTION > 0) {
+            deleteExpiredHistory(endOfHour);
+        }
+    }
+
+
+    /**
+     * Calculates and stores the hourly average sensor data from the aggregates of a closed window.
+     *
+     * @param window    the aggregates of the closed window
+     * @param endOfHour the end of the hour in milliseconds
+     * @return {@code false} if the window holds no sensor data
+     */
+    private boolean processWindowAggregates(HourlyAggregate window, long endOfHour) {
+        SensorStatsTable sensorStats = window.sensors();
+        if (sensorStats.size() == 0) {
+            log.warn("No sensor data found");
+            return false;
+        }
+        window.faces().forEach((face, faceAggregate) -> log.debug(
+                "Face {}: {} readings, min {}, max {}, average {}", face, faceAggregate.getCount(),
+                faceAggregate.getMin(), faceAggregate.getMax(), faceAggregate.average()));
+        log.debug("Extracted average temperature by sensor for the last hour at: {}",
+                convertMillisToLocalTime(System.currentTimeMillis()));
+        processAndSaveSensorData(sensorStats, endOfHour);
+        saveFaceSketches(window.sketches(), endOfHour);
+        if (HISTORY_ENABLED) {
+            sensorHistoryWriter.write(sensorStats, endOfHour);
+        }
+        return true;
+    }
+
+
+    /**
+     * Calculates and stores the hourly average sensor data from the raw sensor data within a time range.
+     * <p>
+     * The face averages are reduced by the database; the per-sensor averages are then streamed from
+     * a cursor and checked for deviations row by row, so only the deviated sensors are kept in memory.
+     * The face sketches are built from a pass streaming the readings, and the per-sensor history is
+     * aggregated and inserted by the database.
+     * </p>
+     *
+     * @param startTimestamp the start of the time range
+     * @param endTimestamp   the end of the time range, inclusive
+     * @param endOfHour      the end of the hour in milliseconds
+     * @return {@code false} if there is no sensor data within the range
+     */
+    private boolean processRawSensorData(long startTimestamp, long endTimestamp, long endOfHour) {
+        double[] avgByDirection = sensorStatsReader.findFaceAverages(startTimestamp, endTimestamp);
+        if (Arrays.stream(avgByDirection).allMatch(Double::isNaN)) {
+            log.warn("No sensor data found");
+            return false;
+        }
+        List<SensorDeviatedData> deviatedSensors = new ArrayList<>();
+        sensorStatsReader.streamSensorAverages(startTimestamp, endTimestamp, (id, timestamp, face, temperature) -> {
+            if (SensorStatsCalculator.isDeviated(temperature, avgByDirection[face.ordinal()], DEVIATION_PERCENTAGE)) {
+                log.error("Deviation detected for sensor ID {} at {}", id, convertMillisToLocalTime(endOfHour));
+                deviatedSensors.add(new SensorDeviatedData(id, endOfHour, face, temperature));
+            }
+        });
+        sensorDeviatedRepository.saveAll(deviatedSensors);
+        List<SensorFaceData> sensorFaceList = calculateFaceDirection(avgByDirection, endOfHour);
+        faceAvgRepository.saveAll(sensorFaceList);
+        eventPublisher.publishEvent(new HourlyDataStoredEvent(endOfHour, sensorFaceList, deviatedSensors));
+        Map<FaceDirection, QuantileSketch> sketches = new EnumMap<>(FaceDirection.class);
+        sensorStatsReader.streamFaceTemperatures(startTimestamp, endTimestamp, (face, temperature) ->
+                sketches.computeIfAbsent(face, key -> hourlySensorAggregator.newSketch()).add(temperature));
+        saveFaceSketches(sketches, endOfHour);
+        if (HISTORY_ENABLED) {
+            sensorHistoryWriter.writeFromRawData(startTimestamp, endTimestamp, endOfHour);
+        }
+        return true;
     }
 
 
@@ -164,95 +442,98 @@ public class SensorServiceImpl implements SensorService {
      * Processes and saves sensor data, including calculating average temperatures
      * and detecting deviated sensors.
      *
-     * @param avgBySensor    the list of average sensor data
-     * @param currentRoundHour the current rounded hour in milliseconds
+     * @param sensorStats      the statistics by sensor
+     * @param currentRoundHour the end of the hour in milliseconds
      */
-    private void processAndSaveSensorData(List<SensorData> avgBySensor, long currentRoundHour) {
-        Map<FaceDirection, Double> avgByDirection = calculateFaceAvgTemperature(avgBySensor);
-        List<SensorDeviatedData> deviatedSensors = calculateDeviatedSensors(avgByDirection, avgBySensor);
+    private void processAndSaveSensorData(SensorStatsTable sensorStats, long currentRoundHour) {
+        double[] avgByDirection = sensorStatsCalculator.faceAverages(sensorStats);
+        List<SensorDeviatedData> deviatedSensors =
+                calculateDeviatedSensors(avgByDirection, sensorStats, currentRoundHour);
         sensorDeviatedRepository.saveAll(deviatedSensors);
         List<SensorFaceData> sensorFaceList = calculateFaceDirection(avgByDirection, currentRoundHour);
         faceAvgRepository.saveAll(sensorFaceList);
-        deleteOldSensorData(currentRoundHour - HOUR_IN_MILLIS, currentRoundHour);
+        eventPublisher.publishEvent(new HourlyDataStoredEvent(currentRoundHour, sensorFaceList, deviatedSensors));
     }
 
 
     /**
-     * Deletes old sensor data from the database within the specified time range.
+     * Stores the quantile sketches of the face directions of an hour.
      *
-     * @param previousRoundHour the start of the time range
-     * @param currentRoundHour  the end of the time range
+     * @param sketches  the sketches of the readings by face direction
+     * @param endOfHour the end of the hour in milliseconds
      */
-    private void deleteOldSensorData(long previousRoundHour, long currentRoundHour) {
-        sensorRepository.deleteSensorDataInRange(previousRoundHour, currentRoundHour);
-        log.debug("Removed hourly data from DB at: {}",
-                convertMillisToLocalTime(System.currentTimeMillis()));
+    private void saveFaceSketches(Map<FaceDirection, QuantileSketch> sketches, long endOfHour) {
+        List<SensorFaceSketch> faceSketches = new ArrayList<>(sketches.size());
+        sketches.forEach((face, sketch) ->
+                faceSketches.add(new SensorFaceSketch(endOfHour, face, sketch.getCount(), sketch.toBytes())));
+        faceSketchRepository.saveAll(faceSketches);
     }
 
 
-
     /**
-     * Calculates the list of deviated sensors based on average temperatures.
+     * Deletes the raw sensor data of an hour by truncating its partition.
      *
-     * @param faceAvgTemperature a map of average face temperatures
-     * @param avgData           the list of average sensor data
-     * @return a list of deviated sensor data
+     * @param startOfHour the start of the hour in milliseconds
      */
-    private List<SensorDeviatedData> calculateDeviatedSensors(Map<FaceDirection, Double> faceAvgTemperature, List<SensorData> avgData) {
-        long curHour = getRoundHourInMillis(System.currentTimeMillis());
-        return avgData.stream()
-                .filter(sensor -> {
-                    double avgTemperature = Optional.ofNullable(faceAvgTemperature.get(sensor.getFace()))
-                            .orElse(0.0);
-                    double maxDeviation = avgTemperature * DEVIATION_PERCENTAGE;
-                    return Math.abs(sensor.getTemperature() - avgTemperature) > maxDeviation;
-                })
-                .map(d -> new SensorDeviatedData(d.getId(), curHour, d.getFace(), d.getTemperature()))
-                .peek(d -> log.error("Deviation detected for sensor ID {} at {}", d.getId(), convertMillisToLocalTime(d.getTimestamp())))
-                .toList();
+    private void deleteOldSensorData(long startOfHour) {
+        sensorDataPartitionManager.purgeHour(startOfHour);
+        log.debug("Removed hourly data from DB at: {}",
+                convertMillisToLocalTime(System.currentTimeMillis()));
     }
 
 
     /**
-     * Calculates the average temperature for each face direction.
+     * Deletes the per-sensor history of the hours ending more than the retention before the end of an hour.
      *
-     * @param avgData the list of sensor data to calculate averages from
-     * @return a map of average temperatures by face direction
+     * @param endOfHour the end of the processed hour in milliseconds
      */
-    private Map<FaceDirection, Double> calculateFaceAvgTemperature(List<SensorData> avgData) {
-        return avgData.stream()
-                .collect(Collectors.groupingBy(
-                        SensorData::getFace,
-                        Collectors.collectingAndThen(
-                                Collectors.averagingDouble(SensorData::getTemperature),
-                                avg -> Math.round(avg * 100.0) / 100.0
-                        )
-                ));
+    private void deleteExpiredHistory(long endOfHour) {
+        int deleted = sensorAvgRepository.deleteOlderThan(endOfHour - TimeUnit.SECONDS.toMillis(HISTORY_RETENTION));
+        if (deleted > 0) {
+            log.debug("Deleted {} hourly sensor statistics past retention", deleted);
+        }
     }
 
 
+
     /**
-     * Converts average face temperatures into a list of SensorFaceData objects.
+     * Calculates the list of deviated sensors based on average temperatures.
      *
-     * @param avgByDirection a map of average temperatures by face direction
-     * @param currentHour    the current rounded hour in milliseconds
-     * @return a list of SensorFaceData objects
+     * @param faceAvgTemperature the average temperatures indexed by face direction ordinal
+     * @param sensorStats        the statistics by sensor
+     * @param curHour            the end of the hour in milliseconds
+     * @return a list of deviated sensor data
      */
-    private List<SensorFaceData> calculateFaceDirection(Map<FaceDirection, Double> avgByDirection, long currentHour) {
-        return avgByDirection.entrySet().stream()
-                .map(e -> new SensorFaceData(currentHour, e.getKey(), e.getValue()))
-                .toList();
+    private List<SensorDeviatedData> calculateDeviatedSensors(double[] faceAvgTemperature,
+                                                              SensorStatsTable sensorStats, long curHour) {
+        int[] deviatedSlots =
+                sensorStatsCalculator.deviatedSlots(sensorStats, faceAvgTemperature, DEVIATION_PERCENTAGE);
+        List<SensorDeviatedData> deviatedSensors = new ArrayList<>(deviatedSlots.length);
+        for (int slot : deviatedSlots) {
+            log.error("Deviation detected for sensor ID {} at {}", sensorStats.id(slot),
+                    convertMillisToLocalTime(curHour));
+            deviatedSensors.add(new SensorDeviatedData(sensorStats.id(slot), curHour, sensorStats.face(slot),
+                    SensorStatsCalculator.averageTemperature(sensorStats, slot)));
+        }
+        return deviatedSensors;
     }
 
 
     /**
-     * Rounds the current time in milliseconds to the nearest hour.
+     * Converts average face temperatures into a list of SensorFaceData objects.
      *
-     * @param currentTime the current time in milliseconds
-     * @return the rounded hour in milliseconds
+     * @param avgByDirection the average temperatures indexed by face direction ordinal
+     * @param currentHour    the current rounded hour in milliseconds
+     * @return a list of SensorFaceData objects
      */
-    private static long getRoundHourInMillis(long currentTime) {
-        return currentTime - (currentTime % HOUR_IN_MILLIS);
+    private List<SensorFaceData> calculateFaceDirection(double[] avgByDirection, long currentHour) {
+        List<SensorFaceData> sensorFaceList = new ArrayList<>(FACES.length);
+        for (int face = 0; face < FACES.length; face++) {
+            if (!Double.isNaN(avgByDirection[face])) {
+                sensorFaceList.add(new SensorFaceData(currentHour, FACES[face], avgByDirection[face]));
+            }
+        }
+        return sensorFaceList;
     }
 
 
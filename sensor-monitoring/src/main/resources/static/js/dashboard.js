@@ -0,0 +1,87 @@
+/*
+ * Patches the dashboard tables from the live feed instead of reloading the page.
+ * A "rollups" event updates or appends the buckets of the displayed resolution,
+ * an "hour" event prepends the deviated sensors of a stored hour.
+ */
+(function () {
+    const HOUR = 3600000;
+    const script = document.currentScript;
+
+    function pad(value) {
+        return String(value).padStart(2, '0');
+    }
+
+    function formatTime(timestamp) {
+        const date = new Date(timestamp);
+        return pad(date.getHours()) + ':' + pad(date.getMinutes());
+    }
+
+    function formatDateTime(timestamp) {
+        const date = new Date(timestamp);
+        return date.getFullYear() + '-' + pad(date.getMonth() + 1) + '-' + pad(date.getDate()) + ' ' +
+            formatTime(timestamp);
+    }
+
+    function formatTemperature(value) {
+        return Number.isInteger(value) ? value.toFixed(1) : String(value);
+    }
+
+    function fillRow(row, cells) {
+        row.replaceChildren(...cells.map(text => {
+            const cell = document.createElement('td');
+            cell.textContent = text;
+            return cell;
+        }));
+    }
+
+    function onRollups(table, data) {
+        const resolution = Number(table.dataset.resolution);
+        if (data.resolution !== resolution) {
+            return;
+        }
+        const body = table.tBodies[0];
+        const limit = body.rows.length;
+        data.rollups.forEach(rollup => {
+            const key = rollup.timestamp + '-' + rollup.face;
+            let row = body.querySelector('tr[data-key="' + key + '"]');
+            if (!row) {
+                row = body.insertRow();
+                row.dataset.key = key;
+            }
+            fillRow(row, [
+                formatDateTime(rollup.timestamp) + ' - ' + formatTime(rollup.timestamp + resolution),
+                rollup.face,
+                formatTemperature(rollup.averageTemperature),
+                formatTemperature(rollup.minTemperature),
+                formatTemperature(rollup.maxTemperature)
+            ]);
+        });
+        while (limit > 0 && body.rows.length > limit) {
+            body.deleteRow(0);
+        }
+    }
+
+    function onHour(table, data) {
+        const body = table.tBodies[0];
+        const limit = Number(table.dataset.limit);
+        data.deviatedSensors.slice().reverse().forEach(sensor => {
+            fillRow(body.insertRow(0), [
+                formatDateTime(sensor.timestamp - HOUR) + '  -  ' + formatTime(sensor.timestamp),
+                String(sensor.id),
+                sensor.face,
+                formatTemperature(sensor.temperature)
+            ]);
+        });
+        while (body.rows.length > limit) {
+            body.deleteRow(body.rows.length - 1);
+        }
+    }
+
+    document.addEventListener('DOMContentLoaded', () => {
+        const rollups = document.getElementById('face-rollups');
+        const deviated = document.getElementById('deviated-sensors');
+        const feed = new EventSource(script.dataset.feed);
+        feed.addEventListener('rollups', event => onRollups(rollups, JSON.parse(event.data)));
+        feed.addEventListener('hour', event => onHour(deviated, JSON.parse(event.data)));
+    });
+})();
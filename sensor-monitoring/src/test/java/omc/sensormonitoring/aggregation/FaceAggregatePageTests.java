@@ -0,0 +1,48 @@
+package omc.sensormonitoring.aggregation;
+
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FaceAggregatePageTests {
+
+
+    @Test
+    @DisplayName("Test remove last bucket of full page functionality")
+    public void givenFullPage_whenRemoveLastBucket_thenOnlyCompleteBucketsReplayed() {
+        //given
+        FaceAggregatePage pageUnderTests = new FaceAggregatePage(4);
+        pageUnderTests.accept(0l, FaceDirection.NORTH, 21.0, 20.0, 22.0, 24);
+        pageUnderTests.accept(0l, FaceDirection.SOUTH, 23.0, 22.0, 24.0, 24);
+        pageUnderTests.accept(86400000l, FaceDirection.NORTH, 21.5, 20.5, 22.5, 24);
+        pageUnderTests.accept(86400000l, FaceDirection.SOUTH, 23.5, 22.5, 24.5, 24);
+        List<String> replayed = new ArrayList<>();
+        //when
+        boolean full = pageUnderTests.isFull();
+        long lastBucket = pageUnderTests.removeLastBucket();
+        pageUnderTests.forEach((timestamp, face, average, min, max, hours) ->
+                replayed.add(timestamp + ":" + face + ":" + average + ":" + min + ":" + max + ":" + hours));
+        //then
+        assertTrue(full);
+        assertEquals(86400000l, lastBucket);
+        assertFalse(pageUnderTests.isFull());
+        assertEquals(List.of("0:NORTH:21.0:20.0:22.0:24", "0:SOUTH:23.0:22.0:24.0:24"), replayed);
+    }
+
+
+    @Test
+    @DisplayName("Test clear page functionality")
+    public void givenFilledPage_whenClear_thenNothingReplayed() {
+        //given
+        FaceAggregatePage pageUnderTests = new FaceAggregatePage(2);
+        pageUnderTests.accept(0l, FaceDirection.EAST, 21.0, 20.0, 22.0, 1);
+        List<Long> replayed = new ArrayList<>();
+        //when
+        pageUnderTests.clear();
+        pageUnderTests.forEach((timestamp, face, average, min, max, hours) -> replayed.add(timestamp));
+        //then
+        assertTrue(replayed.isEmpty());
+        assertEquals(2, pageUnderTests.capacity());
+    }
+}
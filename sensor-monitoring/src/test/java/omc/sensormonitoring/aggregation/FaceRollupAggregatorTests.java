@@ -0,0 +1,79 @@
+package omc.sensormonitoring.aggregation;
+
+import omc.sensormonitoring.ingest.SensorDataColumns;
+import omc.sensormonitoring.model.*;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FaceRollupAggregatorTests {
+    private static final long MINUTE = 60_000l;
+
+    private final AtomicLong clock = new AtomicLong(10 * MINUTE);
+
+    private FaceRollupAggregator createAggregator() {
+        FaceRollupAggregator aggregator = new FaceRollupAggregator(clock::get);
+        ReflectionTestUtils.setField(aggregator, "RESOLUTIONS", new long[] {60, 300});
+        ReflectionTestUtils.setField(aggregator, "ALLOWED_LATENESS", 120l);
+        aggregator.initializeBuckets();
+        return aggregator;
+    }
+
+
+    @Test
+    @DisplayName("Test close finest rollup buckets functionality")
+    public void givenReadings_whenCloseBuckets_thenClosedBucketsRolledUpByFace() {
+        //given
+        FaceRollupAggregator aggregatorUnderTests = createAggregator();
+        SensorDataColumns columns = new SensorDataColumns(5);
+        columns.add(1l, 8 * MINUTE + 1, FaceDirection.NORTH, 20.0);
+        columns.add(2l, 8 * MINUTE + 2, FaceDirection.NORTH, 22.0);
+        columns.add(3l, 8 * MINUTE + 3, FaceDirection.EAST, 30.0);
+        columns.add(1l, 9 * MINUTE + 1, FaceDirection.NORTH, 25.0);
+        columns.add(1l, 7 * MINUTE + 1, FaceDirection.NORTH, 25.0);
+        aggregatorUnderTests.add(columns);
+        clock.set(11 * MINUTE);
+        //when
+        List<SensorFaceRollup> rollups = aggregatorUnderTests.closeBuckets();
+        //then
+        assertEquals(2, rollups.size());
+        SensorFaceRollup north = rollups.stream().filter(rollup -> rollup.getFace() == FaceDirection.NORTH)
+                .findFirst().orElseThrow();
+        assertEquals(MINUTE, north.getResolution());
+        assertEquals(8 * MINUTE, north.getTimestamp());
+        assertEquals(2, north.getReadings());
+        assertEquals(21.0, north.getAverageTemperature());
+        assertEquals(20.0, north.getMinTemperature());
+        assertEquals(22.0, north.getMaxTemperature());
+        assertEquals(9 * MINUTE, aggregatorUnderTests.getClosedBefore());
+        assertEquals(1, aggregatorUnderTests.getSkipped());
+        assertTrue(aggregatorUnderTests.closeBuckets().isEmpty());
+    }
+
+
+    @Test
+    @DisplayName("Test reopen closed rollup buckets functionality")
+    public void givenClosedBuckets_whenReopenBuckets_thenMergedAndClosedAgain() {
+        //given
+        FaceRollupAggregator aggregatorUnderTests = createAggregator();
+        SensorDataColumns columns = new SensorDataColumns(1);
+        columns.add(1l, 8 * MINUTE + 1, FaceDirection.NORTH, 20.0);
+        aggregatorUnderTests.add(columns);
+        clock.set(11 * MINUTE);
+        List<SensorFaceRollup> closed = aggregatorUnderTests.closeBuckets();
+        //when
+        aggregatorUnderTests.reopenBuckets(closed);
+        SensorDataColumns late = new SensorDataColumns(1);
+        late.add(2l, 8 * MINUTE + 2, FaceDirection.NORTH, 22.0);
+        aggregatorUnderTests.add(late);
+        List<SensorFaceRollup> closedAgain = aggregatorUnderTests.closeBuckets();
+        //then
+        assertEquals(1, closedAgain.size());
+        assertEquals(8 * MINUTE, closedAgain.get(0).getTimestamp());
+        assertEquals(2, closedAgain.get(0).getReadings());
+        assertEquals(21.0, closedAgain.get(0).getAverageTemperature());
+        assertEquals(9 * MINUTE, aggregatorUnderTests.getClosedBefore());
+    }
+}
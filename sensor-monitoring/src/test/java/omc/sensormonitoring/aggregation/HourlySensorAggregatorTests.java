@@ -0,0 +1,149 @@
+package omc.sensormonitoring.aggregation;
+
+import omc.sensormonitoring.ingest.SensorDataColumns;
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HourlySensorAggregatorTests {
+    private static final long HOUR = 3_600_000l;
+    private static final long LATENESS = 120_000l;
+
+    private final AtomicLong clock = new AtomicLong(HOUR + LATENESS);
+
+    private HourlySensorAggregator createAggregator() {
+        HourlySensorAggregator aggregator = new HourlySensorAggregator(clock::get);
+        ReflectionTestUtils.setField(aggregator, "ALLOWED_LATENESS", LATENESS / 1000);
+        ReflectionTestUtils.setField(aggregator, "SKETCH_RELATIVE_ACCURACY", 0.01);
+        ReflectionTestUtils.setField(aggregator, "SKETCH_MAX_BINS", 2048);
+        aggregator.initializeWindows();
+        return aggregator;
+    }
+
+    private static SensorDataColumns reading(long timestamp) {
+        SensorDataColumns columns = new SensorDataColumns(1);
+        columns.add(1l, timestamp, FaceDirection.NORTH, 20.0);
+        return columns;
+    }
+
+
+    @Test
+    @DisplayName("Test close hourly windows functionality")
+    public void givenReadingsOfTwoHours_whenCloseWindows_thenOnlyFinishedHourEmittedOnce() {
+        //given
+        HourlySensorAggregator aggregatorUnderTests = createAggregator();
+        SensorDataColumns columns = new SensorDataColumns(5);
+        columns.add(1l, HOUR + 10, FaceDirection.NORTH, 20.0);
+        columns.add(1l, HOUR + 20, FaceDirection.NORTH, 21.0);
+        columns.add(2l, HOUR + 30, FaceDirection.NORTH, 22.0);
+        columns.add(3l, HOUR + 40, FaceDirection.SOUTH, 30.0);
+        columns.add(1l, 2 * HOUR + 10, FaceDirection.NORTH, 50.0);
+        clock.set(2 * HOUR + 100);
+        aggregatorUnderTests.add(columns);
+        //when
+        List<HourlyAggregate> beforeWatermark = aggregatorUnderTests.closeWindows();
+        clock.set(2 * HOUR + LATENESS);
+        List<HourlyAggregate> closed = aggregatorUnderTests.closeWindows();
+        //then
+        assertTrue(beforeWatermark.isEmpty());
+        assertEquals(1, closed.size());
+        HourlyAggregate aggregate = closed.get(0);
+        assertEquals(HOUR, aggregate.hour());
+        SensorStatsTable sensors = aggregate.sensors();
+        assertEquals(3, sensors.size());
+        int sensor = sensors.indexOf(1l, FaceDirection.NORTH);
+        assertEquals(2, sensors.count(sensor));
+        assertEquals(20.5, sensors.average(sensor));
+        assertEquals(20.0, sensors.min(sensor));
+        assertEquals(21.0, sensors.max(sensor));
+        assertEquals(HOUR + 20, sensors.lastTimestamp(sensor));
+        assertEquals(FaceDirection.SOUTH, sensors.face(sensors.indexOf(3l, FaceDirection.SOUTH)));
+        RunningAggregate north = aggregate.faces().get(FaceDirection.NORTH);
+        assertEquals(3, north.getCount());
+        assertEquals(21.0, north.average());
+        assertEquals(3, aggregate.sketches().get(FaceDirection.NORTH).getCount());
+        assertEquals(22.0, aggregate.sketches().get(FaceDirection.NORTH).quantile(1));
+        assertTrue(aggregatorUnderTests.closeWindows().isEmpty());
+        assertEquals(1, aggregatorUnderTests.getStats().openWindows());
+    }
+
+
+    @Test
+    @DisplayName("Test reopen windows functionality")
+    public void givenReopenedWindows_whenCloseWindows_thenReopenedWindowsReturnedFirst() {
+        //given
+        HourlySensorAggregator aggregatorUnderTests = createAggregator();
+        clock.set(HOUR + 100);
+        aggregatorUnderTests.add(reading(HOUR + 10));
+        clock.set(2 * HOUR + LATENESS);
+        List<HourlyAggregate> failed = aggregatorUnderTests.closeWindows();
+        aggregatorUnderTests.add(reading(2 * HOUR + 10));
+        clock.set(3 * HOUR + LATENESS);
+        //when
+        aggregatorUnderTests.reopenWindows(failed);
+        List<HourlyAggregate> closed = aggregatorUnderTests.closeWindows();
+        //then
+        assertEquals(2, closed.size());
+        assertSame(failed.get(0), closed.get(0));
+        assertEquals(2 * HOUR, closed.get(1).hour());
+        assertTrue(aggregatorUnderTests.closeWindows().isEmpty());
+    }
+
+
+    @Test
+    @DisplayName("Test late and early readings functionality")
+    public void givenClosedWindow_whenAddLateAndEarlyReadings_thenReadingsCounted() {
+        //given
+        HourlySensorAggregator aggregatorUnderTests = createAggregator();
+        clock.set(2 * HOUR + LATENESS);
+        aggregatorUnderTests.closeWindows();
+        //when
+        aggregatorUnderTests.add(reading(HOUR + 10));
+        aggregatorUnderTests.add(reading(3 * HOUR + 10));
+        aggregatorUnderTests.add(reading(2 * HOUR + 10));
+        //then
+        assertEquals(1, aggregatorUnderTests.getStats().late());
+        assertEquals(1, aggregatorUnderTests.getStats().early());
+        assertEquals(2 * HOUR, aggregatorUnderTests.getStats().watermark());
+        clock.set(3 * HOUR + LATENESS);
+        assertEquals(1, aggregatorUnderTests.closeWindows().get(0).sensors().size());
+    }
+
+
+    @Test
+    @DisplayName("Test duplicate readings functionality")
+    public void givenResentReadings_whenAdd_thenDuplicatesSkippedAndCounted() {
+        //given
+        HourlySensorAggregator aggregatorUnderTests = createAggregator();
+        SensorDataColumns columns = new SensorDataColumns(3);
+        columns.add(1l, HOUR + 10, FaceDirection.NORTH, 20.0);
+        columns.add(2l, HOUR + 10, FaceDirection.NORTH, 30.0);
+        columns.add(1l, HOUR + 10, FaceDirection.NORTH, 20.0);
+        clock.set(HOUR + 100);
+        //when
+        aggregatorUnderTests.add(columns);
+        clock.set(2 * HOUR + LATENESS);
+        HourlyAggregate aggregate = aggregatorUnderTests.closeWindows().get(0);
+        //then
+        assertEquals(1, aggregatorUnderTests.getStats().duplicates());
+        assertEquals(1, aggregate.sensors().count(aggregate.sensors().indexOf(1l, FaceDirection.NORTH)));
+        assertEquals(2, aggregate.faces().get(FaceDirection.NORTH).getCount());
+        assertEquals(2, aggregate.sketches().get(FaceDirection.NORTH).getCount());
+    }
+
+
+    @Test
+    @DisplayName("Test coverage of hours started before the aggregator functionality")
+    public void givenAggregatorStartedWithinHour_whenCovers_thenOnlyLaterHoursCovered() {
+        //given
+        clock.set(HOUR + 10);
+        HourlySensorAggregator aggregatorUnderTests = createAggregator();
+        //when
+        //then
+        assertFalse(aggregatorUnderTests.covers(HOUR));
+        assertTrue(aggregatorUnderTests.covers(2 * HOUR));
+    }
+}
@@ -0,0 +1,80 @@
+package omc.sensormonitoring.aggregation;
+
+import org.junit.jupiter.api.*;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuantileSketchTests {
+    private static final double ACCURACY = 0.01;
+
+    private static double exactQuantile(double[] sorted, double quantile) {
+        return sorted[(int) (quantile * (sorted.length - 1))];
+    }
+
+
+    @Test
+    @DisplayName("Test estimate quantiles functionality")
+    public void givenReadingsWithOutlier_whenQuantile_thenWithinRelativeAccuracy() {
+        //given
+        Random random = new Random(42);
+        QuantileSketch sketchUnderTests = new QuantileSketch(ACCURACY, 2048);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i == 17 ? -1000 : random.nextGaussian() * 10 + 5;
+            sketchUnderTests.add(values[i]);
+        }
+        Arrays.sort(values);
+        //when
+        double[] quantiles = {0.01, 0.25, 0.5, 0.95, 0.99};
+        //then
+        for (double quantile : quantiles) {
+            double exact = exactQuantile(values, quantile);
+            assertEquals(exact, sketchUnderTests.quantile(quantile), Math.abs(exact) * ACCURACY + 1e-9);
+        }
+        assertEquals(-1000, sketchUnderTests.quantile(0));
+        assertEquals(values[values.length - 1], sketchUnderTests.quantile(1));
+        assertEquals(values.length, sketchUnderTests.getCount());
+    }
+
+    @Test
+    @DisplayName("Test merge and serialize sketches functionality")
+    public void givenHourlySketches_whenMergeDeserialized_thenSameAsSingleSketch() {
+        //given
+        QuantileSketch all = new QuantileSketch(ACCURACY, 2048);
+        QuantileSketch merged = new QuantileSketch(ACCURACY, 2048);
+        for (int hour = 0; hour < 24; hour++) {
+            QuantileSketch hourly = new QuantileSketch(ACCURACY, 2048);
+            for (int reading = 0; reading < 1000; reading++) {
+                double temperature = hour - 12 + reading / 100.0;
+                hourly.add(temperature);
+                all.add(temperature);
+            }
+            //when
+            merged.merge(QuantileSketch.fromBytes(hourly.toBytes()));
+        }
+        //then
+        assertEquals(all.getCount(), merged.getCount());
+        assertEquals(all.getMin(), merged.getMin());
+        assertEquals(all.getMax(), merged.getMax());
+        for (double quantile = 0; quantile <= 1; quantile += 0.05) {
+            assertEquals(all.quantile(quantile), merged.quantile(quantile));
+        }
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(new QuantileSketch(0.02, 2048)));
+    }
+
+    @Test
+    @DisplayName("Test bounded bins functionality")
+    public void givenValuesBeyondMaxBins_whenAdd_thenLowestBinsCollapsed() {
+        //given
+        QuantileSketch sketchUnderTests = new QuantileSketch(ACCURACY, 64);
+        //when
+        for (double value = 0.001; value < 1e6; value *= 1.5) {
+            sketchUnderTests.add(value);
+        }
+        //then
+        double max = sketchUnderTests.getMax();
+        assertEquals(max, sketchUnderTests.quantile(0.99), max * 0.5);
+        assertTrue(sketchUnderTests.toBytes().length < 64 * 2 + 64);
+        assertEquals(sketchUnderTests.getCount(), QuantileSketch.fromBytes(sketchUnderTests.toBytes()).getCount());
+    }
+}
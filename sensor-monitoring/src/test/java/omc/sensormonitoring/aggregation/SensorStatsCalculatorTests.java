@@ -0,0 +1,64 @@
+package omc.sensormonitoring.aggregation;
+
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorStatsCalculatorTests {
+
+    private static SensorStatsCalculator createCalculator(int parallelThreshold) {
+        SensorStatsCalculator calculator = new SensorStatsCalculator();
+        ReflectionTestUtils.setField(calculator, "PARALLEL_THRESHOLD", parallelThreshold);
+        return calculator;
+    }
+
+    private static SensorStatsTable createSensors(int count) {
+        SensorStatsTable sensors = new SensorStatsTable(count);
+        FaceDirection[] faces = FaceDirection.values();
+        for (int id = 0; id < count; id++) {
+            double temperature = id % 100 == 0 ? 100.0 : 20.0 + id % 3;
+            sensors.add(id, 1000l, faces[id % faces.length], temperature);
+        }
+        return sensors;
+    }
+
+
+    @Test
+    @DisplayName("Test face averages and deviations functionality")
+    public void givenSensorStats_whenFaceAveragesAndDeviatedSlots_thenDeviatedSensorsFound() {
+        //given
+        SensorStatsCalculator calculatorUnderTests = createCalculator(65536);
+        SensorStatsTable sensors = new SensorStatsTable(4);
+        sensors.add(1l, 1000l, FaceDirection.NORTH, 20.0);
+        sensors.add(2l, 1000l, FaceDirection.NORTH, 22.0);
+        sensors.add(3l, 1000l, FaceDirection.NORTH, 30.0);
+        sensors.add(4l, 1000l, FaceDirection.SOUTH, 10.0);
+        //when
+        double[] faceAverages = calculatorUnderTests.faceAverages(sensors);
+        int[] deviatedSlots = calculatorUnderTests.deviatedSlots(sensors, faceAverages, 0.2);
+        //then
+        assertEquals(24.0, faceAverages[FaceDirection.NORTH.ordinal()]);
+        assertEquals(10.0, faceAverages[FaceDirection.SOUTH.ordinal()]);
+        assertTrue(Double.isNaN(faceAverages[FaceDirection.EAST.ordinal()]));
+        assertArrayEquals(new int[] {sensors.indexOf(3l, FaceDirection.NORTH)}, deviatedSlots);
+    }
+
+
+    @Test
+    @DisplayName("Test parallel passes match sequential passes functionality")
+    public void givenTableAboveThreshold_whenFaceAveragesAndDeviatedSlots_thenSameResultAsSequential() {
+        //given
+        SensorStatsTable sensors = createSensors(10_000);
+        SensorStatsCalculator sequential = createCalculator(Integer.MAX_VALUE);
+        SensorStatsCalculator calculatorUnderTests = createCalculator(64);
+        //when
+        double[] faceAverages = calculatorUnderTests.faceAverages(sensors);
+        int[] deviatedSlots = calculatorUnderTests.deviatedSlots(sensors, faceAverages, 0.2);
+        //then
+        double[] expectedAverages = sequential.faceAverages(sensors);
+        assertArrayEquals(expectedAverages, faceAverages);
+        assertArrayEquals(sequential.deviatedSlots(sensors, expectedAverages, 0.2), deviatedSlots);
+        assertEquals(100, deviatedSlots.length);
+    }
+}
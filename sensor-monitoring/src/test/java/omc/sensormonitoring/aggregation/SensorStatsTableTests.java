@@ -0,0 +1,114 @@
+package omc.sensormonitoring.aggregation;
+
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorStatsTableTests {
+
+
+    @Test
+    @DisplayName("Test add readings beyond initial capacity functionality")
+    public void givenMoreSensorsThanExpected_whenAdd_thenTableResizedAndStatisticsKept() {
+        //given
+        SensorStatsTable tableUnderTests = new SensorStatsTable(4);
+        int initialCapacity = tableUnderTests.capacity();
+        //when
+        for (long id = -500; id < 500; id++) {
+            tableUnderTests.add(id, 1000l, FaceDirection.NORTH, id);
+            tableUnderTests.add(id, 2000l, FaceDirection.NORTH, id + 2);
+        }
+        //then
+        assertEquals(1000, tableUnderTests.size());
+        assertTrue(tableUnderTests.capacity() > initialCapacity);
+        for (long id = -500; id < 500; id++) {
+            int slot = tableUnderTests.indexOf(id, FaceDirection.NORTH);
+            assertEquals(id, tableUnderTests.id(slot));
+            assertEquals(2, tableUnderTests.count(slot));
+            assertEquals(id + 1, tableUnderTests.average(slot));
+            assertEquals(id, tableUnderTests.min(slot));
+            assertEquals(id + 2, tableUnderTests.max(slot));
+            assertEquals(2000l, tableUnderTests.lastTimestamp(slot));
+            assertEquals(FaceDirection.NORTH, tableUnderTests.face(slot));
+        }
+    }
+
+
+    @Test
+    @DisplayName("Test latest face of sensor changing face functionality")
+    public void givenSensorChangingFace_whenIsLatestFace_thenOnlyFaceOfLatestReadingIsLatest() {
+        //given
+        SensorStatsTable tableUnderTests = new SensorStatsTable(4);
+        tableUnderTests.add(1l, 1000l, FaceDirection.NORTH, 20.0);
+        tableUnderTests.add(1l, 2000l, FaceDirection.EAST, 30.0);
+        tableUnderTests.add(1l, 3000l, FaceDirection.NORTH, 22.0);
+        tableUnderTests.add(2l, 1000l, FaceDirection.WEST, 10.0);
+        tableUnderTests.add(2l, 1000l, FaceDirection.SOUTH, 11.0);
+        //when
+        boolean north = tableUnderTests.isLatestFace(tableUnderTests.indexOf(1l, FaceDirection.NORTH));
+        boolean east = tableUnderTests.isLatestFace(tableUnderTests.indexOf(1l, FaceDirection.EAST));
+        boolean west = tableUnderTests.isLatestFace(tableUnderTests.indexOf(2l, FaceDirection.WEST));
+        boolean south = tableUnderTests.isLatestFace(tableUnderTests.indexOf(2l, FaceDirection.SOUTH));
+        //then
+        assertTrue(north);
+        assertFalse(east);
+        assertFalse(west);
+        assertTrue(south);
+    }
+
+
+    @Test
+    @DisplayName("Test look up missing sensor functionality")
+    public void givenMissingSensor_whenIndexOf_thenNoSlotReturned() {
+        //given
+        SensorStatsTable tableUnderTests = new SensorStatsTable(0);
+        tableUnderTests.add(0l, 1000l, FaceDirection.NORTH, 20.0);
+        //when
+        int slot = tableUnderTests.indexOf(Long.MIN_VALUE, FaceDirection.NORTH);
+        //then
+        assertEquals(-1, slot);
+        assertEquals(-1, tableUnderTests.indexOf(0l, FaceDirection.SOUTH));
+        assertTrue(tableUnderTests.isUsed(tableUnderTests.indexOf(0l, FaceDirection.NORTH)));
+    }
+
+
+    @Test
+    @DisplayName("Test add readings of sensor changing face direction functionality")
+    public void givenSensorChangingFace_whenAdd_thenStatisticsKeptPerFace() {
+        //given
+        SensorStatsTable tableUnderTests = new SensorStatsTable(4);
+        //when
+        tableUnderTests.add(1l, 1000l, FaceDirection.NORTH, 20.0);
+        tableUnderTests.add(1l, 2000l, FaceDirection.EAST, 30.0);
+        tableUnderTests.add(1l, 3000l, FaceDirection.NORTH, 22.0);
+        //then
+        assertEquals(2, tableUnderTests.size());
+        int north = tableUnderTests.indexOf(1l, FaceDirection.NORTH);
+        int east = tableUnderTests.indexOf(1l, FaceDirection.EAST);
+        assertEquals(2, tableUnderTests.count(north));
+        assertEquals(21.0, tableUnderTests.average(north));
+        assertEquals(3000l, tableUnderTests.lastTimestamp(north));
+        assertEquals(1, tableUnderTests.count(east));
+        assertEquals(FaceDirection.EAST, tableUnderTests.face(east));
+    }
+
+
+    @Test
+    @DisplayName("Test add duplicate reading functionality")
+    public void givenResentReading_whenAdd_thenDuplicateIgnored() {
+        //given
+        SensorStatsTable tableUnderTests = new SensorStatsTable(4);
+        tableUnderTests.add(1l, 1000l, FaceDirection.NORTH, 20.0);
+        tableUnderTests.add(1l, 3000l, FaceDirection.NORTH, 22.0);
+        //when
+        boolean duplicateAdded = tableUnderTests.add(1l, 3000l, FaceDirection.NORTH, 22.0);
+        boolean outOfOrderAdded = tableUnderTests.add(1l, 2000l, FaceDirection.NORTH, 24.0);
+        //then
+        assertFalse(duplicateAdded);
+        assertTrue(outOfOrderAdded);
+        int slot = tableUnderTests.indexOf(1l, FaceDirection.NORTH);
+        assertEquals(3, tableUnderTests.count(slot));
+        assertEquals(22.0, tableUnderTests.average(slot));
+        assertEquals(3000l, tableUnderTests.lastTimestamp(slot));
+    }
+}
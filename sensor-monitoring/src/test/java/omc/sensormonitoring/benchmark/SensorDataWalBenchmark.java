@@ -0,0 +1,110 @@
+package omc.sensormonitoring.benchmark;
+
+import omc.sensormonitoring.ingest.*;
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cost of appending accepted readings to the {@link SensorDataWal}.
+ * <p>
+ * {@code benchmark.threads} threads (default 64) offer {@code benchmark.rows} readings (default 2000000) into the
+ * buffer while a drain thread swaps and releases the stripes, first without the WAL and then with each
+ * {@link WalSyncMode}. Run with {@code mvn test -Pbenchmark -Dtest=SensorDataWalBenchmark}.
+ * </p>
+ */
+@Tag("benchmark")
+public class SensorDataWalBenchmark {
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 2_000_000);
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 64);
+
+    @TempDir
+    Path directory;
+
+
+    @Test
+    @DisplayName("Benchmark buffer without WAL")
+    public void benchmarkWithoutWal() throws Exception {
+        run("no WAL", false, WalSyncMode.NONE);
+    }
+
+
+    @Test
+    @DisplayName("Benchmark WAL without sync")
+    public void benchmarkWalWithoutSync() throws Exception {
+        run("WAL NONE", true, WalSyncMode.NONE);
+    }
+
+
+    @Test
+    @DisplayName("Benchmark WAL with periodic sync")
+    public void benchmarkWalWithPeriodicSync() throws Exception {
+        run("WAL PERIODIC", true, WalSyncMode.PERIODIC);
+    }
+
+
+    @Test
+    @DisplayName("Benchmark WAL with group commit")
+    public void benchmarkWalWithGroupCommit() throws Exception {
+        run("WAL GROUP", true, WalSyncMode.GROUP);
+    }
+
+
+    private void run(String label, boolean enabled, WalSyncMode syncMode) throws Exception {
+        SensorDataWal wal = new SensorDataWal();
+        ReflectionTestUtils.setField(wal, "ENABLED", enabled);
+        ReflectionTestUtils.setField(wal, "DIRECTORY", directory.resolve(label.replace(' ', '-')).toString());
+        ReflectionTestUtils.setField(wal, "SEGMENT_SIZE", 4 * 1024 * 1024);
+        ReflectionTestUtils.setField(wal, "SYNC_MODE", syncMode);
+        ReflectionTestUtils.setField(wal, "SYNC_INTERVAL_MILLIS", 10l);
+        wal.initializeWal();
+        SensorDataBuffer buffer = new SensorDataBuffer(wal);
+        ReflectionTestUtils.setField(buffer, "CAPACITY", 250_000);
+        ReflectionTestUtils.setField(buffer, "STRIPES", 0);
+        ReflectionTestUtils.setField(buffer, "OVERFLOW_POLICY", OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(buffer, "BLOCK_TIMEOUT_MILLIS", 10_000l);
+        buffer.initializeBuffer();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch offered = new CountDownLatch(THREADS);
+        executor.execute(() -> {
+            while (offered.getCount() > 0) {
+                for (int stripe = 0; stripe < buffer.stripeCount(); stripe++) {
+                    SensorDataColumns columns = buffer.swap(stripe);
+                    if (columns != null) {
+                        buffer.release(stripe, columns, true);
+                    }
+                }
+                Thread.onSpinWait();
+            }
+        });
+        long start = System.nanoTime();
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int first = thread;
+            results.add(executor.submit(() -> {
+                int accepted = 0;
+                for (int i = first; i < ROWS; i += THREADS) {
+                    accepted += buffer.offer(i % 3000 + 1, i, FaceDirection.NORTH, 21.5) ? 1 : 0;
+                }
+                offered.countDown();
+                return accepted;
+            }));
+        }
+        int accepted = 0;
+        for (Future<Integer> result : results) {
+            accepted += result.get();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        executor.shutdown();
+        wal.shutdownWal();
+        System.out.printf("%-12s: %d readings in %d ms, %d readings/s%n",
+                label, accepted, elapsedMillis, accepted * 1000L / Math.max(1, elapsedMillis));
+        assertEquals(ROWS, accepted);
+    }
+}
@@ -0,0 +1,115 @@
+package omc.sensormonitoring.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import omc.sensormonitoring.ingest.SensorDataColumns;
+import omc.sensormonitoring.model.FaceDirection;
+import omc.sensormonitoring.repository.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.concurrent.ThreadLocalRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput comparison of the {@link SensorDataWriter} implementations against a real PostgreSQL.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/sensor_db
+ * -Dbenchmark.db.username=postgres -Dbenchmark.db.password=password}. The benchmark works in its own
+ * {@code sensor_benchmark} schema and does not touch application data. Optional properties:
+ * {@code benchmark.rows} (default 1000000) and {@code benchmark.batch} (default 25000).
+ * </p>
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark.db.url", matches = ".+")
+public class SensorDataWriterBenchmark {
+    private static final String SCHEMA = "sensor_benchmark";
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int BATCH = Integer.getInteger("benchmark.batch", 25_000);
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static SensorDataColumns columns;
+
+    @BeforeAll
+    public static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("benchmark.db.url"));
+        dataSource.setUsername(System.getProperty("benchmark.db.username", "postgres"));
+        dataSource.setPassword(System.getProperty("benchmark.db.password", ""));
+        dataSource.setConnectionInitSql("SET search_path TO " + SCHEMA);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + SCHEMA + ".sensor_data " +
+                "(id bigint NOT NULL, timestamp bigint NOT NULL, face varchar(255), " +
+                "temperature double precision NOT NULL, PRIMARY KEY (id, timestamp))");
+
+        columns = new SensorDataColumns(ROWS);
+        FaceDirection[] faces = FaceDirection.values();
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < ROWS; i++) {
+            columns.add(i % 3000 + 1, timestamp + i / 3000 * 1000, faces[i % faces.length],
+                    ThreadLocalRandom.current().nextDouble(0, 50));
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        dataSource.close();
+    }
+
+
+    @Test
+    @DisplayName("Benchmark JDBC batch insert writer")
+    public void benchmarkJdbcBatchWriter() {
+        run("JDBC batch INSERT", new JdbcBatchSensorDataWriter(jdbcTemplate));
+    }
+
+
+    @Test
+    @DisplayName("Benchmark COPY writer in CSV format")
+    public void benchmarkCopyCsvWriter() {
+        run("COPY CSV", copyWriter(CopyFormat.CSV));
+    }
+
+
+    @Test
+    @DisplayName("Benchmark COPY writer in binary format")
+    public void benchmarkCopyBinaryWriter() {
+        run("COPY BINARY", copyWriter(CopyFormat.BINARY));
+    }
+
+
+    private static SensorDataWriter copyWriter(CopyFormat format) {
+        CopySensorDataWriter writer = new CopySensorDataWriter(jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(writer, "COPY_FORMAT", format);
+        return writer;
+    }
+
+
+    private static void run(String name, SensorDataWriter writer) {
+        jdbcTemplate.execute("TRUNCATE " + SCHEMA + ".sensor_data");
+        writeAll(writer, Math.min(ROWS, BATCH));
+        jdbcTemplate.execute("TRUNCATE " + SCHEMA + ".sensor_data");
+
+        long start = System.nanoTime();
+        writeAll(writer, ROWS);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(ROWS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + SCHEMA + ".sensor_data", Long.class));
+        System.out.printf("%-18s %,d rows in batches of %,d: %,d ms, %,d rows/s%n",
+                name, ROWS, BATCH, elapsedMillis, ROWS * 1000L / Math.max(1, elapsedMillis));
+    }
+
+
+    private static void writeAll(SensorDataWriter writer, int rows) {
+        for (int from = 0; from < rows; from += BATCH) {
+            writer.write(columns, from, Math.min(from + BATCH, rows));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package omc.sensormonitoring.benchmark;
+
+import omc.sensormonitoring.aggregation.*;
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Duration of the hourly face average and deviation passes of the {@link SensorStatsCalculator}
+ * for 10,000, 100,000 and 1,000,000 sensors, sequentially and as fork-join reductions on the common pool.
+ * <p>
+ * Every pass is repeated {@code benchmark.iterations} times (default 20) after as many warm-up runs and the
+ * median is reported. Run with {@code mvn test -Pbenchmark -Dtest=SensorStatsCalculatorBenchmark}.
+ * </p>
+ */
+@Tag("benchmark")
+public class SensorStatsCalculatorBenchmark {
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 20);
+    private static final int PARALLEL_THRESHOLD = 65536;
+
+
+    @Test
+    @DisplayName("Benchmark hourly passes for 10k sensors")
+    public void benchmark10kSensors() {
+        run(10_000);
+    }
+
+
+    @Test
+    @DisplayName("Benchmark hourly passes for 100k sensors")
+    public void benchmark100kSensors() {
+        run(100_000);
+    }
+
+
+    @Test
+    @DisplayName("Benchmark hourly passes for 1M sensors")
+    public void benchmark1mSensors() {
+        run(1_000_000);
+    }
+
+
+    private void run(int sensorCount) {
+        SensorStatsTable sensors = new SensorStatsTable(sensorCount);
+        FaceDirection[] faces = FaceDirection.values();
+        for (int id = 0; id < sensorCount; id++) {
+            for (int reading = 0; reading < 4; reading++) {
+                sensors.add(id, reading, faces[id % faces.length], ThreadLocalRandom.current().nextDouble(19, 21));
+            }
+        }
+        long sequentialNanos = measure(createCalculator(Integer.MAX_VALUE), sensors);
+        long parallelNanos = measure(createCalculator(PARALLEL_THRESHOLD), sensors);
+        System.out.printf("%,9d sensors: sequential %.2f ms, fork-join %.2f ms on %d threads%n", sensorCount,
+                sequentialNanos / 1e6, parallelNanos / 1e6, ForkJoinPool.commonPool().getParallelism());
+    }
+
+
+    private long measure(SensorStatsCalculator calculator, SensorStatsTable sensors) {
+        long[] durations = new long[ITERATIONS];
+        for (int i = -ITERATIONS; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            double[] faceAverages = calculator.faceAverages(sensors);
+            int[] deviatedSlots = calculator.deviatedSlots(sensors, faceAverages, 0.2);
+            long elapsed = System.nanoTime() - start;
+            assertEquals(0, deviatedSlots.length);
+            if (i >= 0) {
+                durations[i] = elapsed;
+            }
+        }
+        Arrays.sort(durations);
+        return durations[ITERATIONS / 2];
+    }
+
+
+    private SensorStatsCalculator createCalculator(int parallelThreshold) {
+        SensorStatsCalculator calculator = new SensorStatsCalculator();
+        ReflectionTestUtils.setField(calculator, "PARALLEL_THRESHOLD", parallelThreshold);
+        return calculator;
+    }
+}
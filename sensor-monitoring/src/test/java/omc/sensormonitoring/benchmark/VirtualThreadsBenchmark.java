@@ -0,0 +1,206 @@
+package omc.sensormonitoring.benchmark;
+
+import omc.sensormonitoring.SensorMonitoringApplication;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.*;
+import java.net.*;
+import java.net.http.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comparison of request handling on platform and virtual threads.
+ * <p>
+ * Each run starts the application, opens {@code benchmark.connections} NDJSON streams that send one reading
+ * every {@code benchmark.interval} milliseconds for {@code benchmark.hold} milliseconds, and meanwhile measures
+ * the latency of single-reading JSON requests. A slow stream holds its request thread for the whole upload,
+ * so with platform threads the number of concurrently served connections is bounded by the Tomcat thread pool
+ * and the remaining requests queue behind the streams.
+ * </p>
+ * <p>
+ * Requires Java 21. Run with {@code mvn test -Pjava21,benchmark -Dtest=VirtualThreadsBenchmark
+ * -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/sensor_db -Dbenchmark.db.username=postgres
+ * -Dbenchmark.db.password=password}. The application tables are created in the {@code sensor_benchmark} schema.
+ * </p>
+ */
+@Tag("benchmark")
+@EnabledForJreRange(min = JRE.JAVA_21)
+@EnabledIfSystemProperty(named = "benchmark.db.url", matches = ".+")
+public class VirtualThreadsBenchmark {
+    private static final String SCHEMA = "sensor_benchmark";
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 250);
+    private static final int HOLD_MILLIS = Integer.getInteger("benchmark.hold", 5000);
+    private static final int INTERVAL_MILLIS = Integer.getInteger("benchmark.interval", 500);
+    private static final int PROBE_INTERVAL_MILLIS = 50;
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(30);
+
+    @BeforeAll
+    public static void setUp() throws SQLException {
+        execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+    }
+
+    @AfterAll
+    public static void tearDown() throws SQLException {
+        execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+
+    @Test
+    @DisplayName("Benchmark slow streams on platform threads")
+    public void benchmarkPlatformThreads() throws Exception {
+        run("platform threads", false);
+    }
+
+
+    @Test
+    @DisplayName("Benchmark slow streams on virtual threads")
+    public void benchmarkVirtualThreads() throws Exception {
+        run("virtual threads", true);
+    }
+
+
+    private void run(String label, boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = startApplication(virtualThreads)) {
+            int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+            List<Socket> streams = new ArrayList<>(CONNECTIONS);
+            for (int i = 0; i < CONNECTIONS; i++) {
+                streams.add(openStream(port));
+            }
+            ExecutorService streamWriter = Executors.newSingleThreadExecutor();
+            Future<?> writing = streamWriter.submit(() -> writeStreams(streams));
+            List<Long> latencies = probe(port);
+            writing.get();
+            streamWriter.shutdown();
+            int completed = 0;
+            for (Socket stream : streams) {
+                completed += readStatus(stream) == 200 ? 1 : 0;
+                stream.close();
+            }
+            report(label, completed, latencies);
+            assertEquals(CONNECTIONS, completed);
+        }
+    }
+
+
+    private ConfigurableApplicationContext startApplication(boolean virtualThreads) {
+        return new SpringApplicationBuilder(SensorMonitoringApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.url=" + System.getProperty("benchmark.db.url"),
+                "--spring.datasource.username=" + System.getProperty("benchmark.db.username", "postgres"),
+                "--spring.datasource.password=" + System.getProperty("benchmark.db.password", ""),
+                "--spring.datasource.hikari.connection-init-sql=SET search_path TO " + SCHEMA,
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.properties.hibernate.default_schema=" + SCHEMA,
+                "--logging.level.omc=info");
+    }
+
+
+    private Socket openStream(int port) throws IOException {
+        Socket socket = new Socket("localhost", port);
+        String headers = "POST /sensors/data/stream HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: application/x-ndjson\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "Connection: close\r\n\r\n";
+        socket.getOutputStream().write(headers.getBytes(StandardCharsets.US_ASCII));
+        return socket;
+    }
+
+
+    private Void writeStreams(List<Socket> streams) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + HOLD_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            for (int i = 0; i < streams.size(); i++) {
+                writeChunk(streams.get(i), String.format(Locale.ROOT,
+                        "{\"id\":%d,\"timestamp\":%d,\"face\":\"NORTH\",\"temperature\":21.5}%n",
+                        i + 1, System.currentTimeMillis()));
+            }
+            Thread.sleep(INTERVAL_MILLIS);
+        }
+        for (Socket stream : streams) {
+            writeChunk(stream, "");
+        }
+        return null;
+    }
+
+
+    private void writeChunk(Socket socket, String data) throws IOException {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        OutputStream out = socket.getOutputStream();
+        out.write((Integer.toHexString(bytes.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+
+    private List<Long> probe(int port) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        List<Long> latencies = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + HOLD_MILLIS;
+        long id = CONNECTIONS + 1;
+        while (System.currentTimeMillis() < deadline) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/sensors/data"))
+                    .timeout(PROBE_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(String.format(Locale.ROOT,
+                            "{\"id\":%d,\"timestamp\":%d,\"face\":\"SOUTH\",\"temperature\":20.0}",
+                            id++, System.currentTimeMillis())))
+                    .build();
+            long start = System.nanoTime();
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (IOException e) {
+                latencies.add(Long.MAX_VALUE);
+                continue;
+            }
+            latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            Thread.sleep(PROBE_INTERVAL_MILLIS);
+        }
+        return latencies;
+    }
+
+
+    private int readStatus(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        String statusLine = reader.readLine();
+        return statusLine == null ? -1 : Integer.parseInt(statusLine.split(" ")[1]);
+    }
+
+
+    private void report(String label, int completed, List<Long> latencies) {
+        List<Long> sorted = latencies.stream().filter(latency -> latency != Long.MAX_VALUE).sorted().toList();
+        long failed = latencies.size() - sorted.size();
+        System.out.printf("%-16s: %d/%d streams completed, %d probes, probe latency p50 %d ms, p99 %d ms, " +
+                        "max %d ms, %d failed%n",
+                label, completed, CONNECTIONS, latencies.size(), percentile(sorted, 0.5), percentile(sorted, 0.99),
+                percentile(sorted, 1.0), failed);
+    }
+
+
+    private long percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+    }
+
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(System.getProperty("benchmark.db.url"),
+                System.getProperty("benchmark.db.username", "postgres"),
+                System.getProperty("benchmark.db.password", ""));
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -1,22 +1,36 @@
 package omc.sensormonitoring.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import omc.sensormonitoring.aggregation.FaceAggregateConsumer;
 import omc.sensormonitoring.controller.handler.ErrorMessages;
-import omc.sensormonitoring.dto.SensorDataDto;
-import omc.sensormonitoring.service.SensorService;
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.ingest.*;
+import omc.sensormonitoring.model.*;
+import omc.sensormonitoring.service.*;
 import omc.sensormonitoring.util.DataUtils;
 import org.junit.jupiter.api.*;
 import org.mockito.BDDMockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.http.MediaType;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.*;
 import org.springframework.test.web.servlet.*;
 import org.springframework.test.web.servlet.result.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 @WebMvcTest
+@Import(NdjsonSensorDataParser.class)
 public class SensorControllerTests {
     @Autowired
     private MockMvc mockMvc;
@@ -27,6 +41,12 @@ public class SensorControllerTests {
     @MockBean
     private SensorService serviceUnderTests;
 
+    @MockBean
+    private DashboardService dashboardService;
+
+    @MockBean
+    private DashboardFeed dashboardFeed;
+
 
     @Test
     @DisplayName("Test save correct sensor data functionality")
@@ -108,4 +128,383 @@ public class SensorControllerTests {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest())
                 .andExpect(MockMvcResultMatchers.content().string(ErrorMessages.MISSING_SENSOR_TEMPERATURE_MESSAGE));
     }
+
+    @Test
+    @DisplayName("Test save sensor data batch with invalid readings functionality")
+    public void givenBatchWithInvalidReadings_whenReceiveSensorDataBatch_thenValidReadingsSavedAndRejectsReported() throws Exception {
+        //given
+        List<SensorDataDto> batchToBeSent = DataUtils.getSensorDataBatchWithRejects();
+        BDDMockito.doNothing().when(serviceUnderTests).saveSensorDataBatch(anyList());
+        //when
+        ResultActions result = mockMvc.perform(post("/sensors/data/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchToBeSent)));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.accepted").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejects[0].index").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejects[0].message").value(ErrorMessages.MISSING_SENSOR_ID_MESSAGE))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejects[1].index").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejects[1].message").value(ErrorMessages.MISSING_SENSOR_DATA_MESSAGE));
+        verify(serviceUnderTests, times(1)).saveSensorDataBatch(
+                List.of(batchToBeSent.get(0), batchToBeSent.get(3)));
+    }
+
+    @Test
+    @DisplayName("Test save oversized sensor data batch functionality")
+    public void givenOversizedBatch_whenReceiveSensorDataBatch_thenExceptionThrown() throws Exception {
+        //given
+        List<SensorDataDto> batchToBeSent = Collections.nCopies(10001, DataUtils.getCorrectSensorData());
+        //when
+        ResultActions result = mockMvc.perform(post("/sensors/data/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchToBeSent)));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content().string(
+                        String.format(ErrorMessages.BATCH_SIZE_EXCEEDED_MESSAGE, 10000)));
+        verify(serviceUnderTests, never()).saveSensorDataBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("Test stop reading oversized sensor data batch functionality")
+    public void givenOversizedBatchWithMalformedTail_whenReceiveSensorDataBatch_thenBatchSizeExceeded()
+            throws Exception {
+        //given
+        String batchToBeSent = objectMapper.writeValueAsString(
+                Collections.nCopies(10001, DataUtils.getCorrectSensorData()));
+        String malformedTail = batchToBeSent.substring(0, batchToBeSent.length() - 1) + ",{\"id\":";
+        //when
+        ResultActions result = mockMvc.perform(post("/sensors/data/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(malformedTail));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content().string(
+                        String.format(ErrorMessages.BATCH_SIZE_EXCEEDED_MESSAGE, 10000)));
+        verify(serviceUnderTests, never()).saveSensorDataBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("Test save malformed sensor data batch functionality")
+    public void givenMalformedBatch_whenReceiveSensorDataBatch_thenExceptionThrown() throws Exception {
+        //given
+        String batchToBeSent = "[{\"id\":1,\"timestamp\":\"now\"}]";
+        //when
+        ResultActions result = mockMvc.perform(post("/sensors/data/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batchToBeSent));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content().string(ErrorMessages.JSON_TYPE_MISMATCH_MESSAGE));
+        verify(serviceUnderTests, never()).saveSensorDataBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("Test save sensor data stream functionality")
+    public void givenNdjsonStream_whenReceiveSensorDataStream_thenRecordsSaved() throws Exception {
+        //given
+        String streamToBeSent = objectMapper.writeValueAsString(DataUtils.getCorrectSensorData()) + "\n"
+                + "{broken\n"
+                + objectMapper.writeValueAsString(DataUtils.getCorrectSensorData()) + "\n";
+        BDDMockito.doNothing().when(serviceUnderTests).saveSensorData(any(SensorDataDto.class));
+        //when
+        ResultActions result = mockMvc.perform(post("/sensors/data/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(streamToBeSent));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.accepted").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(1));
+        verify(serviceUnderTests, times(2)).saveSensorData(DataUtils.getCorrectSensorData());
+    }
+
+    @Test
+    @DisplayName("Test save binary sensor data functionality")
+    public void givenBinaryRecords_whenReceiveSensorDataBinary_thenReadingsSaved() throws Exception {
+        //given
+        ByteBuffer buffer = ByteBuffer.allocate(SensorDataBinaryCodec.RECORD_SIZE * 2);
+        SensorDataBinaryCodec.encode(buffer, 1l, 1000l, FaceDirection.NORTH, 36.6);
+        SensorDataBinaryCodec.encode(buffer, 2l, 1000l, FaceDirection.EAST, 21.5);
+        BDDMockito.doNothing().when(serviceUnderTests).saveSensorDataBatch(any(SensorDataColumns.class));
+        //when
+        ResultActions result = mockMvc.perform(post("/sensors/data")
+                .contentType(SensorDataBinaryCodec.MEDIA_TYPE_VALUE)
+                .content(buffer.array()));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.accepted").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(0));
+        verify(serviceUnderTests, times(1)).saveSensorDataBatch(argThat((SensorDataColumns columns) ->
+                columns.size() == 2 && columns.id(0) == 1l && columns.face(0) == FaceDirection.NORTH &&
+                        columns.id(1) == 2l && columns.temperature(1) == 21.5));
+        verify(serviceUnderTests, never()).saveSensorDataBatch(anyList());
+        verify(serviceUnderTests, never()).saveSensorData(anyLong(), anyLong(), any(FaceDirection.class), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Test save sensor data stream into full buffer functionality")
+    public void givenFullBufferMidStream_whenReceiveSensorDataStream_thenPartialResult() throws Exception {
+        //given
+        SensorDataDto full = new SensorDataDto(2l, 1000l, FaceDirection.NORTH, 36.6);
+        String streamToBeSent = objectMapper.writeValueAsString(DataUtils.getCorrectSensorData()) + "\n"
+                + objectMapper.writeValueAsString(full) + "\n";
+        BDDMockito.doThrow(new SensorBufferFullException()).when(serviceUnderTests).saveSensorData(full);
+        //when
+        ResultActions result = mockMvc.perform(post("/sensors/data/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(streamToBeSent));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.accepted").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.resumeLine").value(1));
+    }
+
+    @Test
+    @DisplayName("Test save sensor data into full buffer functionality")
+    public void givenFullBuffer_whenReceiveSensorData_thenServiceUnavailableWithRetryAfter() throws Exception {
+        //given
+        SensorDataDto sensorDataToBeSent = DataUtils.getCorrectSensorData();
+        BDDMockito.doThrow(new SensorBufferFullException()).when(serviceUnderTests).saveSensorData(any(SensorDataDto.class));
+        //when
+        ResultActions result = mockMvc.perform(post("/sensors/data")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(sensorDataToBeSent)));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(MockMvcResultMatchers.content().string(ErrorMessages.BUFFER_FULL_MESSAGE));
+    }
+
+    @Test
+    @DisplayName("Test get ingest statistics functionality")
+    public void given_whenGetIngestStats_thenBufferStatsReturned() throws Exception {
+        //given
+        BDDMockito.when(serviceUnderTests.getIngestStats())
+                .thenReturn(new IngestStatsDto(new BufferStatsDto(10, 5, 0.5, 7, 1, 2),
+                        new FlushStatsDto(4, 1000, 120, 7, 0, 0),
+                        new WindowStatsDto(120000, 3600000, 2, 3, 0, 0),
+                        new DetectionStatsDto(100, 1, 4)));
+        //when
+        ResultActions result = mockMvc.perform(get("/sensors/stats"));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.buffer.fillRatio").value(0.5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.buffer.dropped").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.flush.batchSize").value(1000))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.window.late").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detection.flagged").value(1));
+    }
+
+
+    @Test
+    @DisplayName("Test get face rollups functionality")
+    public void givenPeriod_whenGetFaceRollups_thenRollupsOfSelectedTierReturned() throws Exception {
+        //given
+        SensorFaceRollup rollup = new SensorFaceRollup(3600000, 0, FaceDirection.NORTH, 4, 86.0, 20.0, 23.0);
+        BDDMockito.when(serviceUnderTests.getFaceRollups(0, 604800000))
+                .thenReturn(new FaceRollupResultDto(3600000, List.of(rollup)));
+        //when
+        ResultActions result = mockMvc.perform(get("/sensors/rollup")
+                .param("from", "0")
+                .param("to", "604800000"));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.resolution").value(3600000))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rollups[0].averageTemperature").value(21.5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rollups[0].readings").value(4));
+    }
+
+    @Test
+    @DisplayName("Test get face quantiles functionality")
+    public void givenPeriod_whenGetFaceQuantiles_thenMergedPercentilesReturned() throws Exception {
+        //given
+        double[] quantiles = {0.5, 0.99};
+        BDDMockito.when(serviceUnderTests.getFaceQuantiles(eq(0l), eq(604800000l), aryEq(quantiles)))
+                .thenReturn(new FaceQuantileResultDto(quantiles, 0.01,
+                        List.of(new FaceQuantilesDto(FaceDirection.NORTH, 1000, -1000, 30, new double[]{21.0, 28.5}))));
+        //when
+        ResultActions result = mockMvc.perform(get("/sensors/quantiles")
+                .param("from", "0")
+                .param("to", "604800000")
+                .param("q", "0.5,0.99"));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.faces[0].face").value("NORTH"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.faces[0].min").value(-1000.0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.faces[0].values[1]").value(28.5));
+    }
+
+    @Test
+    @DisplayName("Test get face quantiles with invalid quantile functionality")
+    public void givenInvalidQuantile_whenGetFaceQuantiles_thenBadRequestReturned() throws Exception {
+        //given
+        //when
+        ResultActions result = mockMvc.perform(get("/sensors/quantiles")
+                .param("from", "0")
+                .param("q", "95"));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content().string(ErrorMessages.INVALID_QUANTILE_MESSAGE));
+        verify(serviceUnderTests, never()).getFaceQuantiles(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Test get malfunctioning sensors page functionality")
+    public void givenFiltersAndKeyset_whenGetMalfunctioningSensors_thenPageReturned() throws Exception {
+        //given
+        BDDMockito.when(serviceUnderTests.getMalfunctioningSensors(0l, 7200000l, FaceDirection.NORTH, null,
+                        7200000l, 4l, 1))
+                .thenReturn(new DeviatedSensorPageDto(
+                        List.of(new SensorDeviatedData(9l, 3600000l, FaceDirection.NORTH, -1000.0)), 3600000l, 9l));
+        //when
+        ResultActions result = mockMvc.perform(get("/sensors/deviated")
+                .param("from", "0")
+                .param("to", "7200000")
+                .param("face", "NORTH")
+                .param("beforeTimestamp", "7200000")
+                .param("beforeId", "4")
+                .param("limit", "1"));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.sensors[0].id").value(9))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextTimestamp").value(3600000))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextId").value(9));
+    }
+
+    @Test
+    @DisplayName("Test get malfunctioning sensors with too large page functionality")
+    public void givenTooLargeLimit_whenGetMalfunctioningSensors_thenBadRequestReturned() throws Exception {
+        //given
+        //when
+        ResultActions result = mockMvc.perform(get("/sensors/deviated")
+                .param("limit", "100000"));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content()
+                        .string(String.format(ErrorMessages.INVALID_PAGE_SIZE_MESSAGE, 1000)));
+    }
+
+    @Test
+    @DisplayName("Test get face aggregates functionality")
+    public void givenRangeAndGranularity_whenGetFaceAggregates_thenBucketsStreamed() throws Exception {
+        //given
+        BDDMockito.doAnswer(invocation -> {
+            FaceAggregateConsumer consumer = invocation.getArgument(4);
+            consumer.accept(0l, FaceDirection.NORTH, 21.5, 20.0, 23.0, 24);
+            consumer.accept(86400000l, FaceDirection.NORTH, 22.0, 21.0, 23.0, 24);
+            return null;
+        }).when(serviceUnderTests).streamFaceAggregates(eq(0l), eq(172800000l), eq(Granularity.DAY),
+                eq(FaceDirection.NORTH), any());
+        MvcResult started = mockMvc.perform(get("/sensors/aggregates")
+                        .param("from", "0")
+                        .param("to", "172800000")
+                        .param("granularity", "DAY")
+                        .param("face", "NORTH"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        //when
+        ResultActions result = mockMvc.perform(asyncDispatch(started));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.granularity").value("DAY"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.aggregates.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.aggregates[1].timestamp").value(86400000))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.aggregates[1].averageTemperature").value(22.0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.aggregates[1].hours").value(24));
+    }
+
+    @Test
+    @DisplayName("Test get face aggregates with failing read functionality")
+    public void givenReadFailingMidStream_whenGetFaceAggregates_thenErrorFieldWritten() throws Exception {
+        //given
+        BDDMockito.doAnswer(invocation -> {
+            FaceAggregateConsumer consumer = invocation.getArgument(4);
+            consumer.accept(0l, FaceDirection.NORTH, 21.5, 20.0, 23.0, 24);
+            throw new QueryTimeoutException("canceling statement due to statement timeout");
+        }).when(serviceUnderTests).streamFaceAggregates(eq(0l), eq(172800000l), eq(Granularity.DAY), any(), any());
+        MvcResult started = mockMvc.perform(get("/sensors/aggregates")
+                        .param("from", "0")
+                        .param("to", "172800000")
+                        .param("granularity", "DAY"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        //when
+        ResultActions result = mockMvc.perform(asyncDispatch(started));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.aggregates.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error")
+                        .value(ErrorMessages.AGGREGATES_INCOMPLETE_MESSAGE));
+    }
+
+    @Test
+    @DisplayName("Test get face aggregates of empty range functionality")
+    public void givenEmptyRange_whenGetFaceAggregates_thenBadRequestReturned() throws Exception {
+        //given
+        //when
+        ResultActions result = mockMvc.perform(get("/sensors/aggregates")
+                .param("from", "3600000")
+                .param("to", "3600000"));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content().string(ErrorMessages.INVALID_RANGE_MESSAGE));
+        verify(serviceUnderTests, never()).streamFaceAggregates(anyLong(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Test get sensor history functionality")
+    public void givenSensorIdAndRange_whenGetSensorHistory_thenHourlyStatisticsReturned() throws Exception {
+        //given
+        SensorAvgData hour = new SensorAvgData(17l, 7200000l, FaceDirection.NORTH, 720, 21.5, 19.0, 24.0);
+        BDDMockito.when(serviceUnderTests.getSensorHistory(17l, 0l, 7200000l)).thenReturn(List.of(hour));
+        //when
+        ResultActions result = mockMvc.perform(get("/sensors/17/history")
+                .param("from", "0")
+                .param("to", "7200000"));
+        //then
+        result
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(17))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].face").value("NORTH"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].readings").value(720))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].maxTemperature").value(24.0));
+    }
 }
@@ -0,0 +1,124 @@
+package omc.sensormonitoring.detection;
+
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class OnlineDeviationDetectorTests {
+    private final List<DeviationAlert> alerts = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+    private OnlineDeviationDetector detectorUnderTests;
+
+
+    @BeforeEach
+    public void setUp() {
+        detectorUnderTests = new OnlineDeviationDetector(List.of(alerts::add), now::get);
+        ReflectionTestUtils.setField(detectorUnderTests, "ENABLED", true);
+        ReflectionTestUtils.setField(detectorUnderTests, "ALPHA", 0.5);
+        ReflectionTestUtils.setField(detectorUnderTests, "MIN_READINGS", 3);
+        ReflectionTestUtils.setField(detectorUnderTests, "MIN_SENSORS", 10);
+        ReflectionTestUtils.setField(detectorUnderTests, "STRIPES", 2);
+        ReflectionTestUtils.setField(detectorUnderTests, "DEVIATION_PERCENTAGE", 0.2);
+        ReflectionTestUtils.setField(detectorUnderTests, "IDLE_TIMEOUT", 3600l);
+        detectorUnderTests.initializeDetector();
+    }
+
+
+    @Test
+    @DisplayName("Test detect deviating sensor functionality")
+    public void givenDeviatingSensor_whenAdd_thenAlertRaisedOnce() {
+        //given
+        long timestamp = 1700000000000L;
+        //when
+        for (int reading = 0; reading < 5; reading++) {
+            for (long id = 1; id <= 1000; id++) {
+                double temperature = id == 17 ? -1000 : 20 + id % 3;
+                detectorUnderTests.add(id, timestamp + reading, FaceDirection.NORTH, temperature);
+                detectorUnderTests.add(10000 + id, timestamp + reading, FaceDirection.SOUTH, 25);
+            }
+        }
+        //then
+        Assertions.assertEquals(1, alerts.size());
+        DeviationAlert alert = alerts.get(0);
+        Assertions.assertEquals(17, alert.id());
+        Assertions.assertEquals(FaceDirection.NORTH, alert.face());
+        Assertions.assertEquals(timestamp + 2, alert.timestamp());
+        Assertions.assertEquals(2000, detectorUnderTests.getStats().sensors());
+        Assertions.assertEquals(1, detectorUnderTests.getStats().flagged());
+    }
+
+    @Test
+    @DisplayName("Test recover deviating sensor functionality")
+    public void givenRecoveredSensor_whenAdd_thenFlagClearedAndRaisedAgain() {
+        //given
+        long timestamp = 1700000000000L;
+        for (int reading = 0; reading < 3; reading++) {
+            for (long id = 1; id <= 40; id++) {
+                detectorUnderTests.add(id, timestamp + reading, FaceDirection.EAST, id == 1 ? 100 : 20);
+            }
+        }
+        //when
+        for (int reading = 0; reading < 20; reading++) {
+            detectorUnderTests.add(1, timestamp + 10 + reading, FaceDirection.EAST, 20);
+        }
+        long flaggedAfterRecovery = detectorUnderTests.getStats().flagged();
+        for (int reading = 0; reading < 20; reading++) {
+            detectorUnderTests.add(1, timestamp + 30 + reading, FaceDirection.EAST, 100);
+        }
+        //then
+        Assertions.assertEquals(0, flaggedAfterRecovery);
+        Assertions.assertEquals(2, alerts.size());
+        Assertions.assertEquals(2, detectorUnderTests.getStats().alerts());
+    }
+
+
+    @Test
+    @DisplayName("Test skip stale sensor readings functionality")
+    public void givenReadingsNotNewerThanLatest_whenAdd_thenReadingsSkipped() {
+        //given
+        long timestamp = 1700000000000L;
+        for (int reading = 0; reading < 3; reading++) {
+            for (long id = 1; id <= 40; id++) {
+                detectorUnderTests.add(id, timestamp + reading, FaceDirection.EAST, 20);
+            }
+        }
+        //when
+        for (int reading = 0; reading < 20; reading++) {
+            detectorUnderTests.add(1, timestamp + 2, FaceDirection.EAST, 100);
+            detectorUnderTests.add(1, timestamp - reading, FaceDirection.EAST, 100);
+        }
+        //then
+        Assertions.assertTrue(alerts.isEmpty());
+        Assertions.assertEquals(0, detectorUnderTests.getStats().flagged());
+    }
+
+
+    @Test
+    @DisplayName("Test evict idle sensors functionality")
+    public void givenIdleSensors_whenEvictIdleSensors_thenRemovedFromFaceReference() {
+        //given
+        long timestamp = 1700000000000L;
+        for (int reading = 0; reading < 3; reading++) {
+            for (long id = 1; id <= 100; id++) {
+                detectorUnderTests.add(id, timestamp + reading, FaceDirection.EAST, id <= 50 ? -1000 : 20);
+            }
+        }
+        for (long id = 51; id <= 100; id++) {
+            detectorUnderTests.add(id, timestamp + 7200000, FaceDirection.EAST, 20);
+        }
+        long flaggedBeforeEviction = detectorUnderTests.getStats().flagged();
+        now.set(timestamp + 7200000);
+        //when
+        detectorUnderTests.evictIdleSensors();
+        for (long id = 51; id <= 100; id++) {
+            detectorUnderTests.add(id, timestamp + 7200001, FaceDirection.EAST, 20);
+        }
+        detectorUnderTests.add(101, timestamp + 7200001, FaceDirection.EAST, 30);
+        //then
+        Assertions.assertEquals(100, flaggedBeforeEviction);
+        Assertions.assertEquals(51, detectorUnderTests.getStats().sensors());
+        Assertions.assertEquals(0, detectorUnderTests.getStats().flagged());
+    }
+}
@@ -0,0 +1,97 @@
+package omc.sensormonitoring.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NdjsonSensorDataParserTests {
+
+    NdjsonSensorDataParser parserUnderTests;
+
+    @BeforeEach
+    public void setUp() {
+        parserUnderTests = new NdjsonSensorDataParser(new ObjectMapper());
+        ReflectionTestUtils.setField(parserUnderTests, "MAX_LINE_LENGTH", 128);
+    }
+
+
+    @Test
+    @DisplayName("Test parse NDJSON stream with malformed lines functionality")
+    public void givenStreamWithMalformedLines_whenParse_thenMalformedLinesSkipped() throws IOException {
+        //given
+        String body = """
+                {"id":1,"timestamp":1000,"face":"NORTH","temperature":36.6}
+                {"id":2,"timestamp":1000,"face":"UP","temperature":20.0}
+                not a json
+
+                {"id":null,"timestamp":1000,"face":"EAST","temperature":20.0}
+                {"timestamp":1000,"face":"EAST","temperature":20.0}
+                {"id":3,"timestamp":1000,"face":"SOUTH","temperature":-5,"extra":{"a":[1,2]}}\r
+                {"id":4,"timestamp":1000,"face":"WEST","temperature":1.5}""";
+        List<SensorDataDto> received = new ArrayList<>();
+        //when
+        StreamResultDto result = parserUnderTests.parse(toStream(body), received::add);
+        //then
+        assertEquals(3, result.accepted());
+        assertEquals(4, result.rejected());
+        assertEquals(List.of(
+                new SensorDataDto(1l, 1000l, FaceDirection.NORTH, 36.6),
+                new SensorDataDto(3l, 1000l, FaceDirection.SOUTH, -5.0),
+                new SensorDataDto(4l, 1000l, FaceDirection.WEST, 1.5)), received);
+    }
+
+
+    @Test
+    @DisplayName("Test parse NDJSON stream with too long line functionality")
+    public void givenStreamWithTooLongLine_whenParse_thenLineSkipped() throws IOException {
+        //given
+        String body = "{\"id\":1,\"timestamp\":1000,\"face\":\"NORTH\",\"temperature\":36.6,\"note\":\""
+                + "x".repeat(200) + "\"}\n"
+                + "{\"id\":2,\"timestamp\":1000,\"face\":\"NORTH\",\"temperature\":36.6}\n";
+        List<SensorDataDto> received = new ArrayList<>();
+        //when
+        StreamResultDto result = parserUnderTests.parse(toStream(body), received::add);
+        //then
+        assertEquals(1, result.accepted());
+        assertEquals(1, result.rejected());
+        assertEquals(2l, received.get(0).id());
+        assertNull(result.resumeLine());
+    }
+
+
+    @Test
+    @DisplayName("Test parse NDJSON stream into full buffer functionality")
+    public void givenBufferFullMidStream_whenParse_thenStoppedWithResumeLine() throws IOException {
+        //given
+        String body = """
+                {"id":1,"timestamp":1000,"face":"NORTH","temperature":36.6}
+                not a json
+                {"id":2,"timestamp":1000,"face":"NORTH","temperature":36.6}
+                {"id":3,"timestamp":1000,"face":"NORTH","temperature":36.6}
+                """;
+        List<SensorDataDto> received = new ArrayList<>();
+        //when
+        StreamResultDto result = parserUnderTests.parse(toStream(body), sensorDataDto -> {
+            if (sensorDataDto.id() == 2l) {
+                throw new SensorBufferFullException();
+            }
+            received.add(sensorDataDto);
+        });
+        //then
+        assertEquals(1, result.accepted());
+        assertEquals(1, result.rejected());
+        assertEquals(2l, result.resumeLine());
+        assertEquals(1, received.size());
+    }
+
+
+    private static InputStream toStream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,48 @@
+package omc.sensormonitoring.ingest;
+
+import omc.sensormonitoring.controller.handler.ErrorMessages;
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorDataBinaryCodecTests {
+
+    @Test
+    @DisplayName("Test decode binary records functionality")
+    public void givenEncodedRecords_whenDecode_thenReadingsConsumedAndInvalidFaceRejected() {
+        //given
+        ByteBuffer buffer = ByteBuffer.allocate(SensorDataBinaryCodec.RECORD_SIZE * 3);
+        SensorDataBinaryCodec.encode(buffer, 1l, 1000l, FaceDirection.NORTH, 36.6);
+        buffer.putLong(2l).putLong(1000l).put((byte) 7).putDouble(20.0);
+        SensorDataBinaryCodec.encode(buffer, 3l, 2000l, FaceDirection.WEST, -4.25);
+        buffer.flip();
+        List<SensorDataDto> received = new ArrayList<>();
+        //when
+        BatchResultDto result = SensorDataBinaryCodec.decode(buffer,
+                (id, timestamp, face, temperature) -> received.add(new SensorDataDto(id, timestamp, face, temperature)));
+        //then
+        assertEquals(2, result.accepted());
+        assertEquals(1, result.rejected());
+        assertEquals(new RejectedSensorDataDto(1, ErrorMessages.INVALID_SENSOR_FACE_DIRECTION_MESSAGE), result.rejects().get(0));
+        assertEquals(List.of(
+                new SensorDataDto(1l, 1000l, FaceDirection.NORTH, 36.6),
+                new SensorDataDto(3l, 2000l, FaceDirection.WEST, -4.25)), received);
+        assertFalse(buffer.hasRemaining());
+    }
+
+
+    @Test
+    @DisplayName("Test decode truncated binary payload functionality")
+    public void givenTruncatedPayload_whenDecode_thenExceptionThrown() {
+        //given
+        ByteBuffer buffer = ByteBuffer.allocate(SensorDataBinaryCodec.RECORD_SIZE + 3);
+        //when
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> SensorDataBinaryCodec.decode(buffer, (id, timestamp, face, temperature) -> fail()));
+        //then
+        assertEquals(String.format(ErrorMessages.INVALID_BINARY_LENGTH_MESSAGE, SensorDataBinaryCodec.RECORD_SIZE), e.getMessage());
+    }
+}
@@ -0,0 +1,192 @@
+package omc.sensormonitoring.ingest;
+
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorDataBufferTests {
+
+    private static SensorDataBuffer createBuffer(int capacity, OverflowPolicy policy) {
+        SensorDataBuffer buffer = new SensorDataBuffer(new SensorDataWal());
+        ReflectionTestUtils.setField(buffer, "CAPACITY", capacity);
+        ReflectionTestUtils.setField(buffer, "STRIPES", 1);
+        ReflectionTestUtils.setField(buffer, "OVERFLOW_POLICY", policy);
+        ReflectionTestUtils.setField(buffer, "BLOCK_TIMEOUT_MILLIS", 10l);
+        buffer.initializeBuffer();
+        return buffer;
+    }
+
+    private static boolean offer(SensorDataBuffer buffer, long id) {
+        return buffer.offer(id, 1000l, FaceDirection.NORTH, 36.6);
+    }
+
+    private static List<Long> ids(SensorDataColumns columns) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            ids.add(columns.id(i));
+        }
+        return ids;
+    }
+
+
+    @Test
+    @DisplayName("Test offer into full buffer with reject policy functionality")
+    public void givenFullBufferWithRejectPolicy_whenOffer_thenReadingRejected() {
+        //given
+        SensorDataBuffer bufferUnderTests = createBuffer(2, OverflowPolicy.REJECT);
+        offer(bufferUnderTests, 1);
+        offer(bufferUnderTests, 2);
+        //when
+        boolean accepted = offer(bufferUnderTests, 3);
+        //then
+        assertFalse(accepted);
+        assertEquals(new BufferStatsDto(2, 2, 1.0, 2, 1, 0), bufferUnderTests.getStats());
+    }
+
+
+    @Test
+    @DisplayName("Test offer into full buffer with drop oldest policy functionality")
+    public void givenFullBufferWithDropOldestPolicy_whenOffer_thenOldestReadingDropped() {
+        //given
+        SensorDataBuffer bufferUnderTests = createBuffer(2, OverflowPolicy.DROP_OLDEST);
+        offer(bufferUnderTests, 1);
+        offer(bufferUnderTests, 2);
+        //when
+        boolean accepted = offer(bufferUnderTests, 3);
+        SensorDataColumns swapped = bufferUnderTests.swap(0);
+        //then
+        assertTrue(accepted);
+        assertEquals(List.of(2l, 3l), ids(swapped));
+        assertEquals(new BufferStatsDto(2, 0, 0.0, 3, 0, 1), bufferUnderTests.getStats());
+    }
+
+
+    @Test
+    @DisplayName("Test offer into full buffer with block policy functionality")
+    public void givenFullBufferWithBlockPolicy_whenOffer_thenReadingRejectedAfterTimeout() {
+        //given
+        SensorDataBuffer bufferUnderTests = createBuffer(1, OverflowPolicy.BLOCK);
+        offer(bufferUnderTests, 1);
+        //when
+        boolean accepted = offer(bufferUnderTests, 2);
+        bufferUnderTests.swap(0);
+        boolean acceptedAfterSwap = offer(bufferUnderTests, 3);
+        //then
+        assertFalse(accepted);
+        assertTrue(acceptedAfterSwap);
+        assertEquals(1, bufferUnderTests.getStats().rejected());
+    }
+
+
+    @Test
+    @DisplayName("Test offer columnar batch functionality")
+    public void givenColumnarBatch_whenOfferAll_thenAllReadingsAcceptedOrWholeBatchRejected() {
+        //given
+        SensorDataBuffer bufferUnderTests = createBuffer(3, OverflowPolicy.REJECT);
+        SensorDataColumns columns = new SensorDataColumns(2);
+        columns.add(1l, 1000l, FaceDirection.NORTH, 20.0);
+        columns.add(2l, 1000l, FaceDirection.EAST, 21.0);
+        //when
+        boolean first = bufferUnderTests.offerAll(columns);
+        boolean second = bufferUnderTests.offerAll(columns);
+        //then
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(2, bufferUnderTests.size());
+        assertEquals(2, bufferUnderTests.getStats().rejected());
+    }
+
+
+    @Test
+    @DisplayName("Test offer batch larger than free space functionality")
+    public void givenBatchLargerThanFreeSpace_whenOfferAll_thenWholeBatchRejected() {
+        //given
+        SensorDataBuffer bufferUnderTests = createBuffer(3, OverflowPolicy.REJECT);
+        offer(bufferUnderTests, 1);
+        SensorDataDto reading = new SensorDataDto(2l, 1000l, FaceDirection.EAST, 20.0);
+        //when
+        boolean accepted = bufferUnderTests.offerAll(List.of(reading, reading, reading));
+        //then
+        assertFalse(accepted);
+        assertEquals(1, bufferUnderTests.size());
+        assertEquals(3, bufferUnderTests.getStats().rejected());
+    }
+
+
+    @Test
+    @DisplayName("Test swap and release buffer stripe functionality")
+    public void givenBufferedReadings_whenSwapAndRelease_thenStoragesReused() {
+        //given
+        SensorDataBuffer bufferUnderTests = createBuffer(4, OverflowPolicy.REJECT);
+        offer(bufferUnderTests, 1);
+        offer(bufferUnderTests, 2);
+        //when
+        SensorDataColumns first = bufferUnderTests.swap(0);
+        offer(bufferUnderTests, 3);
+        SensorDataColumns whileFlushing = bufferUnderTests.swap(0);
+        bufferUnderTests.release(0, first, true);
+        SensorDataColumns second = bufferUnderTests.swap(0);
+        //then
+        assertNull(whileFlushing);
+        assertEquals(List.of(3l), ids(second));
+        assertNotSame(first, second);
+        assertEquals(0, bufferUnderTests.size());
+        assertNull(bufferUnderTests.swap(0));
+        assertEquals(FaceDirection.NORTH, second.face(0));
+        assertEquals(36.6, second.temperature(0));
+    }
+
+
+    @Test
+    @DisplayName("Test offer into full home stripe functionality")
+    public void givenFullHomeStripe_whenOffer_thenReadingAddedToOtherStripe() {
+        //given
+        SensorDataBuffer bufferUnderTests = new SensorDataBuffer(new SensorDataWal());
+        ReflectionTestUtils.setField(bufferUnderTests, "CAPACITY", 4);
+        ReflectionTestUtils.setField(bufferUnderTests, "STRIPES", 2);
+        ReflectionTestUtils.setField(bufferUnderTests, "OVERFLOW_POLICY", OverflowPolicy.REJECT);
+        bufferUnderTests.initializeBuffer();
+        //when
+        boolean[] accepted = {offer(bufferUnderTests, 1), offer(bufferUnderTests, 2), offer(bufferUnderTests, 3),
+                offer(bufferUnderTests, 4), offer(bufferUnderTests, 5)};
+        //then
+        assertArrayEquals(new boolean[] {true, true, true, true, false}, accepted);
+        assertEquals(new BufferStatsDto(4, 4, 1.0, 4, 1, 0), bufferUnderTests.getStats());
+    }
+
+
+    @Test
+    @DisplayName("Test initialize buffer with stripes smaller than a batch functionality")
+    public void givenStripesSmallerThanMaxBatch_whenInitializeBuffer_thenIllegalStateException() {
+        //given
+        SensorDataBuffer bufferUnderTests = new SensorDataBuffer(new SensorDataWal());
+        ReflectionTestUtils.setField(bufferUnderTests, "CAPACITY", 100);
+        ReflectionTestUtils.setField(bufferUnderTests, "STRIPES", 4);
+        ReflectionTestUtils.setField(bufferUnderTests, "MAX_BATCH_SIZE", 30);
+        //when
+        //then
+        assertThrows(IllegalStateException.class, bufferUnderTests::initializeBuffer);
+    }
+
+
+    @Test
+    @DisplayName("Test initialize buffer with default stripe count functionality")
+    public void givenDefaultStripeCount_whenInitializeBuffer_thenMaxBatchFitsIntoStripe() {
+        //given
+        SensorDataBuffer bufferUnderTests = new SensorDataBuffer(new SensorDataWal());
+        ReflectionTestUtils.setField(bufferUnderTests, "CAPACITY", 100);
+        ReflectionTestUtils.setField(bufferUnderTests, "STRIPES", 0);
+        ReflectionTestUtils.setField(bufferUnderTests, "OVERFLOW_POLICY", OverflowPolicy.REJECT);
+        ReflectionTestUtils.setField(bufferUnderTests, "MAX_BATCH_SIZE", 60);
+        bufferUnderTests.initializeBuffer();
+        SensorDataDto reading = new SensorDataDto(1l, 1000l, FaceDirection.EAST, 20.0);
+        //when
+        boolean accepted = bufferUnderTests.offerAll(Collections.nCopies(60, reading));
+        //then
+        assertTrue(accepted);
+        assertEquals(1, bufferUnderTests.stripeCount());
+    }
+}
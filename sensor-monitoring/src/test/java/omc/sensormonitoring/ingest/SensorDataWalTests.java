@@ -0,0 +1,189 @@
+package omc.sensormonitoring.ingest;
+
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorDataWalTests {
+
+    @TempDir
+    Path directory;
+
+    private SensorDataWal createWal() throws IOException {
+        SensorDataWal wal = new SensorDataWal();
+        ReflectionTestUtils.setField(wal, "ENABLED", true);
+        ReflectionTestUtils.setField(wal, "DIRECTORY", directory.toString());
+        ReflectionTestUtils.setField(wal, "SEGMENT_SIZE", WalSegment.RECORD_SIZE * 2);
+        ReflectionTestUtils.setField(wal, "SYNC_MODE", WalSyncMode.GROUP);
+        ReflectionTestUtils.setField(wal, "SYNC_INTERVAL_MILLIS", 5l);
+        ReflectionTestUtils.setField(wal, "MAX_PENDING_SEGMENTS", 4);
+        wal.initializeWal();
+        return wal;
+    }
+
+    private SensorDataBuffer createBuffer(SensorDataWal wal) {
+        SensorDataBuffer buffer = new SensorDataBuffer(wal);
+        ReflectionTestUtils.setField(buffer, "CAPACITY", 10);
+        ReflectionTestUtils.setField(buffer, "STRIPES", 1);
+        ReflectionTestUtils.setField(buffer, "OVERFLOW_POLICY", OverflowPolicy.REJECT);
+        buffer.initializeBuffer();
+        return buffer;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+
+    @Test
+    @DisplayName("Test replay WAL after restart functionality")
+    public void givenUnflushedReadings_whenWalReopened_thenReadingsReplayed() throws Exception {
+        //given
+        SensorDataWal wal = createWal();
+        SensorDataBuffer buffer = createBuffer(wal);
+        buffer.offer(1l, 1000l, FaceDirection.NORTH, 36.6);
+        buffer.offer(2l, 1000l, FaceDirection.WEST, -4.25);
+        buffer.offer(3l, 2000l, FaceDirection.EAST, 20.0);
+        wal.shutdownWal();
+        List<Long> replayedIds = new ArrayList<>();
+        //when
+        SensorDataWal reopened = createWal();
+        long replayed = reopened.replay(columns -> {
+            for (int i = 0; i < columns.size(); i++) {
+                replayedIds.add(columns.id(i));
+            }
+        });
+        reopened.shutdownWal();
+        //then
+        assertEquals(3, replayed);
+        assertEquals(List.of(1l, 2l, 3l), replayedIds);
+        assertEquals(0, segmentCount());
+    }
+
+
+    @Test
+    @DisplayName("Test reuse WAL segments after flush functionality")
+    public void givenPersistedReadings_whenReleased_thenSegmentsReusedAndNothingReplayed() throws Exception {
+        //given
+        SensorDataWal wal = createWal();
+        SensorDataBuffer buffer = createBuffer(wal);
+        buffer.offer(1l, 1000l, FaceDirection.NORTH, 36.6);
+        buffer.offer(2l, 1000l, FaceDirection.WEST, -4.25);
+        buffer.release(0, buffer.swap(0), true);
+        Thread.sleep(50);
+        //when
+        buffer.offer(3l, 2000l, FaceDirection.EAST, 20.0);
+        wal.shutdownWal();
+        List<Long> replayedIds = new ArrayList<>();
+        SensorDataWal reopened = createWal();
+        reopened.replay(columns -> {
+            for (int i = 0; i < columns.size(); i++) {
+                replayedIds.add(columns.id(i));
+            }
+        });
+        reopened.shutdownWal();
+        //then
+        assertEquals(List.of(3l), replayedIds);
+    }
+
+
+    @Test
+    @DisplayName("Test retry WAL segments of failed flush functionality")
+    public void givenFailedFlush_whenRetryPending_thenReadingsWrittenAndSegmentsReleased() throws Exception {
+        //given
+        SensorDataWal walUnderTests = createWal();
+        SensorDataBuffer buffer = createBuffer(walUnderTests);
+        buffer.offer(1l, 1000l, FaceDirection.NORTH, 36.6);
+        buffer.offer(2l, 1000l, FaceDirection.WEST, -4.25);
+        buffer.offer(3l, 2000l, FaceDirection.EAST, 20.0);
+        buffer.release(0, buffer.swap(0), false);
+        int pending = walUnderTests.pendingSegments();
+        List<Long> writtenIds = new ArrayList<>();
+        //when
+        long retried = walUnderTests.retryPending(columns -> {
+            for (int i = 0; i < columns.size(); i++) {
+                writtenIds.add(columns.id(i));
+            }
+        });
+        //then
+        assertTrue(pending > 0);
+        assertEquals(3, retried);
+        assertEquals(List.of(1l, 2l, 3l), writtenIds);
+        assertEquals(0, walUnderTests.pendingSegments());
+        walUnderTests.shutdownWal();
+    }
+
+
+    @Test
+    @DisplayName("Test keep WAL segments when retry fails functionality")
+    public void givenFailingWriter_whenRetryPending_thenSegmentsStayPending() throws Exception {
+        //given
+        SensorDataWal walUnderTests = createWal();
+        SensorDataBuffer buffer = createBuffer(walUnderTests);
+        buffer.offer(1l, 1000l, FaceDirection.NORTH, 36.6);
+        buffer.release(0, buffer.swap(0), false);
+        //when
+        assertThrows(IllegalStateException.class, () -> walUnderTests.retryPending(columns -> {
+            throw new IllegalStateException("Connection refused");
+        }));
+        //then
+        assertEquals(1, walUnderTests.pendingSegments());
+        walUnderTests.shutdownWal();
+    }
+
+
+    @Test
+    @DisplayName("Test reject readings when WAL backlog is full functionality")
+    public void givenFullWalBacklog_whenOffer_thenReadingRejected() throws Exception {
+        //given
+        SensorDataWal wal = createWal();
+        ReflectionTestUtils.setField(wal, "MAX_PENDING_SEGMENTS", 1);
+        SensorDataBuffer bufferUnderTests = createBuffer(wal);
+        bufferUnderTests.offer(1l, 1000l, FaceDirection.NORTH, 36.6);
+        bufferUnderTests.release(0, bufferUnderTests.swap(0), false);
+        //when
+        boolean accepted = bufferUnderTests.offer(2l, 2000l, FaceDirection.WEST, -4.25);
+        //then
+        assertTrue(wal.isBacklogged());
+        assertFalse(accepted);
+        wal.shutdownWal();
+    }
+
+    @Test
+    @DisplayName("Test initialize WAL with group sync and socket listener functionality")
+    public void givenGroupSyncWithSocketListener_whenInitializeWal_thenIllegalStateException() {
+        //given
+        SensorDataWal walUnderTests = new SensorDataWal();
+        ReflectionTestUtils.setField(walUnderTests, "ENABLED", true);
+        ReflectionTestUtils.setField(walUnderTests, "DIRECTORY", directory.toString());
+        ReflectionTestUtils.setField(walUnderTests, "SYNC_MODE", WalSyncMode.GROUP);
+        ReflectionTestUtils.setField(walUnderTests, "SOCKET_ENABLED", true);
+        //when
+        //then
+        assertThrows(IllegalStateException.class, walUnderTests::initializeWal);
+    }
+
+
+    @Test
+    @DisplayName("Test initialize buffer with drop oldest policy and WAL functionality")
+    public void givenDropOldestPolicyWithWal_whenInitializeBuffer_thenIllegalStateException() throws Exception {
+        //given
+        SensorDataWal wal = createWal();
+        SensorDataBuffer bufferUnderTests = new SensorDataBuffer(wal);
+        ReflectionTestUtils.setField(bufferUnderTests, "CAPACITY", 10);
+        ReflectionTestUtils.setField(bufferUnderTests, "STRIPES", 1);
+        ReflectionTestUtils.setField(bufferUnderTests, "OVERFLOW_POLICY", OverflowPolicy.DROP_OLDEST);
+        //when
+        //then
+        assertThrows(IllegalStateException.class, bufferUnderTests::initializeBuffer);
+        wal.shutdownWal();
+    }
+}
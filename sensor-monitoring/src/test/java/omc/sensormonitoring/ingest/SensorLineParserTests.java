@@ -0,0 +1,56 @@
+package omc.sensormonitoring.ingest;
+
+import omc.sensormonitoring.dto.SensorDataDto;
+import omc.sensormonitoring.model.FaceDirection;
+import org.junit.jupiter.api.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorLineParserTests {
+
+    @Test
+    @DisplayName("Test decode sensor data lines functionality")
+    public void givenLines_whenDecode_thenValidConsumedMalformedCountedAndIncompleteLeft() {
+        //given
+        String input = "1,1000,NORTH,36.6\r\n" +
+                "\n" +
+                "2,1000,UP,20.0\n" +
+                "3,abc,WEST,20.0\n" +
+                "4,2000,WEST,-4.25\n" +
+                "5,2000,EAST,1e3\n" +
+                "6,3000,SOUTH,2";
+        ByteBuffer buffer = ByteBuffer.wrap(input.getBytes(StandardCharsets.US_ASCII));
+        List<SensorDataDto> received = new ArrayList<>();
+        SensorLineParser parser = new SensorLineParser();
+        //when
+        long malformed = parser.decode(buffer,
+                (id, timestamp, face, temperature) -> received.add(new SensorDataDto(id, timestamp, face, temperature)),
+                false);
+        //then
+        assertEquals(3, malformed);
+        assertEquals(List.of(
+                new SensorDataDto(1l, 1000l, FaceDirection.NORTH, 36.6),
+                new SensorDataDto(4l, 2000l, FaceDirection.WEST, -4.25)), received);
+        assertEquals("6,3000,SOUTH,2", StandardCharsets.US_ASCII.decode(buffer).toString());
+    }
+
+
+    @Test
+    @DisplayName("Test decode trailing line at end of input functionality")
+    public void givenLineWithoutTerminator_whenDecodeAtEndOfInput_thenLineConsumed() {
+        //given
+        ByteBuffer buffer = ByteBuffer.wrap("6,3000,SOUTH,21.125".getBytes(StandardCharsets.US_ASCII));
+        List<SensorDataDto> received = new ArrayList<>();
+        SensorLineParser parser = new SensorLineParser();
+        //when
+        long malformed = parser.decode(buffer,
+                (id, timestamp, face, temperature) -> received.add(new SensorDataDto(id, timestamp, face, temperature)),
+                true);
+        //then
+        assertEquals(0, malformed);
+        assertEquals(List.of(new SensorDataDto(6l, 3000l, FaceDirection.SOUTH, 21.125)), received);
+        assertFalse(buffer.hasRemaining());
+    }
+}
@@ -0,0 +1,83 @@
+package omc.sensormonitoring.listener;
+
+import omc.sensormonitoring.ingest.SensorDataBinaryCodec;
+import omc.sensormonitoring.model.FaceDirection;
+import omc.sensormonitoring.service.SensorService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SensorSocketListenerTests {
+
+    @Mock
+    SensorService sensorService;
+
+    @InjectMocks
+    SensorSocketListener listenerUnderTests;
+
+    int port;
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        ReflectionTestUtils.setField(listenerUnderTests, "PORT", port);
+        ReflectionTestUtils.setField(listenerUnderTests, "PROTOCOL", SocketProtocol.LINE);
+        ReflectionTestUtils.setField(listenerUnderTests, "EVENT_LOOPS", 2);
+        ReflectionTestUtils.setField(listenerUnderTests, "BUFFER_SIZE", 64);
+    }
+
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        listenerUnderTests.stop();
+    }
+
+
+    @Test
+    @DisplayName("Test receive sensor data lines over TCP functionality")
+    public void givenLinesSplitAcrossWrites_whenSentOverTcp_thenSensorDataSaved() throws Exception {
+        //given
+        listenerUnderTests.start();
+        //when
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write("1,1000,NORTH,3".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            Thread.sleep(50);
+            out.write(("6.6\n" + "x".repeat(100) + "\n2,1000,WEST,-4.25\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        //then
+        verify(sensorService, timeout(2000)).saveSensorData(1l, 1000l, FaceDirection.NORTH, 36.6);
+        verify(sensorService, timeout(2000)).saveSensorData(2l, 1000l, FaceDirection.WEST, -4.25);
+    }
+
+
+    @Test
+    @DisplayName("Test receive binary sensor data over UDP functionality")
+    public void givenBinaryDatagram_whenSentOverUdp_thenSensorDataSaved() throws Exception {
+        //given
+        ReflectionTestUtils.setField(listenerUnderTests, "PROTOCOL", SocketProtocol.BINARY);
+        listenerUnderTests.start();
+        ByteBuffer buffer = ByteBuffer.allocate(SensorDataBinaryCodec.RECORD_SIZE * 2);
+        SensorDataBinaryCodec.encode(buffer, 1l, 1000l, FaceDirection.SOUTH, 20.5);
+        SensorDataBinaryCodec.encode(buffer, 2l, 1000l, FaceDirection.EAST, 21.5);
+        //when
+        try (DatagramSocket socket = new DatagramSocket()) {
+            socket.send(new DatagramPacket(buffer.array(), buffer.position(), InetAddress.getLoopbackAddress(), port));
+        }
+        //then
+        verify(sensorService, timeout(2000)).saveSensorData(1l, 1000l, FaceDirection.SOUTH, 20.5);
+        verify(sensorService, timeout(2000)).saveSensorData(2l, 1000l, FaceDirection.EAST, 21.5);
+    }
+}
@@ -0,0 +1,135 @@
+package omc.sensormonitoring.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import omc.sensormonitoring.model.*;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class DashboardFeedTests {
+
+    DashboardFeed feedUnderTests;
+
+
+    @BeforeEach
+    public void setUp() {
+        feedUnderTests = new DashboardFeed(new ObjectMapper());
+        ReflectionTestUtils.setField(feedUnderTests, "TIMEOUT", 60l);
+        ReflectionTestUtils.setField(feedUnderTests, "SEND_TIMEOUT_MILLIS", 100l);
+        ReflectionTestUtils.setField(feedUnderTests, "DEVIATED_PAGE_SIZE", 100);
+        ReflectionTestUtils.setField(feedUnderTests, "MAX_SUBSCRIBERS", 2);
+        feedUnderTests.initializeFeed();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        feedUnderTests.shutdownFeed();
+    }
+
+
+    @Test
+    @DisplayName("Test broadcast stored hour to subscribers functionality")
+    public void givenOpenSubscriber_whenOnHourlyDataStored_thenSubscriberKept() throws Exception {
+        //given
+        feedUnderTests.subscribe();
+        HourlyDataStoredEvent event = new HourlyDataStoredEvent(3600000l,
+                List.of(new SensorFaceData(3600000l, FaceDirection.NORTH, 20.0)),
+                List.of(new SensorDeviatedData(7l, 3600000l, FaceDirection.NORTH, -1000.0)));
+        //when
+        feedUnderTests.onHourlyDataStored(event);
+        awaitBroadcasts();
+        //then
+        Assertions.assertEquals(1, feedUnderTests.getSubscribers());
+    }
+
+    @Test
+    @DisplayName("Test drop closed subscribers on heartbeat functionality")
+    public void givenCompletedSubscriber_whenHeartbeat_thenSubscriberRemoved() throws Exception {
+        //given
+        feedUnderTests.subscribe();
+        SseEmitter completed = feedUnderTests.subscribe();
+        completed.complete();
+        //when
+        feedUnderTests.heartbeat();
+        awaitBroadcasts();
+        //then
+        Assertions.assertEquals(1, feedUnderTests.getSubscribers());
+    }
+
+
+    @Test
+    @DisplayName("Test drop stalled subscribers functionality")
+    public void givenStalledSubscriber_whenHeartbeat_thenOnlyStalledSubscriberRemoved() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        SseEmitter stalled = new SseEmitter() {
+            @Override
+            public void send(Set<DataWithMediaType> items) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        feedUnderTests.subscribe();
+        ((List<SseEmitter>) ReflectionTestUtils.getField(feedUnderTests, "subscribers")).add(stalled);
+        //when
+        try {
+            feedUnderTests.heartbeat();
+            awaitBroadcasts();
+        } finally {
+            release.countDown();
+        }
+        //then
+        Assertions.assertEquals(1, feedUnderTests.getSubscribers());
+    }
+
+
+    @Test
+    @DisplayName("Test reject subscription while stalled send holds sender functionality")
+    public void givenStalledSendIgnoringInterrupt_whenSubscribe_thenRejectedUntilSendReturns() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        SseEmitter stalled = new SseEmitter() {
+            @Override
+            public void send(Set<DataWithMediaType> items) throws IOException {
+                while (true) {
+                    try {
+                        release.await();
+                        return;
+                    } catch (InterruptedException e) {
+                        // keeps blocking like a write to a stalled connection
+                    }
+                }
+            }
+        };
+        feedUnderTests.subscribe();
+        ((List<SseEmitter>) ReflectionTestUtils.getField(feedUnderTests, "subscribers")).add(stalled);
+        feedUnderTests.heartbeat();
+        awaitBroadcasts();
+        //when
+        Assertions.assertThrows(DashboardFeedFullException.class, () -> feedUnderTests.subscribe());
+        release.countDown();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                feedUnderTests.subscribe();
+                break;
+            } catch (DashboardFeedFullException e) {
+                Assertions.assertTrue(attempt < 50);
+                Thread.sleep(10);
+            }
+        }
+        //then
+        Assertions.assertEquals(2, feedUnderTests.getSubscribers());
+    }
+
+
+    private void awaitBroadcasts() throws Exception {
+        ExecutorService broadcaster = (ExecutorService) ReflectionTestUtils.getField(feedUnderTests, "broadcaster");
+        broadcaster.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+}
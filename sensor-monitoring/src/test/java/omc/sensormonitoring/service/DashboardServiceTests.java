@@ -0,0 +1,76 @@
+package omc.sensormonitoring.service;
+
+import omc.sensormonitoring.dto.*;
+import omc.sensormonitoring.model.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DashboardServiceTests {
+    private static final long HOUR = 3_600_000l;
+    private static final long WEEK = 168 * HOUR;
+
+    private final AtomicLong clock = new AtomicLong(1000 * HOUR + 10);
+
+    @Mock
+    SensorService sensorService;
+
+    @InjectMocks
+    DashboardService serviceUnderTests;
+
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(serviceUnderTests, "MAX_ENTRIES", 2);
+        ReflectionTestUtils.setField(serviceUnderTests, "DEVIATED_WINDOW", 86400l);
+        ReflectionTestUtils.setField(serviceUnderTests, "DEVIATED_PAGE_SIZE", 100);
+        ReflectionTestUtils.setField(serviceUnderTests, "clock", (LongSupplier) clock::get);
+        BDDMockito.when(sensorService.getFaceRollups(anyLong(), anyLong()))
+                .thenReturn(new FaceRollupResultDto(HOUR, List.of()));
+        BDDMockito.when(sensorService.getMalfunctioningSensors(anyLong(), anyLong(), any(), any(), any(), any(), anyInt()))
+                .thenReturn(new DeviatedSensorPageDto(
+                        List.of(new SensorDeviatedData(7l, 1000 * HOUR, FaceDirection.NORTH, -1000.0)), null, null));
+    }
+
+
+    @Test
+    @DisplayName("Test read dashboard through cache functionality")
+    public void givenCachedDashboard_whenGetDashboard_thenDatabaseNotQueriedAgain() {
+        //given
+        DashboardDto loaded = serviceUnderTests.getDashboard();
+        //when
+        clock.addAndGet(HOUR / 2);
+        DashboardDto cached = serviceUnderTests.getDashboard();
+        //then
+        Assertions.assertSame(loaded, cached);
+        Assertions.assertEquals(7l, cached.deviatedSensors().get(0).getId());
+        verify(sensorService, times(1)).getFaceRollups(1001 * HOUR - WEEK, 1001 * HOUR);
+        verify(sensorService, times(1)).getMalfunctioningSensors(1001 * HOUR - 24 * HOUR, 1001 * HOUR, null, null,
+                null, null, 100);
+    }
+
+    @Test
+    @DisplayName("Test invalidate dashboard cache functionality")
+    public void givenCachedDashboard_whenDataStored_thenDashboardReloaded() {
+        //given
+        serviceUnderTests.getDashboard();
+        //when
+        serviceUnderTests.onFaceRollupsStored(new FaceRollupsStoredEvent(60_000l, List.of()));
+        serviceUnderTests.getDashboard();
+        serviceUnderTests.onFaceRollupsStored(new FaceRollupsStoredEvent(HOUR, List.of()));
+        serviceUnderTests.getDashboard();
+        serviceUnderTests.onHourlyDataStored(new HourlyDataStoredEvent(1000 * HOUR, List.of(), List.of()));
+        serviceUnderTests.getDashboard();
+        //then
+        verify(sensorService, times(3)).getMalfunctioningSensors(anyLong(), anyLong(), any(), any(), any(), any(),
+                anyInt());
+    }
+}
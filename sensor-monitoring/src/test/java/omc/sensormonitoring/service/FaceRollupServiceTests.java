@@ -0,0 +1,138 @@
+package omc.sensormonitoring.service;
+
+import omc.sensormonitoring.aggregation.FaceRollupAggregator;
+import omc.sensormonitoring.model.*;
+import omc.sensormonitoring.repository.FaceRollupRepository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.*;
+import java.util.*;
+import java.util.function.LongSupplier;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FaceRollupServiceTests {
+    private static final long MINUTE = 60_000l;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    @Mock
+    FaceRollupAggregator faceRollupAggregator;
+
+    @Mock
+    FaceRollupRepository faceRollupRepository;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    FaceRollupService serviceUnderTests;
+
+    @Captor
+    ArgumentCaptor<List<SensorFaceRollup>> rollupsCaptor;
+
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(serviceUnderTests, "RESOLUTIONS", new long[] {60, 300, 3600, 86400});
+        ReflectionTestUtils.setField(serviceUnderTests, "RETENTIONS", new long[] {86400, 1209600, 7776000, 0});
+        ReflectionTestUtils.setField(serviceUnderTests, "MIN_POINTS", 100);
+        ReflectionTestUtils.setField(serviceUnderTests, "clock", (LongSupplier) () -> 100 * DAY);
+        BDDMockito.when(faceRollupAggregator.getClosedBefore()).thenReturn(100 * DAY - 2 * MINUTE);
+        serviceUnderTests.initializeTiers();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void completeTransaction(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+    }
+
+
+    @Test
+    @DisplayName("Test roll up coarser tier from tier below functionality")
+    public void givenFinalFinestBuckets_whenRollUp_thenCoarserBucketMergedFromTierBelow() {
+        //given
+        long start = 100 * DAY - 5 * MINUTE;
+        BDDMockito.when(faceRollupAggregator.closeBuckets()).thenReturn(List.of());
+        BDDMockito.when(faceRollupAggregator.getClosedBefore()).thenReturn(100 * DAY);
+        BDDMockito.when(faceRollupRepository.findRange(MINUTE, start, 100 * DAY)).thenReturn(List.of(
+                new SensorFaceRollup(MINUTE, start, FaceDirection.NORTH, 2, 40.0, 19.0, 21.0),
+                new SensorFaceRollup(MINUTE, start + MINUTE, FaceDirection.NORTH, 2, 46.0, 22.0, 24.0)));
+        //when
+        serviceUnderTests.rollUp();
+        //then
+        verify(faceRollupRepository, times(2)).saveAll(rollupsCaptor.capture());
+        List<SensorFaceRollup> rollups = rollupsCaptor.getAllValues().get(1);
+        Assertions.assertEquals(1, rollups.size());
+        Assertions.assertEquals(5 * MINUTE, rollups.get(0).getResolution());
+        Assertions.assertEquals(4, rollups.get(0).getReadings());
+        Assertions.assertEquals(21.5, rollups.get(0).getAverageTemperature());
+        Assertions.assertEquals(19.0, rollups.get(0).getMinTemperature());
+        Assertions.assertEquals(24.0, rollups.get(0).getMaxTemperature());
+        verify(faceRollupRepository).findRange(5 * MINUTE, 100 * DAY - 60 * MINUTE, 100 * DAY);
+        verify(faceRollupRepository, times(3)).deleteOlderThan(anyLong(), anyLong());
+    }
+
+
+    @Test
+    @DisplayName("Test resume coarser tier after last stored bucket functionality")
+    public void givenStoredCoarserBuckets_whenInitializeTiersAndRollUp_thenMissedBucketsRolledUp() {
+        //given
+        BDDMockito.when(faceRollupRepository.findLastTimestamp(5 * MINUTE))
+                .thenReturn(Optional.of(100 * DAY - 20 * MINUTE));
+        serviceUnderTests.initializeTiers();
+        BDDMockito.when(faceRollupAggregator.closeBuckets()).thenReturn(List.of());
+        BDDMockito.when(faceRollupAggregator.getClosedBefore()).thenReturn(100 * DAY);
+        //when
+        serviceUnderTests.rollUp();
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        //then
+        verify(faceRollupRepository).findRange(MINUTE, 100 * DAY - 15 * MINUTE, 100 * DAY - 10 * MINUTE);
+        verify(faceRollupRepository).findRange(MINUTE, 100 * DAY - 10 * MINUTE, 100 * DAY - 5 * MINUTE);
+        verify(faceRollupRepository).findRange(MINUTE, 100 * DAY - 5 * MINUTE, 100 * DAY);
+        verify(faceRollupRepository, never()).findRange(MINUTE, 100 * DAY - 20 * MINUTE, 100 * DAY - 15 * MINUTE);
+    }
+
+
+    @Test
+    @DisplayName("Test roll up not committed functionality")
+    public void givenFailedSave_whenRollUp_thenExceptionPropagatedAndBucketsReopened() {
+        //given
+        List<SensorFaceRollup> closed = List.of(
+                new SensorFaceRollup(MINUTE, 100 * DAY - 3 * MINUTE, FaceDirection.NORTH, 2, 40.0, 19.0, 21.0));
+        BDDMockito.when(faceRollupAggregator.closeBuckets()).thenReturn(closed);
+        BDDMockito.when(faceRollupRepository.saveAll(anyList())).thenThrow(new QueryTimeoutException("timeout"));
+        //when
+        Assertions.assertThrows(QueryTimeoutException.class, () -> serviceUnderTests.rollUp());
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        //then
+        verify(faceRollupAggregator).reopenBuckets(closed);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+
+    @Test
+    @DisplayName("Test select rollup tier by period functionality")
+    public void givenPeriods_whenSelectTier_thenCoarsestSufficientTierSelected() {
+        //given
+        long now = 100 * DAY;
+        //when
+        //then
+        Assertions.assertEquals(0, serviceUnderTests.selectTier(now - 60 * MINUTE, now));
+        Assertions.assertEquals(1, serviceUnderTests.selectTier(now - DAY, now));
+        Assertions.assertEquals(2, serviceUnderTests.selectTier(now - 7 * DAY, now));
+        Assertions.assertEquals(2, serviceUnderTests.selectTier(now - 60 * DAY, now - 59 * DAY));
+        Assertions.assertEquals(3, serviceUnderTests.selectTier(now - 95 * DAY, now - 94 * DAY));
+    }
+}
@@ -0,0 +1,76 @@
+package omc.sensormonitoring.service;
+
+import omc.sensormonitoring.aggregation.HourlySensorAggregator;
+import omc.sensormonitoring.dto.WindowStatsDto;
+import omc.sensormonitoring.repository.SensorRepository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MissedHourReconcilerTests {
+    private static final long HOUR = 3600000l;
+
+    @Mock
+    SensorService sensorService;
+
+    @Mock
+    SensorRepository sensorRepository;
+
+    @Mock
+    HourlySensorAggregator hourlySensorAggregator;
+
+    @InjectMocks
+    MissedHourReconciler reconcilerUnderTests;
+
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(reconcilerUnderTests, "CONCURRENCY", 2);
+        reconcilerUnderTests.initializeExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        reconcilerUnderTests.shutdownExecutor();
+    }
+
+
+    @Test
+    @DisplayName("Test catch up missed hours functionality")
+    public void givenMissedHours_whenCatchUp_thenEveryHourAggregated() {
+        //given
+        BDDMockito.when(hourlySensorAggregator.getFirstHour()).thenReturn(10 * HOUR);
+        BDDMockito.when(hourlySensorAggregator.getStats()).thenReturn(new WindowStatsDto(0, 10 * HOUR, 2, 0, 0, 0));
+        BDDMockito.when(sensorRepository.findHoursBefore(10 * HOUR)).thenReturn(List.of(2 * HOUR, 3 * HOUR, 7 * HOUR));
+        lenient().doThrow(new QueryTimeoutException("timeout")).when(sensorService).aggregateMissedHour(3 * HOUR);
+        //when
+        reconcilerUnderTests.catchUp().join();
+        //then
+        verify(sensorService, times(1)).aggregateMissedHour(2 * HOUR);
+        verify(sensorService, times(1)).aggregateMissedHour(3 * HOUR);
+        verify(sensorService, times(1)).aggregateMissedHour(7 * HOUR);
+        Assertions.assertEquals(2, reconcilerUnderTests.getCaughtUp());
+        Assertions.assertEquals(1, reconcilerUnderTests.getFailed());
+    }
+
+
+    @Test
+    @DisplayName("Test catch up hours missed by the hourly task functionality")
+    public void givenAdvancedWatermark_whenCatchUp_thenHoursClosedOverAnHourAgoIncluded() {
+        //given
+        BDDMockito.when(hourlySensorAggregator.getFirstHour()).thenReturn(10 * HOUR);
+        BDDMockito.when(hourlySensorAggregator.getStats()).thenReturn(new WindowStatsDto(0, 15 * HOUR, 2, 0, 0, 0));
+        BDDMockito.when(sensorRepository.findHoursBefore(14 * HOUR)).thenReturn(List.of(12 * HOUR));
+        //when
+        reconcilerUnderTests.catchUp().join();
+        //then
+        verify(sensorService, times(1)).aggregateMissedHour(12 * HOUR);
+        Assertions.assertEquals(1, reconcilerUnderTests.getCaughtUp());
+    }
+}
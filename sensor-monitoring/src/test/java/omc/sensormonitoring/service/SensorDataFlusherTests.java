@@ -0,0 +1,156 @@
+package omc.sensormonitoring.service;
+
+import omc.sensormonitoring.aggregation.*;
+import omc.sensormonitoring.ingest.*;
+import omc.sensormonitoring.repository.SensorDataWriter;
+import omc.sensormonitoring.util.DataUtils;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SensorDataFlusherTests {
+
+    @Mock
+    SensorDataWriter sensorDataWriter;
+
+    @Mock
+    SensorDataBuffer sensorDataBuffer;
+
+    @Mock
+    SensorDataWal sensorDataWal;
+
+    @Mock
+    HourlySensorAggregator hourlySensorAggregator;
+
+    @Mock
+    FaceRollupAggregator faceRollupAggregator;
+
+    @InjectMocks
+    SensorDataFlusher flusherUnderTests;
+
+    ExecutorService writerExecutor = Executors.newFixedThreadPool(2);
+
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(flusherUnderTests, "writerExecutor", writerExecutor);
+        ReflectionTestUtils.setField(flusherUnderTests, "connectionPermits", new Semaphore(2));
+        ReflectionTestUtils.setField(flusherUnderTests, "MIN_BATCH_SIZE", 1);
+        ReflectionTestUtils.setField(flusherUnderTests, "MAX_BATCH_SIZE", 2);
+        ReflectionTestUtils.setField(flusherUnderTests, "TARGET_LATENCY_MILLIS", 1000L);
+        ReflectionTestUtils.setField(flusherUnderTests, "RAW_PERSISTENCE", true);
+        ReflectionTestUtils.setField(flusherUnderTests, "batchSize", new AtomicInteger(2));
+    }
+
+
+    @AfterEach
+    public void tearDown() {
+        writerExecutor.shutdownNow();
+    }
+
+
+    @Test
+    @DisplayName("Test flush buffered sensor data functionality")
+    public void givenBufferedSensorData_whenFlush_thenBatchesSavedAndStorageReleased() {
+        //given
+        SensorDataColumns columns = DataUtils.getSensorDataColumns();
+        BDDMockito.when(sensorDataBuffer.stripeCount()).thenReturn(1);
+        BDDMockito.when(sensorDataBuffer.swap(0)).thenReturn(columns, (SensorDataColumns) null);
+        //when
+        flusherUnderTests.flush();
+        //then
+        verify(sensorDataWriter, times(1)).write(columns, 0, 2);
+        verify(sensorDataWriter, times(1)).write(columns, 2, 3);
+        verify(sensorDataBuffer, times(1)).release(0, columns, true);
+        verify(hourlySensorAggregator, times(1)).add(columns);
+        Assertions.assertEquals(3, flusherUnderTests.getStats().written());
+    }
+
+
+    @Test
+    @DisplayName("Test flush without raw persistence functionality")
+    public void givenRawPersistenceDisabled_whenFlush_thenSensorDataOnlyAggregated() {
+        //given
+        SensorDataColumns columns = DataUtils.getSensorDataColumns();
+        ReflectionTestUtils.setField(flusherUnderTests, "RAW_PERSISTENCE", false);
+        BDDMockito.when(sensorDataBuffer.stripeCount()).thenReturn(1);
+        BDDMockito.when(sensorDataBuffer.swap(0)).thenReturn(columns, (SensorDataColumns) null);
+        //when
+        flusherUnderTests.flush();
+        //then
+        verify(hourlySensorAggregator, times(1)).add(columns);
+        verify(sensorDataWriter, never()).write(any(SensorDataColumns.class), anyInt(), anyInt());
+        verify(sensorDataBuffer, times(1)).release(0, columns, true);
+    }
+
+
+    @Test
+    @DisplayName("Test flush shrinks batch size on slow writes functionality")
+    public void givenSlowWriter_whenFlush_thenBatchSizeDecreased() {
+        //given
+        SensorDataColumns columns = DataUtils.getSensorDataColumns();
+        ReflectionTestUtils.setField(flusherUnderTests, "TARGET_LATENCY_MILLIS", 1L);
+        BDDMockito.when(sensorDataBuffer.stripeCount()).thenReturn(1);
+        BDDMockito.when(sensorDataBuffer.swap(0)).thenReturn(columns, (SensorDataColumns) null);
+        BDDMockito.doAnswer(invocation -> {
+            Thread.sleep(10);
+            return null;
+        }).when(sensorDataWriter).write(any(SensorDataColumns.class), anyInt(), anyInt());
+        //when
+        flusherUnderTests.flush();
+        //then
+        Assertions.assertEquals(1, flusherUnderTests.getStats().batchSize());
+        verify(sensorDataBuffer, times(1)).release(0, columns, true);
+    }
+
+
+    @Test
+    @DisplayName("Test flush with failing writer functionality")
+    public void givenFailingWriter_whenFlush_thenStorageReleasedAsNotPersisted() {
+        //given
+        SensorDataColumns columns = DataUtils.getSensorDataColumns();
+        BDDMockito.when(sensorDataBuffer.stripeCount()).thenReturn(1);
+        BDDMockito.when(sensorDataBuffer.swap(0)).thenReturn(columns, (SensorDataColumns) null);
+        BDDMockito.doThrow(new DataAccessResourceFailureException("Connection refused"))
+                .when(sensorDataWriter).write(any(SensorDataColumns.class), anyInt(), anyInt());
+        //when
+        flusherUnderTests.flush();
+        //then
+        verify(sensorDataBuffer, times(1)).release(0, columns, false);
+        Assertions.assertEquals(3, flusherUnderTests.getStats().failed());
+    }
+
+
+    @Test
+    @DisplayName("Test retry pending WAL segments functionality")
+    public void givenPendingWalSegments_whenFlush_thenPendingReadingsWritten() {
+        //given
+        SensorDataColumns columns = DataUtils.getSensorDataColumns();
+        BDDMockito.when(sensorDataBuffer.stripeCount()).thenReturn(1);
+        BDDMockito.when(sensorDataBuffer.swap(0)).thenReturn(null);
+        BDDMockito.when(sensorDataWal.pendingSegments()).thenReturn(1, 0);
+        BDDMockito.when(sensorDataWal.retryPending(any())).thenAnswer(invocation -> {
+            invocation.<Consumer<SensorDataColumns>>getArgument(0).accept(columns);
+            return (long) columns.size();
+        });
+        //when
+        flusherUnderTests.flush();
+        ReflectionTestUtils.invokeMethod(flusherUnderTests, "retryWal");
+        //then
+        verify(sensorDataWriter, times(1)).write(columns, 0, 2);
+        verify(sensorDataWriter, times(1)).write(columns, 2, 3);
+        Assertions.assertEquals(3, flusherUnderTests.getStats().written());
+        Assertions.assertEquals(0, flusherUnderTests.getStats().pendingWalSegments());
+    }
+}
@@ -1,6 +1,10 @@
 package omc.sensormonitoring.service;
 
-import omc.sensormonitoring.model.SensorData;
+import omc.sensormonitoring.aggregation.*;
+import omc.sensormonitoring.detection.OnlineDeviationDetector;
+import omc.sensormonitoring.dto.DeviatedSensorPageDto;
+import omc.sensormonitoring.ingest.*;
+import omc.sensormonitoring.model.*;
 import omc.sensormonitoring.repository.*;
 import omc.sensormonitoring.util.DataUtils;
 import org.junit.jupiter.api.*;
@@ -8,8 +12,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.jdbc.core.JdbcTemplate;
-import java.util.List;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.*;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -17,18 +26,62 @@ import static org.mockito.Mockito.*;
 public class SensorServiceTests {
 
     @Mock
-    SensorRepository sensorRepository;
+    SensorDataPartitionManager sensorDataPartitionManager;
+
+    @Mock
+    SensorStatsReader sensorStatsReader;
 
     @Mock
     FaceAvgRepository faceAvgRepository;
 
+    @Mock
+    FaceSketchRepository faceSketchRepository;
+
     @Mock
     SensorDeviatedRepository sensorDeviatedRepository;
 
+    @Mock
+    SensorHistoryWriter sensorHistoryWriter;
+
+    @Mock
+    SensorAvgRepository sensorAvgRepository;
+
+    @Mock
+    SensorDataBuffer sensorDataBuffer;
+
+    @Mock
+    HourlySensorAggregator hourlySensorAggregator;
+
+    @Mock
+    OnlineDeviationDetector onlineDeviationDetector;
+
+    @Spy
+    SensorStatsCalculator sensorStatsCalculator;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     SensorServiceImpl serviceUnderTests;
 
 
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(serviceUnderTests, "RAW_PERSISTENCE", true);
+        ReflectionTestUtils.setField(serviceUnderTests, "HISTORY_ENABLED", true);
+        ReflectionTestUtils.setField(sensorStatsCalculator, "PARALLEL_THRESHOLD", 65536);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void completeTransaction(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+    }
+
 
     @Test
     @DisplayName("Test get average face direction temperatures by period functionality")
@@ -45,34 +98,180 @@ public class SensorServiceTests {
 
     @Test
     @DisplayName("Test get malfunctioning sensors functionality")
-    public void given_whenGetMalfunctioningSensors_thenFindAllCalled() {
+    public void givenMoreSensorsThanLimit_whenGetMalfunctioningSensors_thenPageWithNextKeysetReturned() {
+        //given
+        BDDMockito.when(sensorDeviatedRepository.findPage(0l, 7200000l, Long.MIN_VALUE, FaceDirection.NORTH, null,
+                Limit.of(3))).thenReturn(List.of(
+                new SensorDeviatedData(9l, 7200000l, FaceDirection.NORTH, -1000.0),
+                new SensorDeviatedData(4l, 7200000l, FaceDirection.NORTH, -1000.0),
+                new SensorDeviatedData(9l, 3600000l, FaceDirection.NORTH, -1000.0)));
+        //when
+        DeviatedSensorPageDto page = serviceUnderTests.getMalfunctioningSensors(0l, 7200000l, FaceDirection.NORTH,
+                null, null, null, 2);
+        //then
+        Assertions.assertEquals(2, page.sensors().size());
+        Assertions.assertEquals(7200000l, page.nextTimestamp());
+        Assertions.assertEquals(4l, page.nextId());
+    }
+
+    @Test
+    @DisplayName("Test get last page of malfunctioning sensors functionality")
+    public void givenKeyset_whenGetMalfunctioningSensors_thenPageContinuesBeforeKeyset() {
         //given
-        BDDMockito.when(sensorDeviatedRepository.findAll()).thenReturn(List.of());
+        BDDMockito.when(sensorDeviatedRepository.findPage(0l, 7200000l, 4l, null, 9l, Limit.of(3)))
+                .thenReturn(List.of(new SensorDeviatedData(9l, 3600000l, FaceDirection.NORTH, -1000.0)));
         //when
-        serviceUnderTests.getMalfunctioningSensors();
+        DeviatedSensorPageDto page = serviceUnderTests.getMalfunctioningSensors(0l, 10800000l, null, 9l,
+                7200000l, 4l, 2);
         //then
-        verify(sensorDeviatedRepository, times(1)).findAll();
+        Assertions.assertEquals(1, page.sensors().size());
+        Assertions.assertNull(page.nextTimestamp());
+        Assertions.assertNull(page.nextId());
     }
 
 
     @Test
     @DisplayName("Test calculate and store hourly average data functionality")
-    public void given_whenCalculateAndStoreHourlyAverageData_thenRepositoriesAreCalled() {
+    public void givenUncoveredWindow_whenCalculateAndStoreHourlyAverageData_thenRepositoriesAreCalled() {
         //given
-        SensorData sensorDataToBeExtracted = DataUtils.getSensorData();
-        BDDMockito.when(sensorRepository.findAggregatedSensorData(anyLong(), anyLong()))
-                .thenReturn(List.of(sensorDataToBeExtracted));
+        ReflectionTestUtils.setField(serviceUnderTests, "DEVIATION_PERCENTAGE", 0.2);
+        BDDMockito.when(hourlySensorAggregator.closeWindows()).thenReturn(List.of(HourlyAggregate.empty(0)));
+        BDDMockito.when(hourlySensorAggregator.covers(anyLong())).thenReturn(false);
+        BDDMockito.when(sensorStatsReader.findFaceAverages(anyLong(), anyLong()))
+                .thenReturn(new double[] {Double.NaN, 20.0, 30.0, Double.NaN});
+        BDDMockito.doAnswer(invocation -> {
+            SensorReadingConsumer consumer = invocation.getArgument(2);
+            consumer.accept(1l, 1000l, FaceDirection.NORTH, 29.0);
+            consumer.accept(2l, 1000l, FaceDirection.NORTH, 40.0);
+            consumer.accept(3l, 1000l, FaceDirection.EAST, 20.0);
+            return null;
+        }).when(sensorStatsReader).streamSensorAverages(anyLong(), anyLong(), any());
         BDDMockito.when(sensorDeviatedRepository.saveAll(any(List.class))).thenReturn(List.of());
         BDDMockito.when(faceAvgRepository.saveAll(any(List.class))).thenReturn(List.of());
-        BDDMockito.doNothing().when(sensorRepository).deleteSensorDataInRange(anyLong(), anyLong());
+        BDDMockito.doNothing().when(sensorDataPartitionManager).purgeHour(anyLong());
         //when
         serviceUnderTests.calculateAndStoreHourlyAverageData();
         //then
-        verify(sensorRepository, times(1)).findAggregatedSensorData(anyLong(), anyLong());
+        verify(sensorStatsReader, times(1)).streamSensorAverages(eq(0l), eq(3599999l), any());
+        verify(sensorStatsReader, times(1)).findFaceAverages(0l, 3599999l);
+        ArgumentCaptor<List<SensorDeviatedData>> deviatedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(sensorDeviatedRepository, times(1)).saveAll(deviatedCaptor.capture());
+        Assertions.assertEquals(1, deviatedCaptor.getValue().size());
+        Assertions.assertEquals(2l, deviatedCaptor.getValue().get(0).getId());
+        Assertions.assertEquals(40.0, deviatedCaptor.getValue().get(0).getTemperature());
+        verify(faceAvgRepository, times(1)).saveAll(any(List.class));
+        verify(sensorHistoryWriter, times(1)).writeFromRawData(0, 3599999l, 3600000l);
+        verify(sensorDataPartitionManager, times(1)).purgeHour(0);
+    }
+
+
+    @Test
+    @DisplayName("Test calculate hourly average data from in-memory aggregates functionality")
+    public void givenCoveredWindow_whenCalculateAndStoreHourlyAverageData_thenRawSensorDataNotAggregated() {
+        //given
+        SensorStatsTable sensors = new SensorStatsTable(2);
+        sensors.add(1l, 1000l, FaceDirection.NORTH, 36.6);
+        sensors.add(2l, 1000l, FaceDirection.NORTH, 20.0);
+        QuantileSketch sketch = new QuantileSketch(0.01, 2048);
+        sketch.add(36.6);
+        sketch.add(20.0);
+        HourlyAggregate window = new HourlyAggregate(0, sensors, Map.of(), Map.of(FaceDirection.NORTH, sketch));
+        BDDMockito.when(hourlySensorAggregator.closeWindows()).thenReturn(List.of(window));
+        BDDMockito.when(hourlySensorAggregator.covers(anyLong())).thenReturn(true);
+        BDDMockito.when(sensorDeviatedRepository.saveAll(any(List.class))).thenReturn(List.of());
+        BDDMockito.when(faceAvgRepository.saveAll(any(List.class))).thenReturn(List.of());
+        //when
+        serviceUnderTests.calculateAndStoreHourlyAverageData();
+        //then
+        verify(sensorStatsReader, never()).streamSensorAverages(anyLong(), anyLong(), any());
         verify(sensorDeviatedRepository, times(1)).saveAll(any(List.class));
         verify(faceAvgRepository, times(1)).saveAll(any(List.class));
-        verify(sensorRepository, times(1)).deleteSensorDataInRange(anyLong(), anyLong());
+        verify(faceSketchRepository, times(1)).saveAll(argThat(faceSketches ->
+                ((List<SensorFaceSketch>) faceSketches).get(0).getCount() == 2));
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object event) ->
+                event instanceof HourlyDataStoredEvent stored && stored.endOfHour() == 3600000l &&
+                        stored.faces().size() == 1));
+        verify(sensorHistoryWriter, times(1)).write(sensors, 3600000l);
+        verify(sensorDataPartitionManager, times(1)).purgeHour(0);
+    }
+
+
+    @Test
+    @DisplayName("Test store hourly average data after failed commit functionality")
+    public void givenFailingSave_whenCalculateAndStoreHourlyAverageData_thenWindowStoredByNextRun() {
+        //given
+        SensorStatsTable sensors = new SensorStatsTable(1);
+        sensors.add(1l, 1000l, FaceDirection.NORTH, 20.0);
+        HourlyAggregate window = new HourlyAggregate(0, sensors, Map.of(), Map.of());
+        BDDMockito.when(hourlySensorAggregator.closeWindows()).thenReturn(List.of(window), List.of());
+        BDDMockito.when(hourlySensorAggregator.covers(anyLong())).thenReturn(true);
+        BDDMockito.doAnswer(invocation -> {
+            BDDMockito.when(hourlySensorAggregator.closeWindows()).thenReturn(invocation.getArgument(0));
+            return null;
+        }).when(hourlySensorAggregator).reopenWindows(anyList());
+        BDDMockito.when(faceAvgRepository.saveAll(any(List.class)))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"))
+                .thenReturn(List.of());
+        assertThrows(QueryTimeoutException.class, () -> serviceUnderTests.calculateAndStoreHourlyAverageData());
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        //when
+        serviceUnderTests.calculateAndStoreHourlyAverageData();
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        //then
+        verify(hourlySensorAggregator, times(1)).reopenWindows(List.of(window));
+        verify(faceAvgRepository, times(2)).saveAll(any(List.class));
+        verify(sensorHistoryWriter, times(1)).write(sensors, 3600000l);
+        verify(sensorDataPartitionManager, times(1)).purgeHour(0);
     }
 
 
+    @Test
+    @DisplayName("Test delete sensor history past retention functionality")
+    public void givenHistoryRetention_whenCalculateAndStoreHourlyAverageData_thenExpiredHistoryDeleted() {
+        //given
+        ReflectionTestUtils.setField(serviceUnderTests, "HISTORY_RETENTION", 7776000l);
+        HourlyAggregate window = new HourlyAggregate(7776000000l, new SensorStatsTable(0), Map.of(), Map.of());
+        BDDMockito.when(hourlySensorAggregator.closeWindows()).thenReturn(List.of(window));
+        BDDMockito.when(hourlySensorAggregator.covers(anyLong())).thenReturn(true);
+        //when
+        serviceUnderTests.calculateAndStoreHourlyAverageData();
+        //then
+        verify(sensorAvgRepository, times(1)).deleteOlderThan(3600000l);
+        verify(sensorHistoryWriter, never()).write(any(), anyLong());
+    }
+
+
+    @Test
+    @DisplayName("Test aggregate missed hour functionality")
+    public void givenMissedHour_whenAggregateMissedHour_thenHourAggregatedAndRawDataPurged() {
+        //given
+        long hour = 3600000l;
+        BDDMockito.when(faceAvgRepository.existsByTimestamp(2 * hour)).thenReturn(false);
+        BDDMockito.when(sensorStatsReader.findFaceAverages(hour, 2 * hour - 1))
+                .thenReturn(new double[] {20.0, Double.NaN, Double.NaN, Double.NaN});
+        BDDMockito.when(sensorDeviatedRepository.saveAll(any(List.class))).thenReturn(List.of());
+        BDDMockito.when(faceAvgRepository.saveAll(any(List.class))).thenReturn(List.of());
+        //when
+        serviceUnderTests.aggregateMissedHour(hour);
+        //then
+        verify(faceAvgRepository, times(1)).saveAll(any(List.class));
+        verify(sensorDataPartitionManager, times(1)).purgeHour(hour);
+    }
+
+
+    @Test
+    @DisplayName("Test aggregate already stored missed hour functionality")
+    public void givenStoredHour_whenAggregateMissedHour_thenRawDataPurgedOnly() {
+        //given
+        long hour = 3600000l;
+        BDDMockito.when(faceAvgRepository.existsByTimestamp(2 * hour)).thenReturn(true);
+        //when
+        serviceUnderTests.aggregateMissedHour(hour);
+        //then
+        verify(sensorStatsReader, never()).findFaceAverages(anyLong(), anyLong());
+        verify(faceAvgRepository, never()).saveAll(any(List.class));
+        verify(sensorDataPartitionManager, times(1)).purgeHour(hour);
+    }
 }
@@ -1,8 +1,10 @@
 package omc.sensormonitoring.util;
 
 import omc.sensormonitoring.dto.SensorDataDto;
+import omc.sensormonitoring.ingest.SensorDataColumns;
 import omc.sensormonitoring.model.FaceDirection;
 import omc.sensormonitoring.model.SensorData;
+import java.util.*;
 
 public class DataUtils {
 
@@ -33,4 +35,21 @@ public class DataUtils {
     public static SensorData getSensorData() {
         return new SensorData(1l, 1000l, FaceDirection.NORTH, 36.6);
     }
+
+    public static List<SensorDataDto> getSensorDataBatchWithRejects() {
+        List<SensorDataDto> batch = new ArrayList<>();
+        batch.add(getCorrectSensorData());
+        batch.add(getSensorDataMissingId());
+        batch.add(null);
+        batch.add(new SensorDataDto(2l, 1000l, FaceDirection.SOUTH, 21.5));
+        return batch;
+    }
+
+    public static SensorDataColumns getSensorDataColumns() {
+        SensorDataColumns columns = new SensorDataColumns(3);
+        columns.add(1l, 1000l, FaceDirection.NORTH, 36.6);
+        columns.add(2l, 1000l, FaceDirection.EAST, 20.0);
+        columns.add(3l, 1000l, FaceDirection.WEST, 10.0);
+        return columns;
+    }
 }